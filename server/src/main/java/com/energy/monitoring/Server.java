@@ -1,14 +1,21 @@
 package com.energy.monitoring;
 
 import java.io.IOException;
-import java.net.ServerSocket;
+import java.net.InetSocketAddress;
 import java.net.Socket;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
 import java.sql.Connection;
 import java.sql.SQLException;
+import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -16,26 +23,107 @@ import org.slf4j.LoggerFactory;
 import com.energy.monitoring.config.Config;
 import com.energy.monitoring.config.ConfigKeys;
 import com.energy.monitoring.database.JDBC;
+import com.energy.monitoring.database.ReadingIngestor;
+import com.energy.monitoring.database.StatusWriteBehind;
 import com.energy.monitoring.handlers.HttpHandler;
+import com.energy.monitoring.handlers.NioEventLoop;
+import com.energy.monitoring.handlers.StaticFileCache;
+import com.energy.monitoring.metrics.MetricsRegistry;
+import com.energy.monitoring.uart.SerialPortChannel;
+import com.energy.monitoring.uart.SerialPortManager;
+import com.energy.monitoring.uart.TelemetryPoller;
 
 /* Основные методы работы с сервером */
 public class Server {
     private static final Logger logger      = LoggerFactory.getLogger(Server.class);      // Объект Logger для текущего класса
     private static final String CONFIG_FILE = "src\\main\\resources\\config\\config.properties"; // Имя файла с конфигурационными параметрами сервера
+    private static final String ENGINE_NIO  = "nio";                                         // Имя неблокирующего движка сервера
+    private static final String EXECUTOR_VIRTUAL = "virtual";                                // Имя режима выполнения обработчиков на виртуальных потоках
 
     private static int PORT;                                              // Текущий порт сервера
     private static int THREAD_POOL_SIZE;                                  // Максимальное количество потоков
     private static int CLIENT_WAITING_TIMEOUT;                            // Таймаут клиента
+    private static String ENGINE;                                         // Движок приёма соединений: blocking или nio
+    private static int EVENT_LOOPS;                                       // Количество циклов событий неблокирующего движка
+    private static String EXECUTOR;                                       // Режим выполнения обработчиков: platform или virtual
+    private static int QUEUE_CAPACITY;                                    // Максимальное количество задач, ожидающих свободного обработчика
 
-    private final    int             port;
-    private final    ExecutorService threadPool;
-    private volatile boolean         isRunning;
-    private          ServerSocket    serverSocket;
+    private final    int                 port;
+    private final    ExecutorService     threadPool;
+    private final    Semaphore           admission;
+    private final    AtomicInteger       activeTasks;
+    private final    LongAdder           completedTasks;
+    private final    LongAdder           rejectedTasks;
+    private volatile boolean             isRunning;
+    private          boolean             isStopped;
+    private          ServerSocketChannel serverChannel;
+    private          NioEventLoop[]      eventLoops;
 
     public Server(int port) {
-        this.port       = port;                                           // Порт сервера
-        this.threadPool = Executors.newFixedThreadPool(THREAD_POOL_SIZE); // Количество потоков под задачи
-        this.isRunning  = false;                                          // Статус сервера
+        this.port           = port;                 // Порт сервера
+        this.threadPool     = createThreadPool();   // Исполнитель задач обработки запросов
+        this.admission      = createAdmission();    // Ограничитель числа задач на виртуальных потоках, для пула платформенных потоков - null
+        this.activeTasks    = new AtomicInteger();  // Количество выполняющихся сейчас задач
+        this.completedTasks = new LongAdder();      // Количество завершённых задач
+        this.rejectedTasks  = new LongAdder();      // Количество задач, отклонённых из-за перегрузки
+        this.isRunning      = false;                // Статус сервера
+        this.isStopped      = false;                // Остановлен ли сервер
+    }
+
+    // Возвращает исполнитель задач: фиксированный пул платформенных потоков с ограниченной очередью или по виртуальному потоку на задачу
+    private static ExecutorService createThreadPool() {
+        if (EXECUTOR_VIRTUAL.equalsIgnoreCase(EXECUTOR)) {
+            return Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("http-handler-", 0).factory());
+        } else {
+            return new ThreadPoolExecutor(THREAD_POOL_SIZE, THREAD_POOL_SIZE, 0L, TimeUnit.MILLISECONDS,
+                                          new ArrayBlockingQueue<>(Math.max(1, QUEUE_CAPACITY)), new ThreadPoolExecutor.AbortPolicy());
+        }
+    }
+
+    // Возвращает ограничитель числа одновременно принятых задач для виртуальных потоков, у которых нет своей очереди
+    private static Semaphore createAdmission() {
+        if (EXECUTOR_VIRTUAL.equalsIgnoreCase(EXECUTOR)) {
+            return new Semaphore(THREAD_POOL_SIZE + QUEUE_CAPACITY);
+        } else {
+            return null;
+        }
+    }
+
+    // Передаёт задачу task исполнителю, учитывая её в счётчиках, при перегрузке бросает RejectedExecutionException
+    private void execute(Runnable task) {
+        if (admission != null && !admission.tryAcquire()) {
+            throw reject();
+        }
+
+        try {
+            threadPool.execute(() -> {
+                activeTasks.incrementAndGet();
+                try {
+                    task.run();
+                } finally {
+                    activeTasks.decrementAndGet();
+                    completedTasks.increment();
+                    if (admission != null) {
+                        admission.release();
+                    }
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            if (admission != null) {
+                admission.release();
+            }
+            throw reject();
+        }
+    }
+
+    // Учитывает отклонённую из-за перегрузки задачу и возвращает исключение для вызывающего
+    private RejectedExecutionException reject() {
+        rejectedTasks.increment();
+        long rejected = rejectedTasks.sum();
+        if (rejected == 1 || rejected % 1000 == 0) {
+            logger.warn("Server overloaded, tasks rejected: {}", rejected);
+        }
+        return new RejectedExecutionException("Server is overloaded");
     }
 
     // Возвращает true, если сервер активен, иначе - false
@@ -43,29 +131,66 @@ public class Server {
         return isRunning;
     }
     
-    // Возвращает количество доступных для вычислений потоков
-    public int getActiveThreads() {
-        return THREAD_POOL_SIZE - ((ThreadPoolExecutor) threadPool).getActiveCount();
+    // Возвращает количество задач обработки, выполняющихся в данный момент
+    public int getActiveTasks() {
+        return activeTasks.get();
     }
     
     // Возвращает количество выполненных задач
     public long getCompletedTasks() {
-        return ((ThreadPoolExecutor) threadPool).getCompletedTaskCount();
+        return completedTasks.sum();
     }
 
-    // Останавливает работу сервера
-    public void shutdown() {
+    // Возвращает количество задач, ожидающих свободного обработчика
+    public int getQueueDepth() {
+        if (threadPool instanceof ThreadPoolExecutor pool) {
+            return pool.getQueue().size();
+        }
+        return 0;
+    }
+
+    // Возвращает количество задач, отклонённых из-за перегрузки
+    public long getRejectedTasks() {
+        return rejectedTasks.sum();
+    }
+
+    // Регистрирует показатели исполнителя задач в реестре метрик
+    private void registerMetrics() {
+        MetricsRegistry.registerGauge("http_handler_queue_depth", "Tasks waiting for a free handler", this::getQueueDepth);
+        MetricsRegistry.registerGauge("http_handler_active_tasks", "Tasks being handled right now", this::getActiveTasks);
+        MetricsRegistry.registerCounter("http_handler_completed_tasks_total", "Tasks handled since start", this::getCompletedTasks);
+        MetricsRegistry.registerCounter("http_handler_rejected_tasks_total", "Tasks rejected because the server was overloaded", this::getRejectedTasks);
+    }
+
+    // Останавливает работу сервера, повторный вызов ждёт завершения первой остановки и ничего не делает
+    public synchronized void shutdown() {
+        if (isStopped) {
+            return;
+        }
+        isStopped = true;
         isRunning = false;
         logger.info("Shutting down server...");
         
-        if (serverSocket != null && !serverSocket.isClosed()) {
+        if (serverChannel != null && serverChannel.isOpen()) {
             try {
-                serverSocket.close();
-                logger.info("Server socket closed");
+                serverChannel.close();
+                logger.info("Server channel closed");
             } catch (IOException e) {
-                logger.warn("Error closing server socket: {}", e.getMessage());
+                logger.warn("Error closing server channel: {}", e.getMessage());
             }
         }
+
+        if (eventLoops != null) {
+            for (NioEventLoop eventLoop : eventLoops) {
+                if (eventLoop != null) {
+                    eventLoop.shutdown();
+                }
+            }
+            eventLoops = null;
+            logger.info("Event loops stopped");
+        }
+
+        StaticFileCache.stop();
         
         threadPool.shutdown();
         try {
@@ -80,31 +205,100 @@ public class Server {
             Thread.currentThread().interrupt();
             logger.warn("Thread pool shutdown interrupted {}", e.getMessage());
         }
+
+        TelemetryPoller.stop();
+        SerialPortChannel.stopAll();
+        SerialPortManager.closeAll();
+        StatusWriteBehind.stop();
+        ReadingIngestor.stop();
+        JDBC.shutdown();
         
         logger.info("Server stopped");
     }
 
-    // Начинает работу сервера
+    // Начинает работу сервера на движке, выбранном в конфигурации
     public void start() {
+        StaticFileCache.start();
+        ReadingIngestor.start();
+        StatusWriteBehind.start();
+        TelemetryPoller.start();
+        registerMetrics();
+
+        if (ENGINE_NIO.equalsIgnoreCase(ENGINE)) {
+            startNonBlocking();
+        } else {
+            startBlocking();
+        }
+    }
+
+    // Начинает работу сервера, отдавая каждое соединение отдельному потоку пула
+    // Соединения принимаются через канал, чтобы у сокетов был SocketChannel для передачи файлов через transferTo
+    private void startBlocking() {
         try {
-            serverSocket = new ServerSocket(port);
-            serverSocket.setReuseAddress(true);
+            serverChannel = ServerSocketChannel.open();
+            serverChannel.socket().setReuseAddress(true);
+            serverChannel.bind(new InetSocketAddress(port));
             isRunning = true;
             
             logger.info("==========================================");
             logger.info("Energy Monitoring System Server");
             logger.info("Server started on port: {}", port);
-            logger.info("Thread pool size: {}", THREAD_POOL_SIZE);
+            logExecutorMode();
             logger.info("==========================================");
             
             while (isRunning) {
                 try {
-                    Socket clientSocket = serverSocket.accept();
+                    Socket clientSocket = serverChannel.accept().socket();
                     clientSocket.setSoTimeout(CLIENT_WAITING_TIMEOUT);
                     
                     logger.info("New client connected: {}:{}",clientSocket.getInetAddress().getHostAddress(), clientSocket.getPort());
                     
-                    threadPool.execute(new HttpHandler(clientSocket));
+                    try {
+                        execute(new HttpHandler(clientSocket));
+                    } catch (RejectedExecutionException e) {
+                        HttpHandler.rejectConnection(clientSocket);
+                    }
+                } catch (IOException e) {
+                    if (isRunning) {
+                        logger.error("Error accepting client connection: {}", e.getMessage());
+                    }
+                }
+            }
+        } catch (IOException e) {
+            logger.error("Failed to start server on port {}: {}", port, e.getMessage());
+        } finally {
+            shutdown();
+        }
+    }
+
+    // Начинает работу сервера, распределяя соединения между циклами событий, а в пул отдавая только полностью принятые запросы
+    private void startNonBlocking() {
+        try {
+            serverChannel = ServerSocketChannel.open();
+            serverChannel.socket().setReuseAddress(true);
+            serverChannel.bind(new InetSocketAddress(port));
+
+            eventLoops = new NioEventLoop[EVENT_LOOPS];
+            for (int i = 0; i < EVENT_LOOPS; i++) {
+                eventLoops[i] = new NioEventLoop("nio-event-loop-" + i, this::execute, CLIENT_WAITING_TIMEOUT,
+                                                 Config.getInt(ConfigKeys.Server.KEEP_ALIVE_TIMEOUT), Config.getInt(ConfigKeys.Server.KEEP_ALIVE_MAX_REQUESTS));
+                eventLoops[i].start();
+            }
+            isRunning = true;
+
+            logger.info("==========================================");
+            logger.info("Energy Monitoring System Server");
+            logger.info("Server started on port: {}", port);
+            logger.info("Event loops: {}", EVENT_LOOPS);
+            logExecutorMode();
+            logger.info("==========================================");
+
+            int next = 0;
+            while (isRunning) {
+                try {
+                    SocketChannel clientChannel = serverChannel.accept();
+                    eventLoops[next].register(clientChannel);
+                    next = (next + 1) % EVENT_LOOPS;
                 } catch (IOException e) {
                     if (isRunning) {
                         logger.error("Error accepting client connection: {}", e.getMessage());
@@ -118,6 +312,16 @@ public class Server {
         }
     }
 
+    // Записывает в лог режим выполнения обработчиков
+    private void logExecutorMode() {
+        if (EXECUTOR_VIRTUAL.equalsIgnoreCase(EXECUTOR)) {
+            logger.info("Handlers run on virtual threads");
+        } else {
+            logger.info("Thread pool size: {}", THREAD_POOL_SIZE);
+        }
+        logger.info("Admission queue capacity: {}", QUEUE_CAPACITY);
+    }
+
     public static void main(String[] args) {
 
         Config.load(CONFIG_FILE);
@@ -127,8 +331,7 @@ public class Server {
         String dbPassword = Config.getString(ConfigKeys.DataBase.PASSWORD);
         
         JDBC.configure(dbUrl, dbUser, dbPassword);
-        try {
-            Connection datBaseConnection = JDBC.getConnection();
+        try (Connection datBaseConnection = JDBC.getConnection()) {
             logger.info("Succsessfull getting connection with data-base {}", datBaseConnection.getCatalog());
         } catch (SQLException e) {
             logger.error("Server not started: {}", e.getMessage());
@@ -138,8 +341,14 @@ public class Server {
         PORT                   = Config.getInt(ConfigKeys.Server.PORT);
         THREAD_POOL_SIZE       = Config.getInt(ConfigKeys.Server.MAX_THREADS);
         CLIENT_WAITING_TIMEOUT = Config.getInt(ConfigKeys.Server.CLIENT_WEITING_TIMEOUT);
+        ENGINE                 = Config.getString(ConfigKeys.Server.ENGINE);
+        EVENT_LOOPS            = Math.max(1, Config.getInt(ConfigKeys.Server.EVENT_LOOPS));
+        EXECUTOR               = Config.getString(ConfigKeys.Server.EXECUTOR);
+        QUEUE_CAPACITY         = Math.max(0, Config.getInt(ConfigKeys.Server.QUEUE_CAPACITY));
 
         final Server server = new Server(PORT);
+        // При остановке процесса очереди записи в базу успевают дописать накопленное до закрытия пула соединений
+        Runtime.getRuntime().addShutdownHook(Thread.ofPlatform().name("server-shutdown").unstarted(server::shutdown));
         try {
             server.start();
         } catch (Exception e) {
@@ -30,6 +30,11 @@ public class CoordinatorCommands {
         return COMMAND_NAMES.getOrDefault(commandCode, Names.UNKNOWN);
     }
 
+    // Возвращает true, если координатор отвечает на команду с кодом commandCode несколькими кадрами, по кадру на узел сети
+    public static boolean hasMultiFrameResponse(byte commandCode) {
+        return commandCode == Codes.DISCOVER_NETWORK;
+    }
+
     public class Codes {
         public static final byte OPEN_SESSION          = (byte)0x00;
         public static final byte SET_METER_ADDRESS     = (byte)0x01;
@@ -74,5 +79,11 @@ public class CoordinatorCommands {
 
     public class PayloadSizes {
         public static final int DISCOVER_NETWORK = 13;
+        public static final int PIRS_TELEMETRY   = 34; // Короткий адрес узла и 8 значений float
+    }
+
+    // Коды ПИРС-запросов к узлам, передаваемых командой SINK_COMMAND_MYRMIDON
+    public class PirsRequests {
+        public static final byte READ_TELEMETRY = (byte)0x01;
     }
 }
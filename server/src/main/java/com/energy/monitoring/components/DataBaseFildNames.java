@@ -40,11 +40,25 @@ public class DataBaseFildNames {
             public static final String FREQUENCY       = "frequency";
             public static final String NEUTRAL_CURRENT = "neutral_current";
         }
+
+        public class MeterReading {
+            public static final String METER_ID        = "meter_id";
+            public static final String RECORDED_AT     = "recorded_at";
+            public static final String VOLTAGE         = "voltage";
+            public static final String CURRENT         = "current";
+            public static final String ACTIVE_POWER    = "active_power";
+            public static final String REACTIVE_POWER  = "reactive_power";
+            public static final String APPARENT_POWER  = "apparent_power";
+            public static final String POWER_FACTOR    = "power_factor";
+            public static final String FREQUENCY       = "frequency";
+            public static final String NEUTRAL_CURRENT = "neutral_current";
+        }
     }
 
     public class TableNames {
-        public static final String USERS        = "users";
-        public static final String COORDINATORS = "coordinators";
-        public static final String METERS       = "meters";
+        public static final String USERS          = "users";
+        public static final String COORDINATORS   = "coordinators";
+        public static final String METERS         = "meters";
+        public static final String METER_READINGS = "meter_readings";
     }
 }
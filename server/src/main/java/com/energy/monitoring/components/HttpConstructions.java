@@ -8,6 +8,7 @@ public class HttpConstructions {
         public static final String MAIN            = "/";
         public static final String API             = "/api/";
         public static final String HEALTH          = "/api/health";
+        public static final String METRICS         = "/api/metrics";
 
         public static final String AUTH            = "/api/auth";
         public static final String LOGING          = "/api/auth/login";
@@ -18,11 +19,11 @@ public class HttpConstructions {
         public static final String PROFILE         = "/api/auth/profile";
 
         public static final String COORDINATORS    = "/api/coordinators";
-        public static final String COORDINATOR     = "/api/coordinators/";
-        public static final String CONNECT         = "/connect";
-        public static final String COMMAND         = "/command";
+        public static final String COORDINATOR     = "/api/coordinators/{id}";
+        public static final String CONNECT         = "/api/coordinators/{id}/connect";
+        public static final String COMMAND         = "/api/coordinators/{id}/command";
 
-        public static final String METER         = "/api/meters/";
+        public static final String METER           = "/api/meters/{id}";
     }
 
     public class Methods {
@@ -40,6 +41,10 @@ public class HttpConstructions {
         public static final String AUTHORIZATION  = "authorization";
         public static final String CONTENT_LENGTH = "content-length";
         public static final String ORIG           = "origin";
+        public static final String CONNECTION     = "connection";
+        public static final String ACCEPT_ENC     = "accept-encoding";
+        public static final String TRANSFER_ENC   = "transfer-encoding";
+        public static final String IF_NONE_MATCH  = "if-none-match";
         public static final String CLIENT         = "client";
         public static final String IP             = "ip";
         public static final String NAME           = "name";
@@ -70,5 +75,7 @@ public class HttpConstructions {
         public static final String JPEG  = "image/jpeg";
         public static final String ICO   = "image/x-icon";
         public static final String PLAIN = "text/plain; charset=utf-8";
+
+        public static final String PROMETHEUS = "text/plain; version=0.0.4; charset=utf-8";
     }
 }
@@ -1,215 +1,227 @@
 package com.energy.monitoring.components;
 
-import java.sql.Timestamp;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.sql.SQLException;
+import java.util.List;
+
+import com.energy.monitoring.database.RowCursor;
+import com.energy.monitoring.models.Coordinator;
+import com.energy.monitoring.models.Meter;
+import com.energy.monitoring.models.StreamingBody;
+import com.energy.monitoring.utils.JsonWriter;
 
 /* Методы для формирования тел http-ответов в формате json */
 public class JsonResponses {
-    // Метод для извлечения значений из JSON
-    public static String extractFromJson(String json, String key) {
-        try {
-            int keyIndex = json.indexOf("\"" + key + "\":");
-            if (keyIndex == -1) {
-                return null;
-            }
-            
-            int startIndex = keyIndex + key.length() + 4;
-            int endIndex   = json.indexOf("\"", startIndex);
-            
-            if (endIndex == -1) {
-                endIndex = json.indexOf(",", startIndex);
-                if (endIndex == -1) {
-                    endIndex = json.indexOf("}", startIndex);
-                } else 
-                if (json.substring(startIndex, endIndex).trim().equals("")) {
-                    return null;
-                } else {
-                    return json.substring(startIndex, endIndex).trim();
-                }
-            }
-
-            if (json.substring(startIndex, endIndex).equals("")) {
-                return null;
-            } else {
-                return json.substring(startIndex, endIndex);
-            }
+    private static final int STREAM_BUFFER_SIZE = 8192; // Размер буфера потоковых тел: столько json копится перед отправкой клиенту
 
-        } catch (Exception e) {
-            return null;
-        }
-    }
-
-    public static String formingUniversalResponse(boolean status, String message) {
-        return "{\"success\":" + status + ",\"message\":\"" + message + "\"}";
+    public static byte[] formingUniversalResponse(boolean status, String message) {
+        return new JsonWriter().beginObject()
+                                   .field("success", status)
+                                   .field("message", message)
+                               .endObject().toByteArray();
     }
     
-    public static String formingHealthCheckResponse(long timestamp) {
-        return "{\"status\":\"ok\",\"timestamp\":\"" + timestamp + "\"}";
-    }
-
-    public static String formingUserValidateSuccessResponse(String userName, int userId) {
-        return "{\"success\":true,\"data\":{" +
-                    "\"valid\":true," +
-                    "\"user\":{" +
-                        "\"id\":"         + userId   + "," +
-                        "\"username\":\"" + userName + "\"" +
-                    "}" +
-                "}}";  
-    }
-
-    public static String formingUserUnValidateResponse() {
-        return "{\"success\":true,\"data\":{\"valid\":false}}";    
-    }
-
-    public static String formingUserLoginSuccessResponse(String token, int userId, String username, boolean isActive) {
-        return "{\"success\":true,\"data\":{" +
-                    "\"token\":\"" + token + "\"," +
-                    "\"user\":{" +
-                        "\"id\":"         + userId   + "," +
-                        "\"username\":\"" + username + "\"," +
-                        "\"is_active\":"  + isActive +
-                    "}" +
-                "}}";
-    }
-
-    public static String formingUserRegisterSuccessResponse(String userName, int userId) {
-        return "{\"success\":true,\"data\":{" +
-                    "\"id\":"         + userId   + "," +
-                    "\"username\":\"" + userName + "\"," +
-                    "\"message\":\"Registration successful. Please login.\"" +
-                "}}";
-    }
-
-    public static String formingUserProfileSuccessResponse(String userName, int userId) {
-        return "{\"success\":true,\"data\":{" +
-                    "\"id\":"         + userId   + "," +
-                    "\"username\":\"" + userName + "\"" +
-                "}}";
-    }
-
-    public static String formingCreateCoordinatorSuccessResponse(int id, String name, String mac, String ip, int port, String status) {
-        String port_s = port != 0 ? String.valueOf(port) : null;
-        return "{\"success\":true,\"data\":{" +
-                    "\"id\":"       + id     + "," +
-                    "\"name\":\""   + name   + "\"," +
-                    "\"mac\":\""    + mac    + "\"," +
-                    "\"ip\":\""     + ip     + "\"," +
-                    "\"port\":"     + port_s + "," +
-                    "\"status\":\"" + status + "\"," +
-                    "\"message\":\"Coordinator created successfully\"" +
-                "}}";
-    }
-
-    public static String formingStartOfGetUserCoordinatorsResponse() {
-        return "{\"success\":true,\"data\":[";
-    }
-    public static String formingMiddleOfGetUserCoordinatorsResponse(int id, String name, String mac, String ip, int port, String status, Timestamp cteatedAt, Timestamp lastSeen) {
-        String port_s = port != 0 ? String.valueOf(port) : null;
-        return "{" +
-                    "\"id\":"           + id        + "," +
-                    "\"name\":\""       + name      + "\"," +
-                    "\"mac\":\""        + mac       + "\"," +
-                    "\"ip\":\""         + ip        + "\"," +
-                    "\"port\":"         + port_s    + "," +
-                    "\"status\":\""     + status    + "\"," +
-                    "\"created_at\":\"" + cteatedAt + "\"," +
-                    "\"last_seen\":\""  + lastSeen  + "\"" +
-               "},";
-    }
-    public static String formingEndOfGetUserCoordinatorsResponse(String response) {
-        if (response.charAt(response.length() - 1) == '[') {
-            return response + "]}";
-        } else {
-            return response.substring(0, response.length() - 1) + "]}";
+    public static byte[] formingHealthCheckResponse(long timestamp) {
+        return new JsonWriter().beginObject()
+                                   .field("status",    "ok")
+                                   .field("timestamp", String.valueOf(timestamp))
+                               .endObject().toByteArray();
+    }
+
+    public static byte[] formingUserValidateSuccessResponse(String userName, int userId) {
+        return new JsonWriter().beginObject()
+                                   .field("success", true)
+                                   .name("data").beginObject()
+                                       .field("valid", true)
+                                       .name("user").beginObject()
+                                           .field("id",       userId)
+                                           .field("username", userName)
+                                       .endObject()
+                                   .endObject()
+                               .endObject().toByteArray();
+    }
+
+    public static byte[] formingUserUnValidateResponse() {
+        return new JsonWriter().beginObject()
+                                   .field("success", true)
+                                   .name("data").beginObject()
+                                       .field("valid", false)
+                                   .endObject()
+                               .endObject().toByteArray();
+    }
+
+    public static byte[] formingUserLoginSuccessResponse(String token, int userId, String username, boolean isActive) {
+        return new JsonWriter().beginObject()
+                                   .field("success", true)
+                                   .name("data").beginObject()
+                                       .field("token", token)
+                                       .name("user").beginObject()
+                                           .field("id",        userId)
+                                           .field("username",  username)
+                                           .field("is_active", isActive)
+                                       .endObject()
+                                   .endObject()
+                               .endObject().toByteArray();
+    }
+
+    public static byte[] formingUserRegisterSuccessResponse(String userName, int userId) {
+        return new JsonWriter().beginObject()
+                                   .field("success", true)
+                                   .name("data").beginObject()
+                                       .field("id",       userId)
+                                       .field("username", userName)
+                                       .field("message",  "Registration successful. Please login.")
+                                   .endObject()
+                               .endObject().toByteArray();
+    }
+
+    public static byte[] formingUserProfileSuccessResponse(String userName, int userId) {
+        return new JsonWriter().beginObject()
+                                   .field("success", true)
+                                   .name("data").beginObject()
+                                       .field("id",       userId)
+                                       .field("username", userName)
+                                   .endObject()
+                               .endObject().toByteArray();
+    }
+
+    public static byte[] formingCreateCoordinatorSuccessResponse(int id, String name, String mac, String ip, int port, String status) {
+        JsonWriter json = new JsonWriter().beginObject()
+                                              .field("success", true)
+                                              .name("data").beginObject()
+                                                  .field("id",   id)
+                                                  .field("name", name)
+                                                  .field("mac",  mac)
+                                                  .field("ip",   ip);
+        writePort(json, port);
+        return json.field("status",  status)
+                   .field("message", "Coordinator created successfully")
+                   .endObject()
+               .endObject().toByteArray();
+    }
+
+    // Формирует список координаторов coordinators пользователя за один проход по единому буферу
+    public static byte[] formingGetUserCoordinatorsResponse(List<Coordinator> coordinators) {
+        JsonWriter json = new JsonWriter(128 + 192 * coordinators.size()).beginObject()
+                                                                             .field("success", true)
+                                                                             .name("data").beginArray();
+        for (Coordinator coordinator : coordinators) {
+            writeCoordinator(json, coordinator, coordinator.getStatus());
         }
-    }
+        return json.endArray().endObject().toByteArray();
+    }
+
+    // Формирует потоковое тело со сведениями о координаторе coordinator, его приборы учёта читаются из курсора meters прямо во время отправки
+    public static StreamingBody streamingGetCoordinatorResponse(Coordinator coordinator, RowCursor<Meter> meters) {
+        return new StreamingBody() {
+            @Override
+            public void writeTo(OutputStream output) throws IOException {
+                JsonWriter json = new JsonWriter(output, STREAM_BUFFER_SIZE).beginObject()
+                                                                                .field("success", true)
+                                                                                .name("data").beginObject()
+                                                                                    .name("coordinator");
+                writeCoordinator(json, coordinator, coordinator.getStatus());
+                json.name("meters").beginArray();
+                try {
+                    while (meters.next()) {
+                        writeMeter(json, meters.get());
+                    }
+                } catch (SQLException e) {
+                    throw new IOException("Error reading meters: " + e.getMessage(), e);
+                }
+                json.endArray().endObject().endObject().flush();
+            }
 
-    public static String formingStartOfGetCoordinatorResponse(int id, String name, String mac, String ip, int port, String status, Timestamp cteatedAt, Timestamp lastSeen) {
-        String port_s = port != 0 ? String.valueOf(port) : null;
-        return  "{\"success\":true,\"data\":{" +
-                    "\"coordinator\":{" +
-                        "\"id\":"           + id        + "," +
-                        "\"name\":\""       + name      + "\"," +
-                        "\"mac\":\""        + mac       + "\"," +
-                        "\"ip\":\""         + ip        + "\"," +
-                        "\"port\":"         + port_s    + "," +
-                        "\"status\":\""     + status    + "\"," +
-                        "\"created_at\":\"" + cteatedAt + "\"," +
-                        "\"last_seen\":\""  + lastSeen  + "\"" +
-                   "},\"meters\":[";
-    }
-    public static String formingMiddleOfGetCoordinatorResponse(int meterId, String meterName, String meterZbLongAddr, short meterZbShortAddr, String meterStatus, Timestamp meterCreatedAt, Timestamp meterLastSeen) {
-        return "{" +
-                    "\"id\":"             + meterId          + "," +
-                    "\"name\":\""         + meterName        + "\"," +
-                    "\"zb_long_addr\":\"" + meterZbLongAddr  + "\"," +
-                    "\"zb_short_addr\":"  + meterZbShortAddr + "," +
-                    "\"status\":\""       + meterStatus      + "\"," +
-                    "\"created_at\":\""   + meterCreatedAt   + "\"," +
-                    "\"last_seen\":\""    + meterLastSeen    + "\"" +
-               "},";
-    }
-    public static String formingEndOfGetCoordinatorResponse(String response) {
-        if (response.charAt(response.length() - 1) == '[') {
-            return response + "]}}";
-        } else {
-            return response.substring(0, response.length() - 1) + "]}}";
-        }
+            @Override
+            public void close() {
+                meters.close();
+            }
+        };
     }
 
-    public static String formingStartOfConnectionToCoordinatorResponse(int id, String name, String mac, String ip, int port, String status, Timestamp cteatedAt, Timestamp lastSeen) {
-        String port_s = port != 0 ? String.valueOf(port) : null;
-        return  "{\"success\":true,\"data\":{" +
-                    "\"message\":\"Connected to coordinator\"," +
-                    "\"coordinator\":{" +
-                        "\"id\":"           + id        + "," +
-                        "\"name\":\""       + name      + "\"," +
-                        "\"mac\":\""        + mac       + "\"," +
-                        "\"ip\":\""         + ip        + "\"," +
-                        "\"port\":"         + port_s      + "," +
-                        "\"status\":\""     + status    + "\"," +
-                        "\"created_at\":\"" + cteatedAt + "\"," +
-                        "\"last_seen\":\""  + lastSeen  + "\"" +
-                   "},\"meters\":[";
-    }
-    public static String formingMiddleOfConnectionToCoordinatorResponse(int meterId, String meterName, String meterZbLongAddr, short meterZbShortAddr, String meterStatus, Timestamp meterCreatedAt, Timestamp meterLastSeen) {
-        return "{" +
-                    "\"id\":"             + meterId          + "," +
-                    "\"name\":\""         + meterName        + "\"," +
-                    "\"zb_long_addr\":\"" + meterZbLongAddr  + "\"," +
-                    "\"zb_short_addr\":"  + meterZbShortAddr + "," +
-                    "\"status\":\""       + meterStatus      + "\"," +
-                    "\"created_at\":\""   + meterCreatedAt   + "\"," +
-                    "\"last_seen\":\""    + meterLastSeen    + "\"" +
-               "},";
-    }
-    public static String formingEndOfConnectionToCoordinatorResponse(String response) {
-        if (response.charAt(response.length() - 1) == '[') {
-            return response + "]}}";
-        } else {
-            return response.substring(0, response.length() - 1) + "]}}";
-        }
+    // Формирует ответ об успешном подключении к координатору coordinator, получившему статус status, вместе с его приборами учёта meters
+    public static byte[] formingConnectionToCoordinatorResponse(Coordinator coordinator, String status, List<Meter> meters) {
+        JsonWriter json = new JsonWriter(256 + 192 * meters.size()).beginObject()
+                                                                       .field("success", true)
+                                                                       .name("data").beginObject()
+                                                                           .field("message", "Connected to coordinator")
+                                                                           .name("coordinator");
+        writeCoordinator(json, coordinator, status);
+        writeMeters(json, meters);
+        return json.endObject().endObject().toByteArray();
     }
 
-    public static String formingCoordinatorCommandSuccessResponse(int coordinatorId, String commandCode, String commandParams) {
-        return "{\"success\":true,\"data\":{"  +
-                    "\"id\":"                   + coordinatorId  + ","   +
-                    "\"command_code\":\""       + commandCode    + "\"," +
-                    "\"command_parameters\":\"" + commandParams  + "\""  +
-                "}}";
+    public static byte[] formingCoordinatorCommandSuccessResponse(int coordinatorId, String commandCode, String commandParams) {
+        return new JsonWriter().beginObject()
+                                   .field("success", true)
+                                   .name("data").beginObject()
+                                       .field("id",                 coordinatorId)
+                                       .field("command_code",       commandCode)
+                                       .field("command_parameters", commandParams)
+                                   .endObject()
+                               .endObject().toByteArray();
     }
 
-    public static String formingGetMeterDataSuccessResponse(Double voltage, Double current, Double activePower, Double reactivePower, 
+    public static byte[] formingGetMeterDataSuccessResponse(Double voltage, Double current, Double activePower, Double reactivePower, 
                                                             Double apparentPower, Double powerFactor, Double frequency, Double neutralCurrent) {
-        return "{\"success\":true,\"data\":{" +
-                    "\"voltage\":"         + voltage        + "," +
-                    "\"current\":"         + current        + "," +
-                    "\"active_power\":"    + activePower    + "," +
-                    "\"reactive_power\":"  + reactivePower  + "," +
-                    "\"apparent_power\":"  + apparentPower  + "," +
-                    "\"power_factor\":"    + powerFactor    + "," +
-                    "\"frequency\":"       + frequency      + "," +
-                    "\"neutral_current\":" + neutralCurrent + 
-                "}}";
+        return new JsonWriter().beginObject()
+                                   .field("success", true)
+                                   .name("data").beginObject()
+                                       .field("voltage",         voltage)
+                                       .field("current",         current)
+                                       .field("active_power",    activePower)
+                                       .field("reactive_power",  reactivePower)
+                                       .field("apparent_power",  apparentPower)
+                                       .field("power_factor",    powerFactor)
+                                       .field("frequency",       frequency)
+                                       .field("neutral_current", neutralCurrent)
+                                   .endObject()
+                               .endObject().toByteArray();
+    }
+
+    // Записывает в json объект координатора coordinator со статусом status
+    private static void writeCoordinator(JsonWriter json, Coordinator coordinator, String status) {
+        json.beginObject()
+                .field("id",   coordinator.getId())
+                .field("name", coordinator.getName())
+                .field("mac",  coordinator.getMac())
+                .field("ip",   coordinator.getIp());
+        writePort(json, coordinator.getPort());
+        json    .field("status",     status)
+                .field("created_at", coordinator.getCreatedAt())
+                .field("last_seen",  coordinator.getLastSeen())
+            .endObject();
+    }
+
+    // Записывает в json поле meters с массивом приборов учёта meters
+    private static void writeMeters(JsonWriter json, List<Meter> meters) {
+        json.name("meters").beginArray();
+        for (Meter meter : meters) {
+            writeMeter(json, meter);
+        }
+        json.endArray();
+    }
+
+    // Записывает в json объект прибора учёта meter
+    private static void writeMeter(JsonWriter json, Meter meter) {
+        json.beginObject()
+                .field("id",            meter.getId())
+                .field("name",          meter.getName())
+                .field("zb_long_addr",  meter.getZbLongAddr())
+                .field("zb_short_addr", meter.getZbShortAddr())
+                .field("status",        meter.getStatus())
+                .field("created_at",    meter.getCreatedAt())
+                .field("last_seen",     meter.getLastSeen())
+            .endObject();
+    }
+
+    // Записывает в json поле port, незаданный порт (0) записывается как null
+    private static void writePort(JsonWriter json, int port) {
+        if (port != 0) {
+            json.field("port", port);
+        } else {
+            json.name("port").nullValue();
+        }
     }
-
 }
@@ -47,6 +47,34 @@ public class SqlRequests {
         public static final String COORDINATORS_BELONGS_TO_USER = "SELECT COUNT(*) as count FROM " + DataBaseFildNames.TableNames.COORDINATORS      + " WHERE " 
                                                                                                    + DataBaseFildNames.Tables.Coordinator.ID        + " = ? AND " 
                                                                                                    + DataBaseFildNames.Tables.Coordinator.USER_ID   + " = ?";
+
+        // Координатор, признак его принадлежности пользователю и его приборы учёта одной выборкой: по строке на прибор учёта,
+        // у чужого координатора или координатора без приборов - одна строка с пустыми столбцами прибора учёта
+        public static final String GET_COORDINATOR_WITH_METERS  =                      "SELECT c." + DataBaseFildNames.Tables.Coordinator.ID         + ", c."
+                                                                                                   + DataBaseFildNames.Tables.Coordinator.USER_ID    + ", c."
+                                                                                                   + DataBaseFildNames.Tables.Coordinator.NAME       + ", c."
+                                                                                                   + DataBaseFildNames.Tables.Coordinator.MAC        + ", c."
+                                                                                                   + DataBaseFildNames.Tables.Coordinator.IP         + ", c."
+                                                                                                   + DataBaseFildNames.Tables.Coordinator.PORT       + ", c."
+                                                                                                   + DataBaseFildNames.Tables.Coordinator.STATUS     + ", c."
+                                                                                                   + DataBaseFildNames.Tables.Coordinator.CREATED_AT + ", c."
+                                                                                                   + DataBaseFildNames.Tables.Coordinator.LAST_SEEN  + ", c."
+                                                                                                   + DataBaseFildNames.Tables.Coordinator.USER_ID    + " = ?, m."
+                                                                                                   + DataBaseFildNames.Tables.Meter.ID               + ", m."
+                                                                                                   + DataBaseFildNames.Tables.Meter.COORDINATOR_ID   + ", m."
+                                                                                                   + DataBaseFildNames.Tables.Meter.ZB_LONG_ADDR     + ", m."
+                                                                                                   + DataBaseFildNames.Tables.Meter.ZB_SHORT_ADDR    + ", m."
+                                                                                                   + DataBaseFildNames.Tables.Meter.NAME             + ", m."
+                                                                                                   + DataBaseFildNames.Tables.Meter.STATUS           + ", m."
+                                                                                                   + DataBaseFildNames.Tables.Meter.CREATED_AT       + ", m."
+                                                                                                   + DataBaseFildNames.Tables.Meter.LAST_SEEN        + " FROM "
+                                                                                                   + DataBaseFildNames.TableNames.COORDINATORS       + " c LEFT JOIN "
+                                                                                                   + DataBaseFildNames.TableNames.METERS             + " m ON m."
+                                                                                                   + DataBaseFildNames.Tables.Meter.COORDINATOR_ID   + " = c."
+                                                                                                   + DataBaseFildNames.Tables.Coordinator.ID         + " AND c."
+                                                                                                   + DataBaseFildNames.Tables.Coordinator.USER_ID    + " = ? WHERE c."
+                                                                                                   + DataBaseFildNames.Tables.Coordinator.ID         + " = ? ORDER BY m."
+                                                                                                   + DataBaseFildNames.Tables.Meter.NAME;
     }
 
     public class Meter {
@@ -57,24 +85,52 @@ public class SqlRequests {
                                                                                 + DataBaseFildNames.Tables.Meter.NAME            + ", " 
                                                                                 + DataBaseFildNames.Tables.Meter.STATUS          + ") VALUES (?, ?, ?, ?, ?)";
 
-        public static final String GET_METERS_BY_COORDINATOR = "SELECT * FROM " + DataBaseFildNames.TableNames.METERS            + " WHERE " 
+        // Столбцы прибора учёта без показаний для списков приборов, в этом порядке их читает MeterDAO
+        private static final String LISTING_COLUMNS          =                    DataBaseFildNames.Tables.Meter.ID              + ", " 
+                                                                                + DataBaseFildNames.Tables.Meter.COORDINATOR_ID  + ", " 
+                                                                                + DataBaseFildNames.Tables.Meter.ZB_LONG_ADDR    + ", " 
+                                                                                + DataBaseFildNames.Tables.Meter.ZB_SHORT_ADDR   + ", " 
+                                                                                + DataBaseFildNames.Tables.Meter.NAME            + ", " 
+                                                                                + DataBaseFildNames.Tables.Meter.STATUS          + ", " 
+                                                                                + DataBaseFildNames.Tables.Meter.CREATED_AT      + ", " 
+                                                                                + DataBaseFildNames.Tables.Meter.LAST_SEEN;
+
+        // Столбцы последних показаний прибора учёта, в этом порядке их читает MeterDAO
+        private static final String DATA_COLUMNS             =                    DataBaseFildNames.Tables.Meter.VOLTAGE         + ", " 
+                                                                                + DataBaseFildNames.Tables.Meter.CURRENT         + ", " 
+                                                                                + DataBaseFildNames.Tables.Meter.ACTIVE_POWER    + ", " 
+                                                                                + DataBaseFildNames.Tables.Meter.REACTIVE_POWER  + ", " 
+                                                                                + DataBaseFildNames.Tables.Meter.APPARENT_POWER  + ", " 
+                                                                                + DataBaseFildNames.Tables.Meter.POWER_FACTOR    + ", " 
+                                                                                + DataBaseFildNames.Tables.Meter.FREQUENCY       + ", " 
+                                                                                + DataBaseFildNames.Tables.Meter.NEUTRAL_CURRENT;
+
+        public static final String GET_METERS_BY_COORDINATOR =       "SELECT " + LISTING_COLUMNS                                + " FROM " 
+                                                                                + DataBaseFildNames.TableNames.METERS            + " WHERE " 
                                                                                 + DataBaseFildNames.Tables.Meter.COORDINATOR_ID  + " = ? ORDER BY " 
                                                                                 + DataBaseFildNames.Tables.Meter.NAME;
 
-        public static final String GET_METER                 = "SELECT * FROM " + DataBaseFildNames.TableNames.METERS            + " WHERE " 
+        public static final String GET_METER                 =       "SELECT " + LISTING_COLUMNS                                + ", " 
+                                                                                + DATA_COLUMNS                                   + " FROM " 
+                                                                                + DataBaseFildNames.TableNames.METERS            + " WHERE " 
                                                                                 + DataBaseFildNames.Tables.Meter.ID              + " = ?";
 
-        public static final String UPDATE_METER_DATA         =        "UPDATE " + DataBaseFildNames.TableNames.METERS            + " SET " 
-                                                                                + DataBaseFildNames.Tables.Meter.VOLTAGE         + " = ?, " 
-                                                                                + DataBaseFildNames.Tables.Meter.CURRENT         + " = ?, " 
-                                                                                + DataBaseFildNames.Tables.Meter.ACTIVE_POWER    + " = ?, " 
-                                                                                + DataBaseFildNames.Tables.Meter.REACTIVE_POWER  + " = ?, " 
-                                                                                + DataBaseFildNames.Tables.Meter.APPARENT_POWER  + " = ?, " 
-                                                                                + DataBaseFildNames.Tables.Meter.POWER_FACTOR    + " = ?, " 
-                                                                                + DataBaseFildNames.Tables.Meter.FREQUENCY       + " = ?, " 
-                                                                                + DataBaseFildNames.Tables.Meter.NEUTRAL_CURRENT + " = ?, " 
-                                                                                + DataBaseFildNames.Tables.Meter.LAST_SEEN       + " = ? WHERE " 
-                                                                                + DataBaseFildNames.Tables.Meter.ID              + " = ?";
+        // Приборы учёта с заданным статусом вместе с mac-адресом их координатора для фонового опроса показаний
+        public static final String GET_POLLED_METERS         =     "SELECT c." + DataBaseFildNames.Tables.Coordinator.MAC       + ", m."
+                                                                                + DataBaseFildNames.Tables.Meter.ID              + ", m."
+                                                                                + DataBaseFildNames.Tables.Meter.COORDINATOR_ID  + ", m."
+                                                                                + DataBaseFildNames.Tables.Meter.ZB_LONG_ADDR    + ", m."
+                                                                                + DataBaseFildNames.Tables.Meter.ZB_SHORT_ADDR   + ", m."
+                                                                                + DataBaseFildNames.Tables.Meter.NAME            + ", m."
+                                                                                + DataBaseFildNames.Tables.Meter.STATUS          + ", m."
+                                                                                + DataBaseFildNames.Tables.Meter.CREATED_AT      + ", m."
+                                                                                + DataBaseFildNames.Tables.Meter.LAST_SEEN       + " FROM "
+                                                                                + DataBaseFildNames.TableNames.METERS            + " m JOIN "
+                                                                                + DataBaseFildNames.TableNames.COORDINATORS      + " c ON c."
+                                                                                + DataBaseFildNames.Tables.Coordinator.ID        + " = m."
+                                                                                + DataBaseFildNames.Tables.Meter.COORDINATOR_ID  + " WHERE m."
+                                                                                + DataBaseFildNames.Tables.Meter.STATUS          + " = ? ORDER BY m."
+                                                                                + DataBaseFildNames.Tables.Meter.ID;
 
         public static final String UPDATE_METER_STATUS       =        "UPDATE " + DataBaseFildNames.TableNames.METERS      + " SET " 
                                                                                 + DataBaseFildNames.Tables.Meter.STATUS    + " = ?, " 
@@ -84,4 +140,40 @@ public class SqlRequests {
         public static final String DELETE_METER              =   "DELETE FROM " + DataBaseFildNames.TableNames.METERS      + " WHERE " 
                                                                                 + DataBaseFildNames.Tables.Meter.ID        + " = ?";
     }
+
+    public class MeterReading {
+        private static final String COLUMNS                  =                  " (" + DataBaseFildNames.Tables.MeterReading.METER_ID        + ", "
+                                                                                     + DataBaseFildNames.Tables.MeterReading.RECORDED_AT     + ", "
+                                                                                     + DataBaseFildNames.Tables.MeterReading.VOLTAGE         + ", "
+                                                                                     + DataBaseFildNames.Tables.MeterReading.CURRENT         + ", "
+                                                                                     + DataBaseFildNames.Tables.MeterReading.ACTIVE_POWER    + ", "
+                                                                                     + DataBaseFildNames.Tables.MeterReading.REACTIVE_POWER  + ", "
+                                                                                     + DataBaseFildNames.Tables.MeterReading.APPARENT_POWER  + ", "
+                                                                                     + DataBaseFildNames.Tables.MeterReading.POWER_FACTOR    + ", "
+                                                                                     + DataBaseFildNames.Tables.MeterReading.FREQUENCY       + ", "
+                                                                                     + DataBaseFildNames.Tables.MeterReading.NEUTRAL_CURRENT + ")";
+
+        public static final String COPY_READINGS            =                "COPY " + DataBaseFildNames.TableNames.METER_READINGS           + COLUMNS + " FROM STDIN";
+
+        // Показание удалённого прибора учёта пропускается, последний параметр - снова id прибора
+        public static final String INSERT_READING           =         "INSERT INTO " + DataBaseFildNames.TableNames.METER_READINGS           + COLUMNS
+                                                                                     + " SELECT ?, ?::timestamp, ?::float8, ?::float8, ?::float8, ?::float8, ?::float8, ?::float8, ?::float8, ?::float8"
+                                                                                     + " WHERE EXISTS (SELECT 1 FROM " + DataBaseFildNames.TableNames.METERS + " WHERE "
+                                                                                     + DataBaseFildNames.Tables.Meter.ID                     + " = ?) ON CONFLICT DO NOTHING";
+
+        // Последние показания каждого прибора передаются массивами одинаковой длины, по элементу на прибор
+        public static final String UPDATE_LATEST_METER_DATA =              "UPDATE " + DataBaseFildNames.TableNames.METERS                   + " AS m SET "
+                                                                                     + DataBaseFildNames.Tables.Meter.VOLTAGE                + " = v.voltage, "
+                                                                                     + DataBaseFildNames.Tables.Meter.CURRENT                + " = v.current, "
+                                                                                     + DataBaseFildNames.Tables.Meter.ACTIVE_POWER           + " = v.active_power, "
+                                                                                     + DataBaseFildNames.Tables.Meter.REACTIVE_POWER         + " = v.reactive_power, "
+                                                                                     + DataBaseFildNames.Tables.Meter.APPARENT_POWER         + " = v.apparent_power, "
+                                                                                     + DataBaseFildNames.Tables.Meter.POWER_FACTOR           + " = v.power_factor, "
+                                                                                     + DataBaseFildNames.Tables.Meter.FREQUENCY              + " = v.frequency, "
+                                                                                     + DataBaseFildNames.Tables.Meter.NEUTRAL_CURRENT        + " = v.neutral_current, "
+                                                                                     + DataBaseFildNames.Tables.Meter.LAST_SEEN              + " = GREATEST(m.last_seen, v.recorded_at)"
+                                                                                     + " FROM unnest(?::int[], ?::timestamp[], ?::float8[], ?::float8[], ?::float8[], ?::float8[], ?::float8[], ?::float8[], ?::float8[], ?::float8[])"
+                                                                                     + " AS v(meter_id, recorded_at, voltage, current, active_power, reactive_power, apparent_power, power_factor, frequency, neutral_current)"
+                                                                                     + " WHERE m." + DataBaseFildNames.Tables.Meter.ID + " = v.meter_id";
+    }
 }
@@ -17,15 +17,43 @@ public class Config {
 
     // Значения по умолчанию
     static {
-        defaultProperties.setProperty(ConfigKeys.Server.PORT,                   "8081"     );
-        defaultProperties.setProperty(ConfigKeys.Server.HOST,                   "127.0.0.1");
-        defaultProperties.setProperty(ConfigKeys.Server.MAX_THREADS,            "256"      );
-        defaultProperties.setProperty(ConfigKeys.Server.CLIENT_WEITING_TIMEOUT, "30000"    );
+        defaultProperties.setProperty(ConfigKeys.Server.PORT,                    "8081"     );
+        defaultProperties.setProperty(ConfigKeys.Server.HOST,                    "127.0.0.1");
+        defaultProperties.setProperty(ConfigKeys.Server.MAX_THREADS,             "256"      );
+        defaultProperties.setProperty(ConfigKeys.Server.CLIENT_WEITING_TIMEOUT,  "30000"    );
+        defaultProperties.setProperty(ConfigKeys.Server.ENGINE,                  "blocking" );
+        defaultProperties.setProperty(ConfigKeys.Server.EVENT_LOOPS,             "2"        );
+        defaultProperties.setProperty(ConfigKeys.Server.EXECUTOR,                "platform" );
+        defaultProperties.setProperty(ConfigKeys.Server.KEEP_ALIVE_TIMEOUT,      "5000"     );
+        defaultProperties.setProperty(ConfigKeys.Server.KEEP_ALIVE_MAX_REQUESTS, "100"      );
+        defaultProperties.setProperty(ConfigKeys.Server.QUEUE_CAPACITY,          "512"      );
+        defaultProperties.setProperty(ConfigKeys.Server.RETRY_AFTER,             "1"        );
+
+        defaultProperties.setProperty(ConfigKeys.StaticFiles.ROOT,                 "client" );
+        defaultProperties.setProperty(ConfigKeys.StaticFiles.MAX_CACHED_FILE_SIZE, "1048576");
+        defaultProperties.setProperty(ConfigKeys.StaticFiles.WATCH,                "true"   );
+
+        defaultProperties.setProperty(ConfigKeys.Compression.ENABLED,  "true");
+        defaultProperties.setProperty(ConfigKeys.Compression.MIN_SIZE, "1024");
+        defaultProperties.setProperty(ConfigKeys.Compression.LEVEL,    "6"   );
         
-        defaultProperties.setProperty(ConfigKeys.DataBase.URL,                  "jdbc:postgresql://localhost:5432/energy_monitoring_database");
-        defaultProperties.setProperty(ConfigKeys.DataBase.USER,                 "postgres"                                                   );
-        defaultProperties.setProperty(ConfigKeys.DataBase.PASSWORD,             "12345"                                                      );
+        defaultProperties.setProperty(ConfigKeys.DataBase.URL,                           "jdbc:postgresql://localhost:5432/energy_monitoring_database");
+        defaultProperties.setProperty(ConfigKeys.DataBase.USER,                          "postgres"                                                   );
+        defaultProperties.setProperty(ConfigKeys.DataBase.PASSWORD,                      "12345"                                                      );
+        defaultProperties.setProperty(ConfigKeys.DataBase.POOL_MAX_SIZE,                 "16"     );
+        defaultProperties.setProperty(ConfigKeys.DataBase.POOL_MIN_IDLE,                 "2"      );
+        defaultProperties.setProperty(ConfigKeys.DataBase.POOL_ACQUIRE_TIMEOUT,          "5000"   );
+        defaultProperties.setProperty(ConfigKeys.DataBase.POOL_IDLE_TIMEOUT,             "600000" );
+        defaultProperties.setProperty(ConfigKeys.DataBase.POOL_MAX_LIFETIME,             "1800000");
+        defaultProperties.setProperty(ConfigKeys.DataBase.POOL_VALIDATION_TIMEOUT,       "2000"   );
+        defaultProperties.setProperty(ConfigKeys.DataBase.POOL_LEAK_DETECTION_THRESHOLD, "30000"  );
+        defaultProperties.setProperty(ConfigKeys.DataBase.STATEMENT_CACHE_SIZE,          "64"     );
+        defaultProperties.setProperty(ConfigKeys.DataBase.PREPARE_THRESHOLD,             "1"      );
+        defaultProperties.setProperty(ConfigKeys.DataBase.WRITE_BEHIND_WINDOW,           "1000"   );
         
+        defaultProperties.setProperty(ConfigKeys.Ingest.QUEUE_CAPACITY, "65536");
+        defaultProperties.setProperty(ConfigKeys.Ingest.BATCH_SIZE,     "5000" );
+
         defaultProperties.setProperty(ConfigKeys.JsonWebToken.SECRET,           "super-secret-key-:)"     );
         defaultProperties.setProperty(ConfigKeys.JsonWebToken.EXPIRATION_HOURS, "24"                      );
         defaultProperties.setProperty(ConfigKeys.JsonWebToken.ISSUER,           "energy-monitoring-system");
@@ -35,14 +63,25 @@ public class Config {
         defaultProperties.setProperty(ConfigKeys.PasswordHasher.ALGORITHM,      "PBKDF2WithHmacSHA256");
         defaultProperties.setProperty(ConfigKeys.PasswordHasher.SALT_LENGTH,    "16"                  );
 
-        defaultProperties.setProperty(ConfigKeys.Uart.MAC_ARDRESSES,            ""    );
-        defaultProperties.setProperty(ConfigKeys.Uart.PORT_NAMES,               ""    );
-        defaultProperties.setProperty(ConfigKeys.Uart.BAUND_RATE,               "9600");
-        defaultProperties.setProperty(ConfigKeys.Uart.DATA_BITS,                "8"   );
-        defaultProperties.setProperty(ConfigKeys.Uart.STOP_BITS,                "1"   );
-        defaultProperties.setProperty(ConfigKeys.Uart.PARITY,                   "0"   );
-        defaultProperties.setProperty(ConfigKeys.Uart.MAX_LEN,                  "73"  );
-        defaultProperties.setProperty(ConfigKeys.Uart.RESPONSE_TIMEOUT,         "5000");
+        defaultProperties.setProperty(ConfigKeys.Uart.MAC_ARDRESSES,            ""     );
+        defaultProperties.setProperty(ConfigKeys.Uart.PORT_NAMES,               ""     );
+        defaultProperties.setProperty(ConfigKeys.Uart.BAUND_RATE,               "9600" );
+        defaultProperties.setProperty(ConfigKeys.Uart.DATA_BITS,                "8"    );
+        defaultProperties.setProperty(ConfigKeys.Uart.STOP_BITS,                "1"    );
+        defaultProperties.setProperty(ConfigKeys.Uart.PARITY,                   "0"    );
+        defaultProperties.setProperty(ConfigKeys.Uart.MAX_LEN,                  "73"   );
+        defaultProperties.setProperty(ConfigKeys.Uart.RESPONSE_TIMEOUT,         "5000" );
+        defaultProperties.setProperty(ConfigKeys.Uart.QUEUE_CAPACITY,           "32"   );
+        defaultProperties.setProperty(ConfigKeys.Uart.COMMAND_TIMEOUT,          "15000");
+        defaultProperties.setProperty(ConfigKeys.Uart.FRAME_GAP,                "300"  );
+
+        defaultProperties.setProperty(ConfigKeys.Poller.ENABLED,          "false"  );
+        defaultProperties.setProperty(ConfigKeys.Poller.INTERVAL,         "60000"  );
+        defaultProperties.setProperty(ConfigKeys.Poller.INTERVALS,        ""       );
+        defaultProperties.setProperty(ConfigKeys.Poller.JITTER,           "5000"   );
+        defaultProperties.setProperty(ConfigKeys.Poller.MAX_BACKOFF,      "3600000");
+        defaultProperties.setProperty(ConfigKeys.Poller.COMMAND_TIMEOUT,  "10000"  );
+        defaultProperties.setProperty(ConfigKeys.Poller.REFRESH_INTERVAL, "60000"  );
     }
 
     // Загрузка значений из конфигурационного файла configFile
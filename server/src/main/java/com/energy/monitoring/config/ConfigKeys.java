@@ -4,16 +4,50 @@ package com.energy.monitoring.config;
 public class ConfigKeys {
     
     public class Server {
-        public static final String PORT                   = "server.port";
-        public static final String HOST                   = "server.host";
-        public static final String MAX_THREADS            = "server.max_threads";
-        public static final String CLIENT_WEITING_TIMEOUT = "server.client_timeout";
+        public static final String PORT                    = "server.port";
+        public static final String HOST                    = "server.host";
+        public static final String MAX_THREADS             = "server.max_threads";
+        public static final String CLIENT_WEITING_TIMEOUT  = "server.client_timeout";
+        public static final String ENGINE                  = "server.engine";
+        public static final String EVENT_LOOPS             = "server.event_loops";
+        public static final String EXECUTOR                = "server.executor";
+        public static final String KEEP_ALIVE_TIMEOUT      = "server.keep_alive_timeout";
+        public static final String KEEP_ALIVE_MAX_REQUESTS = "server.keep_alive_max_requests";
+        public static final String QUEUE_CAPACITY          = "server.queue_capacity";
+        public static final String RETRY_AFTER             = "server.retry_after";
+    }
+
+    public class StaticFiles {
+        public static final String ROOT                 = "static.root";
+        public static final String MAX_CACHED_FILE_SIZE = "static.max_cached_file_size";
+        public static final String WATCH                = "static.watch";
+    }
+
+    public class Compression {
+        public static final String ENABLED  = "compression.enabled";
+        public static final String MIN_SIZE = "compression.min_size";
+        public static final String LEVEL    = "compression.level";
     }
 
     public class DataBase {
-        public static final String URL      = "db.url";
-        public static final String USER     = "db.user";
-        public static final String PASSWORD = "db.password";
+        public static final String URL                           = "db.url";
+        public static final String USER                          = "db.user";
+        public static final String PASSWORD                      = "db.password";
+        public static final String POOL_MAX_SIZE                 = "db.pool.max_size";
+        public static final String POOL_MIN_IDLE                 = "db.pool.min_idle";
+        public static final String POOL_ACQUIRE_TIMEOUT          = "db.pool.acquire_timeout";
+        public static final String POOL_IDLE_TIMEOUT             = "db.pool.idle_timeout";
+        public static final String POOL_MAX_LIFETIME             = "db.pool.max_lifetime";
+        public static final String POOL_VALIDATION_TIMEOUT       = "db.pool.validation_timeout";
+        public static final String POOL_LEAK_DETECTION_THRESHOLD = "db.pool.leak_detection_threshold";
+        public static final String STATEMENT_CACHE_SIZE          = "db.statement_cache_size";
+        public static final String PREPARE_THRESHOLD             = "db.prepare_threshold";
+        public static final String WRITE_BEHIND_WINDOW           = "db.write_behind_window";
+    }
+
+    public class Ingest {
+        public static final String QUEUE_CAPACITY = "ingest.queue_capacity";
+        public static final String BATCH_SIZE     = "ingest.batch_size";
     }
 
     public class JsonWebToken {
@@ -38,5 +72,18 @@ public class ConfigKeys {
         public static final String PARITY           = "uart.parity";
         public static final String MAX_LEN          = "uart.max_len";
         public static final String RESPONSE_TIMEOUT = "uart.response_timeout";
+        public static final String QUEUE_CAPACITY   = "uart.queue_capacity";
+        public static final String COMMAND_TIMEOUT  = "uart.command_timeout";
+        public static final String FRAME_GAP        = "uart.frame_gap";
+    }
+
+    public class Poller {
+        public static final String ENABLED          = "poller.enabled";
+        public static final String INTERVAL         = "poller.interval";
+        public static final String INTERVALS        = "poller.intervals";
+        public static final String JITTER           = "poller.jitter";
+        public static final String MAX_BACKOFF      = "poller.max_backoff";
+        public static final String COMMAND_TIMEOUT  = "poller.command_timeout";
+        public static final String REFRESH_INTERVAL = "poller.refresh_interval";
     }
 }
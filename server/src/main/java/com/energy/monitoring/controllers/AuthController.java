@@ -14,50 +14,34 @@ import com.energy.monitoring.components.HttpConstructions.Methods;
 import com.energy.monitoring.components.HttpStatusCodes;
 import com.energy.monitoring.components.JsonResponses;
 import com.energy.monitoring.database.dao.UserDAO;
+import com.energy.monitoring.handlers.Router;
 import com.energy.monitoring.models.HttpRequest;
 import com.energy.monitoring.models.HttpResponse;
 import com.energy.monitoring.models.User;
+import com.energy.monitoring.utils.JsonFields;
 import com.energy.monitoring.utils.JwtUtil;
 
 /* Клаасс метадов обработки запросов аунтификации */
 public class AuthController {
     private static final Logger logger = LoggerFactory.getLogger(AuthController.class); // Объект Logger для текущего класса
     
-    // Обрабатывает запрос request и отправляет на него ответ
-    public static HttpResponse handleRequest(HttpRequest request) {
-        String endPoint   = request.getPath();
-        String method     = request.getMethod();
-        
-        try {
-            return switch (method) {
-                case Methods.POST -> 
-                    switch (endPoint) {
-                        case EndPoints.LOGING          -> handleLogin(request);
-                        case EndPoints.LOGOUT          -> handleLogout(request);
-                        case EndPoints.REGISTER        -> handleRegister(request);
-                        default                        -> HttpResponse.notFound(JsonResponses.formingUniversalResponse(false, "Auth endpoint not found"));
-                    };
-                case Methods.GET -> 
-                    switch (endPoint) {
-                        case EndPoints.VALIDATE        -> handleValidate(request);
-                        case EndPoints.PROFILE         -> handleProfile(request);
-                        default                        -> HttpResponse.notFound(JsonResponses.formingUniversalResponse(false, "Auth endpoint not found"));
-                    };
-                default                                -> HttpResponse.notFound(JsonResponses.formingUniversalResponse(false, "Auth method is incorest"));
-            };
-        } catch (Exception e) {
-            return HttpResponse.error(HttpStatusCodes.INTERNAL_SERVER_ERROR, JsonResponses.formingUniversalResponse(false, "Server error: ".concat(e.getMessage())));
-        }
+    // Регистрирует в маршрутизаторе router конечные точки аутентификации
+    public static void registerRoutes(Router router) {
+        router.add(Methods.POST, EndPoints.LOGING,   (request, params) -> handleLogin(request))
+              .add(Methods.POST, EndPoints.LOGOUT,   (request, params) -> handleLogout(request))
+              .add(Methods.POST, EndPoints.REGISTER, (request, params) -> handleRegister(request))
+              .add(Methods.GET,  EndPoints.VALIDATE, (request, params) -> handleValidate(request))
+              .add(Methods.GET,  EndPoints.PROFILE,  (request, params) -> handleProfile(request));
     }
 
     // Формируется ответ на http-запрос авторизации
     private static HttpResponse handleLogin(HttpRequest request) {
         try {
-            String body = request.getBody();
+            JsonFields fields = JsonFields.parse(request.getBodyBytes());
             
-            if (body.contains(JsonBlocks.USERNAME) && body.contains(JsonBlocks.PASSWORD)) {
-                String username = JsonResponses.extractFromJson(body, JsonBlocks.USERNAME);
-                String password = JsonResponses.extractFromJson(body, JsonBlocks.PASSWORD);
+            if (fields.has(JsonBlocks.USERNAME) && fields.has(JsonBlocks.PASSWORD)) {
+                String username = fields.getString(JsonBlocks.USERNAME);
+                String password = fields.getString(JsonBlocks.PASSWORD);
                 
                 if (username == null || username.isEmpty() || password == null || password.isEmpty()) {
                     return HttpResponse.badRequest(JsonResponses.formingUniversalResponse(false, "Username or password are required"));
@@ -73,7 +57,7 @@ public class AuthController {
                         user = userDAO.authenticate(username, password);
 
                         String token        = JwtUtil.generateToken(username, userId);
-                        String jsonResponse = JsonResponses.formingUserLoginSuccessResponse(token, userId, username, user.getIsActive());
+                        byte[] jsonResponse = JsonResponses.formingUserLoginSuccessResponse(token, userId, username, user.getIsActive());
 
                         return HttpResponse.ok(jsonResponse, HttpConstructions.ContentTypes.JSON);
                     } else {
@@ -85,6 +69,8 @@ public class AuthController {
             }
             
             return HttpResponse.unauthorized(JsonResponses.formingUniversalResponse(false, "Invalid credentials"));
+        } catch (JsonFields.ParseException e) {
+            return HttpResponse.badRequest(JsonResponses.formingUniversalResponse(false, "Invalid JSON: " + e.getMessage()));
         } catch (Exception e) {
             return HttpResponse.error(HttpStatusCodes.INTERNAL_SERVER_ERROR, JsonResponses.formingUniversalResponse(false, "Error processing login: ".concat(e.getMessage())));
         }
@@ -96,7 +82,7 @@ public class AuthController {
             Map<String, String> headers = request.getHeaders();
             String              token   = headers.get(HttpConstructions.JsonBlocks.AUTHORIZATION);
             
-            String jsonResponse;
+            byte[] jsonResponse;
             if (JwtUtil.validateToken(token)) {
                 jsonResponse = JsonResponses.formingUserValidateSuccessResponse(JwtUtil.getUsernameFromToken(token), JwtUtil.getUserIdFromToken(token));
             } else {
@@ -130,9 +116,9 @@ public class AuthController {
     // Формируется ответ на http-запрос регистрации
     private static HttpResponse handleRegister(HttpRequest request) {
         try {
-            String body     = request.getBody();
-            String username = JsonResponses.extractFromJson(body, JsonBlocks.USERNAME);
-            String password = JsonResponses.extractFromJson(body, JsonBlocks.PASSWORD);
+            JsonFields fields   = JsonFields.parse(request.getBodyBytes());
+            String     username = fields.getString(JsonBlocks.USERNAME);
+            String     password = fields.getString(JsonBlocks.PASSWORD);
 
             if (username == null || username.isEmpty() || password == null || password.isEmpty()) {
                 return HttpResponse.badRequest(JsonResponses.formingUniversalResponse(false, "Username or password are required"));
@@ -147,7 +133,7 @@ public class AuthController {
                 
                 User newUser = userDAO.createUser(username, password);
                 userDAO.deactivateUser(newUser.getId());
-                String jsonResponse = JsonResponses.formingUserRegisterSuccessResponse(username, newUser.getId());
+                byte[] jsonResponse = JsonResponses.formingUserRegisterSuccessResponse(username, newUser.getId());
                 
                 return HttpResponse.created(jsonResponse);
                 
@@ -155,6 +141,8 @@ public class AuthController {
                 logger.warn("SQL Exeption fail: {}", e.getMessage());
                 return HttpResponse.error(HttpStatusCodes.INTERNAL_SERVER_ERROR, JsonResponses.formingUniversalResponse(false, "Database error: " + e.getMessage()));
             }
+        } catch (JsonFields.ParseException e) {
+            return HttpResponse.badRequest(JsonResponses.formingUniversalResponse(false, "Invalid JSON: " + e.getMessage()));
         } catch (Exception e) {
             return HttpResponse.error(HttpStatusCodes.INTERNAL_SERVER_ERROR, JsonResponses.formingUniversalResponse(false, "Error processing registration: " + e.getMessage()));
         }
@@ -167,7 +155,7 @@ public class AuthController {
             String              token   = headers.get(HttpConstructions.JsonBlocks.AUTHORIZATION);
             
             if (JwtUtil.validateToken(token)) {
-                String jsonResponse = JsonResponses.formingUserProfileSuccessResponse(JwtUtil.getUsernameFromToken(token), JwtUtil.getUserIdFromToken(token));
+                byte[] jsonResponse = JsonResponses.formingUserProfileSuccessResponse(JwtUtil.getUsernameFromToken(token), JwtUtil.getUserIdFromToken(token));
                 
                 return HttpResponse.ok(jsonResponse, ContentTypes.JSON);
             } else {
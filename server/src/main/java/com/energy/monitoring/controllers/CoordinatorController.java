@@ -1,11 +1,18 @@
 package com.energy.monitoring.controllers;
 
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import com.energy.monitoring.components.CoordinatorCommands;
-import com.energy.monitoring.components.HttpConstructions;
 import com.energy.monitoring.components.HttpConstructions.ContentTypes;
 import com.energy.monitoring.components.HttpConstructions.DeviseStatuses;
 import com.energy.monitoring.components.HttpConstructions.EndPoints;
@@ -13,111 +20,83 @@ import com.energy.monitoring.components.HttpConstructions.JsonBlocks;
 import com.energy.monitoring.components.HttpConstructions.Methods;
 import com.energy.monitoring.components.HttpStatusCodes;
 import com.energy.monitoring.components.JsonResponses;
+import com.energy.monitoring.database.StatusWriteBehind;
 import com.energy.monitoring.database.dao.CoordinatorDAO;
 import com.energy.monitoring.database.dao.MeterDAO;
+import com.energy.monitoring.handlers.Router;
 import com.energy.monitoring.models.Coordinator;
+import com.energy.monitoring.models.CoordinatorDetails;
+import com.energy.monitoring.models.CoordinatorResponse;
 import com.energy.monitoring.models.HttpRequest;
 import com.energy.monitoring.models.HttpResponse;
 import com.energy.monitoring.models.Meter;
+import com.energy.monitoring.utils.JsonFields;
 import com.energy.monitoring.utils.JwtUtil;
 import com.energy.monitoring.utils.UartUtil;
 
 /* Клаасс метадов обработки запросов координаторам */
 public class CoordinatorController {
-    // private static final Logger logger      = LoggerFactory.getLogger(CoordinatorController.class);  // Объект Logger для текущего класса
+    private static final Logger logger = LoggerFactory.getLogger(CoordinatorController.class); // Объект Logger для текущего класса
 
-    // Обрабатывает запрос request и отправляет на него ответ
-    public static HttpResponse handleRequest(HttpRequest request) {
-        Map<String, String> headers = request.getHeaders();
-        String              token   = headers.get(HttpConstructions.JsonBlocks.AUTHORIZATION);
-        
-        if (JwtUtil.validateToken(token)) {
-            String endPoint   = request.getPath();
-            String method     = request.getMethod();
-            
-            try {
-                int userId        = JwtUtil.getUserIdFromToken(token);
-                int coordinatorId = getCoordinatorIdFromEndPoint(endPoint);
-                final String coordinatorEndPoint = EndPoints.COORDINATOR + coordinatorId;
-                final String connectEndPoint     = EndPoints.COORDINATOR + coordinatorId + EndPoints.CONNECT;
-                final String commandEndPoint     = EndPoints.COORDINATOR + coordinatorId + EndPoints.COMMAND;
+    /* Обработчик запроса авторизованного пользователя с id userId */
+    @FunctionalInterface
+    private interface AuthorizedHandler {
+        HttpResponse handle(HttpRequest request, int userId, int[] params) throws Exception;
+    }
 
+    // Регистрирует в маршрутизаторе router конечные точки координаторов
+    public static void registerRoutes(Router router) {
+        router.add(Methods.POST,   EndPoints.COORDINATORS, authorized((request, userId, params) -> handlerCreateCoordinator(request, userId)))
+              .add(Methods.GET,    EndPoints.COORDINATORS, authorized((request, userId, params) -> handlerGetUserCoordinators(userId)))
+              .add(Methods.GET,    EndPoints.COORDINATOR,  authorized((request, userId, params) -> handlerGetCoordinator(userId, params[0])))
+              .add(Methods.DELETE, EndPoints.COORDINATOR,  authorized((request, userId, params) -> handlereDeletionOfCoordinator(userId, params[0])))
+              .add(Methods.POST,   EndPoints.CONNECT,      authorized((request, userId, params) -> handlerConnectionToCoordinator(userId, params[0])))
+              .add(Methods.POST,   EndPoints.COMMAND,      authorized((request, userId, params) -> handlerCommandToCoordinator(request, params[0])));
+    }
+
+    // Возвращает обработчик, который передаёт запрос в handler только при действительном токене пользователя
+    private static Router.Handler authorized(AuthorizedHandler handler) {
+        return (request, params) -> {
+            String token = request.getHeaders().get(JsonBlocks.AUTHORIZATION);
+            if (!JwtUtil.validateToken(token)) {
+                return HttpResponse.error(HttpStatusCodes.INTERNAL_SERVER_ERROR, JsonResponses.formingUniversalResponse(false, "Invalid token"));
+            }
 
-                // logger.info(connectEndPoint + " " + endPoint + " " + coordinatorId);
-                return switch (method) {
-                    case Methods.POST -> {
-                        if (endPoint.equals(EndPoints.COORDINATORS)) {
-                            yield handlerCreateCoordinator(request, userId);
-                        } else 
-                        if (endPoint.equals(connectEndPoint)) {
-                            yield handlerConnectionToCoordinator(userId, coordinatorId);
-                        } else
-                        if (endPoint.equals(commandEndPoint)) {
-                            yield handlerCommandToCoordinator(request, coordinatorId);
-                        } else {
-                            yield HttpResponse.notFound(JsonResponses.formingUniversalResponse(false, "Coordinators endpoint not found"));
-                        }
-                    }
-                    case Methods.GET -> {
-                        if (endPoint.equals(EndPoints.COORDINATORS)) {
-                            yield handlerGetUserCoordinators(userId);
-                        } else 
-                        if (endPoint.equals(coordinatorEndPoint)) {
-                            yield handlerGetCoordinator(userId, coordinatorId);
-                        } else {
-                            yield HttpResponse.notFound(JsonResponses.formingUniversalResponse(false, "Coordinators endpoint not found"));
-                        }
-                    }
-                    case Methods.DELETE -> {
-                        if (endPoint.equals(coordinatorEndPoint)) {
-                            yield handlereDeletionOfCoordinator(userId, coordinatorId);
-                        } else {
-                            yield HttpResponse.notFound(JsonResponses.formingUniversalResponse(false, "Coordinators endpoint not found"));
-                        }
-                    }
-                    default -> HttpResponse.notFound(JsonResponses.formingUniversalResponse(false, "Coordinators method is incorest"));
-                };
+            try {
+                return handler.handle(request, JwtUtil.getUserIdFromToken(token), params);
             } catch (Exception e) {
                 return HttpResponse.error(HttpStatusCodes.INTERNAL_SERVER_ERROR, JsonResponses.formingUniversalResponse(false, "Server error: ".concat(e.getMessage())));
             }
-        } else {
-            return HttpResponse.error(HttpStatusCodes.INTERNAL_SERVER_ERROR, JsonResponses.formingUniversalResponse(false, "Invalid token"));
-        }
-    }
-
-    // Возвращает id координатора на основе конечной точки из запроса
-    private static int getCoordinatorIdFromEndPoint(String endPoint) {
-        String[] parts = endPoint.split("/");
-        
-        if ((parts.length == 4 && parts[2].equals("coordinators")) || (parts.length == 5 && (parts[4].equals("connect") || parts[4].equals("command")))) {
-            return Integer.parseInt(parts[3]);
-        } else {
-            return 0;
-        }
+        };
     }
     
     // Формирует ответ на http-запрос создания координатора пользователю с id userId
     private static HttpResponse handlerCreateCoordinator(HttpRequest request, int userId) {
         try {
             // logger.info("Handler create coordinator request: {}", request.getBody());
-            String body   = request.getBody();
-            String name   = JsonResponses.extractFromJson(body, JsonBlocks.NAME);
-            String mac    = JsonResponses.extractFromJson(body, JsonBlocks.MAC);
-            String ip     = JsonResponses.extractFromJson(body, JsonBlocks.IP);
-            String port_s = JsonResponses.extractFromJson(body, JsonBlocks.PORT);
-            Integer port  = port_s != null ? Integer.valueOf(port_s) : 0;
+            JsonFields fields = JsonFields.parse(request.getBodyBytes());
+            String     name   = fields.getString(JsonBlocks.NAME);
+            String     mac    = fields.getString(JsonBlocks.MAC);
+            String     ip     = fields.getString(JsonBlocks.IP);
+            int        port   = fields.getInt(JsonBlocks.PORT, 0);
 
-            if (name == null || mac == null) {
+            // Необязательные поля формы приходят пустыми строками, если их не заполнили
+            if (ip != null && ip.isEmpty()) {
+                ip = null;
+            }
+            if (name == null || name.isEmpty() || mac == null || mac.isEmpty()) {
                 return HttpResponse.badRequest(JsonResponses.formingUniversalResponse(false, "Missing required fields"));
             }
             
             CoordinatorDAO coordinatorDAO = new CoordinatorDAO();
             Coordinator coordinator       = coordinatorDAO.createCoordinator(userId, name, mac, ip, port);
             
-            String response = JsonResponses.formingCreateCoordinatorSuccessResponse(coordinator.getId(), coordinator.getName(), coordinator.getMac(), coordinator.getIp(), 
+            byte[] response = JsonResponses.formingCreateCoordinatorSuccessResponse(coordinator.getId(), coordinator.getName(), coordinator.getMac(), coordinator.getIp(), 
                                                                                     coordinator.getPort(), coordinator.getStatus());
             // logger.info("Handler create c oordinator response: {}", response);
             return HttpResponse.created(response);
+        } catch (JsonFields.ParseException e) {
+            return HttpResponse.badRequest(JsonResponses.formingUniversalResponse(false, "Invalid JSON: " + e.getMessage()));
         } catch (SQLException e) {
             return HttpResponse.error(HttpStatusCodes.INTERNAL_SERVER_ERROR, JsonResponses.formingUniversalResponse(false, "Database error: " + e.getMessage()));
         }
@@ -130,15 +109,8 @@ public class CoordinatorController {
             CoordinatorDAO    coordinatorDAO = new CoordinatorDAO();
             List<Coordinator> coordinators   = coordinatorDAO.getUserCoordinators(userId);
             
-            String response = JsonResponses.formingStartOfGetUserCoordinatorsResponse();
-            for (int i = 0; i < coordinators.size(); i++) {
-                Coordinator coordinator = coordinators.get(i);
-                response += JsonResponses.formingMiddleOfGetUserCoordinatorsResponse(coordinator.getId(), coordinator.getName(), coordinator.getMac(), coordinator.getIp(), 
-                                                                                     coordinator.getPort(), coordinator.getStatus(), coordinator.getCreatedAt(), coordinator.getLastSeen());
-            }
-            response = JsonResponses.formingEndOfGetUserCoordinatorsResponse(response);
+            byte[] response = JsonResponses.formingGetUserCoordinatorsResponse(coordinators);
 
-            // logger.info("Response: {}", response);
             return HttpResponse.ok(response, ContentTypes.JSON);       
         } catch (SQLException e) {
             return HttpResponse.error(HttpStatusCodes.INTERNAL_SERVER_ERROR, JsonResponses.formingUniversalResponse(false, "Database error: " + e.getMessage()));
@@ -149,30 +121,17 @@ public class CoordinatorController {
     private static HttpResponse handlerGetCoordinator(int userId, int coordinatorId) {
         try {
             // logger.info("handlerGetCoordinator");
-            CoordinatorDAO coordinatorDAO = new CoordinatorDAO();
-            Coordinator    coordinator    = coordinatorDAO.getCoordinator(coordinatorId);
+            CoordinatorDAO     coordinatorDAO = new CoordinatorDAO();
+            CoordinatorDetails details        = coordinatorDAO.openCoordinatorDetails(coordinatorId, userId);
             
-            if (!coordinatorDAO.coordinatorBelongsToUser(coordinatorId, userId)) {
-                return HttpResponse.unauthorized(JsonResponses.formingUniversalResponse(false, "It's not your network"));
-            } else
-            if (coordinator == null) {
+            if (details == null) {
                 return HttpResponse.notFound(JsonResponses.formingUniversalResponse(false, "Coordinator not found"));
+            } else
+            if (!details.isOwner()) {
+                details.close();
+                return HttpResponse.unauthorized(JsonResponses.formingUniversalResponse(false, "It's not your network"));
             } else {
-                MeterDAO    meterDAO = new MeterDAO();
-                List<Meter> meters   = meterDAO.getMetersByCoordinator(coordinatorId);
-                
-                String response = JsonResponses.formingStartOfGetCoordinatorResponse(coordinator.getId(), coordinator.getName(), coordinator.getMac(), coordinator.getIp(), 
-                                                                                     coordinator.getPort(), coordinator.getStatus(), coordinator.getCreatedAt(), coordinator.getLastSeen());
-                for (int i = 0; i < meters.size(); i++) {
-                    Meter meter = meters.get(i);
-
-                    response += JsonResponses.formingMiddleOfGetCoordinatorResponse(meter.getId(), meter.getName(), meter.getZbLongAddr(), meter.getZbShortAddr(), 
-                                                                                    meter.getStatus(), meter.getCreatedAt(), meter.getLastSeen());
-                }
-                response = JsonResponses.formingEndOfGetCoordinatorResponse(response);
-                // logger.info("Response: {}", response);
-                // System.out.println(response);
-                return HttpResponse.ok(response, ContentTypes.JSON);
+                return HttpResponse.ok(JsonResponses.streamingGetCoordinatorResponse(details.getCoordinator(), details.getMeters()), ContentTypes.JSON);
             }
         } catch (SQLException e) {
             return HttpResponse.error(HttpStatusCodes.INTERNAL_SERVER_ERROR, JsonResponses.formingUniversalResponse(false, "Database error: " + e.getMessage()));
@@ -183,30 +142,29 @@ public class CoordinatorController {
     private static HttpResponse handlerConnectionToCoordinator(int userId, int coordinatorId) {
         try {
             CoordinatorDAO coordinatorDAO = new CoordinatorDAO();
-            Coordinator    coordinator    = coordinatorDAO.getCoordinator(coordinatorId);
-            boolean        connected      = checkConnectionToCoordinatorOnUart(coordinator.getMac());
-            if (!coordinatorDAO.coordinatorBelongsToUser(coordinatorId, userId)) {
-                return HttpResponse.unauthorized(JsonResponses.formingUniversalResponse(false, "Access denied"));
-            } else
+            Coordinator    coordinator;
+            List<Meter>    meters;
+            // Соединение с базой освобождается до опроса uart, который может занять секунду
+            try (CoordinatorDetails details = coordinatorDAO.openCoordinatorDetails(coordinatorId, userId)) {
+                if (details == null) {
+                    return HttpResponse.notFound(JsonResponses.formingUniversalResponse(false, "Coordinator not found"));
+                } else
+                if (!details.isOwner()) {
+                    return HttpResponse.unauthorized(JsonResponses.formingUniversalResponse(false, "Access denied"));
+                }
+                coordinator = details.getCoordinator();
+                meters      = details.getMeters().toList();
+            }
+
+            boolean connected = checkConnectionToCoordinatorOnUart(coordinator.getMac());
             if (connected) {
-                coordinatorDAO.updateCoordinatorStatus(coordinatorId, DeviseStatuses.ONLINE);
+                StatusWriteBehind.updateCoordinatorStatus(coordinatorId, DeviseStatuses.ONLINE);
                 
-                MeterDAO meterDAO  = new MeterDAO();
-                List<Meter> meters = meterDAO.getMetersByCoordinator(coordinatorId);
-                
-                String response = JsonResponses.formingStartOfConnectionToCoordinatorResponse(coordinator.getId(), coordinator.getName(), coordinator.getMac(), coordinator.getIp(), 
-                                                                                              coordinator.getPort(), DeviseStatuses.ONLINE, coordinator.getCreatedAt(), coordinator.getLastSeen());
-                for (int i = 0; i < meters.size(); i++) {
-                    Meter meter = meters.get(i);
-
-                    response += JsonResponses.formingMiddleOfConnectionToCoordinatorResponse(meter.getId(), meter.getName(), meter.getZbLongAddr(), meter.getZbShortAddr(), 
-                                                                                             meter.getStatus(), meter.getCreatedAt(), meter.getLastSeen());
-                }
-                response = JsonResponses.formingEndOfGetCoordinatorResponse(response);
+                byte[] response = JsonResponses.formingConnectionToCoordinatorResponse(coordinator, DeviseStatuses.ONLINE, meters);
                 
                 return HttpResponse.ok(response, ContentTypes.JSON);
             } else {
-                coordinatorDAO.updateCoordinatorStatus(coordinatorId, DeviseStatuses.OFFLINE);
+                StatusWriteBehind.updateCoordinatorStatus(coordinatorId, DeviseStatuses.OFFLINE);
                 return HttpResponse.ok(JsonResponses.formingUniversalResponse(false, "Failed to connect to coordinator"), ContentTypes.JSON);
             }
             
@@ -245,73 +203,83 @@ public class CoordinatorController {
         }
     }
 
-    // Возвращает 16-битное число из строки shortAddr, в коророй записаны два байта в 16-ричном виде в обратном порятке байт
-    private static short convertShortZbAddrFromStringToShort(String shortAddr) {
-        if (shortAddr == null || shortAddr.length() != 4) {
-            return 0;
-        } else {
-            int value = Integer.parseInt(shortAddr, 16);
-            return (short) ((value << 8) | ((value >> 8) & 0xFF));
+    // Сверяет узлы из кадров ответа nodes на опрос сети с известными приборами учёта координатора с id coordinatorId:
+    // ответившие приборы становятся online, молчащие - offline, неизвестные узлы добавляются как новые приборы учёта.
+    // Каждый кадр - запись об одном узле: длинный адрес, короткий адрес в обратном порядке байт и служебные байты
+    private static void saveDiscoveredMeters(int coordinatorId, List<byte[]> nodes) throws SQLException {
+        MeterDAO    meterDAO = new MeterDAO();
+        List<Meter> meters   = meterDAO.getMetersByCoordinator(coordinatorId);
+
+        Map<String, Meter> metersByZbLongAddr = new HashMap<>(meters.size() * 2);
+        Set<Meter>         respondedMeters    = new HashSet<>();
+        for (Meter meter : meters) {
+            metersByZbLongAddr.put(meter.getZbLongAddr(), meter);
+        }
+
+        List<Meter> createdMeters = new ArrayList<>();
+        for (byte[] node : nodes) {
+            if (node.length != CoordinatorCommands.PayloadSizes.DISCOVER_NETWORK) {
+                logger.warn("Skipped network node record of {} bytes from coordinator {}", node.length, coordinatorId);
+                continue;
+            }
+            String respMeterZbLongAddr = UartUtil.convertBytesToString(Arrays.copyOf(node, 8));
+
+            Meter knownMeter = metersByZbLongAddr.get(respMeterZbLongAddr);
+            if (knownMeter != null) {
+                respondedMeters.add(knownMeter);
+                continue;
+            }
+
+            short  respMeterZbShortAddrInShort = (short) ((node[8] & 0xFF) | (node[9] << 8));
+            String respMeterName               = String.format("Meter_0x%04X", respMeterZbShortAddrInShort & 0xFFFF);
+
+            Meter createdMeter = new Meter(0, coordinatorId, respMeterZbLongAddr, respMeterZbShortAddrInShort, respMeterName, DeviseStatuses.ONLINE, null, null);
+            metersByZbLongAddr.put(respMeterZbLongAddr, createdMeter);
+            createdMeters.add(createdMeter);
         }
+
+        // В базу уходят только приборы, чей статус действительно изменился
+        List<Meter> changedMeters = new ArrayList<>();
+        for (Meter meter : meters) {
+            String status = respondedMeters.contains(meter) ? DeviseStatuses.ONLINE : DeviseStatuses.OFFLINE;
+            if (!status.equals(meter.getStatus())) {
+                meter.setStatus(status);
+                changedMeters.add(meter);
+            }
+        }
+
+        meterDAO.saveDiscoveryResults(createdMeters, changedMeters);
     }
 
     // Формирует ответ на http-запрос отправки команды координатору с id coordinatorId
     private static HttpResponse handlerCommandToCoordinator(HttpRequest request, int coordinatorId) {
         try {
-            String body           = request.getBody();
-            String commandCode    = JsonResponses.extractFromJson(body, JsonBlocks.COMMAND);
-            String commandParams  = JsonResponses.extractFromJson(body, JsonBlocks.PARAMETERS);
+            JsonFields fields        = JsonFields.parse(request.getBodyBytes());
+            String     commandCode   = fields.getString(JsonBlocks.COMMAND);
+            String     commandParams = fields.getString(JsonBlocks.PARAMETERS);
 
             CoordinatorDAO coordinatorDAO = new CoordinatorDAO();
             Coordinator    coordinator    = coordinatorDAO.getCoordinator(coordinatorId);
             String         macAddress     = coordinator.getMac();
 
-            String response = UartUtil.sendCommandToCoordinator(macAddress, commandCode, commandParams);
-            String respCommandCode   = response.substring(0, 2);
-            String respCommandParams = response.substring(2, response.length());
-
-            if (UartUtil.convertStringToBytes(respCommandCode)[0] == CoordinatorCommands.Codes.DISCOVER_NETWORK) {
-                MeterDAO    meterDAO = new MeterDAO();
-                List<Meter> meters   = meterDAO.getMetersByCoordinator(coordinatorId);
-                int numberOfCoordMeters = meters.size();
-
-                int numberOfResposeMeters = respCommandParams.length() / (2 * CoordinatorCommands.PayloadSizes.DISCOVER_NETWORK);
-                // System.out.println(numberOfResposeMeters);
-                
-                for (Meter meter : meters) {
-                    meter.setStatus(DeviseStatuses.OFFLINE);
-                }
+            CoordinatorResponse response = UartUtil.sendCommandToCoordinator(macAddress, commandCode, commandParams);
+            if (response == null) {
+                return HttpResponse.ok(JsonResponses.formingUniversalResponse(false, "Coordinator did not answer"), ContentTypes.JSON);
+            }
+            String respBytes         = UartUtil.convertBytesToString(response.toBytes());
+            String respCommandCode   = respBytes.substring(0, 2);
+            String respCommandParams = respBytes.substring(2, respBytes.length());
 
-                for (int r = 0; r < numberOfResposeMeters; r++) {
-                    boolean isKnownMeter = false;
-                    String knownMeterZbLongAddr;
-                    String respMeterZbLongAddr = respCommandParams.substring(2 * (CoordinatorCommands.PayloadSizes.DISCOVER_NETWORK * r), 
-                                                                             2 * (8 + CoordinatorCommands.PayloadSizes.DISCOVER_NETWORK * r));
-                    for (int k = 0; k < numberOfCoordMeters; k++) {
-                        knownMeterZbLongAddr = meters.get(k).getZbLongAddr();
-                        if (knownMeterZbLongAddr.equals(respMeterZbLongAddr)) {
-                            meters.get(k).setStatus(DeviseStatuses.ONLINE);
-                            isKnownMeter = true;
-                            break;
-                        }
-                    }
-                    
-                    if (!isKnownMeter) {
-                        String respMeterZbShortAddr = respCommandParams.substring(2 * (8  + CoordinatorCommands.PayloadSizes.DISCOVER_NETWORK * r), 
-                                                                                  2 * (10 + CoordinatorCommands.PayloadSizes.DISCOVER_NETWORK * r));
-                        short  respMeterZbShortAddrInShort = convertShortZbAddrFromStringToShort(respMeterZbShortAddr);
-                        String respMeterName = "Meter_0x" + respMeterZbShortAddr.substring(2, 4) + respMeterZbShortAddr.substring(0, 2);
-                        // System.out.println(coordinatorId + " " + respMeterZbLongAddr + " " + respMeterZbShortAddrInShort + " " + respMeterName);
-                        meterDAO.createMeter(coordinatorId, respMeterZbLongAddr, respMeterZbShortAddrInShort, respMeterName);
-                        
-                    }
-                }
+            if (response.getCommandCode() == CoordinatorCommands.Codes.DISCOVER_NETWORK) {
+                saveDiscoveredMeters(coordinatorId, response.getFrames());
             } //else
             // if (UartUtil.convertStringToBytes(respCommandCode)[0] == CoordinatorCommands.Codes.GET_ROUTE_TABLE) {
             //     respCommandParams = "0802000100000000000100010000000000030003000000000004000400000000000500040000000000060005000000000007000400000000000800040000000000";
             // }
 
             return HttpResponse.ok(JsonResponses.formingCoordinatorCommandSuccessResponse(coordinatorId, respCommandCode, respCommandParams), ContentTypes.JSON);
+        } catch (JsonFields.ParseException e) {
+            return HttpResponse.badRequest(JsonResponses.formingUniversalResponse(false, "Invalid JSON: " + e.getMessage()));
         } catch (SQLException e) {
             return HttpResponse.error(HttpStatusCodes.INTERNAL_SERVER_ERROR, JsonResponses.formingUniversalResponse(false, "Database error: " + e.getMessage()));
         }
@@ -1,15 +1,15 @@
 package com.energy.monitoring.controllers;
 
 import java.sql.SQLException;
-import java.util.Map;
 
-import com.energy.monitoring.components.HttpConstructions;
 import com.energy.monitoring.components.HttpConstructions.ContentTypes;
 import com.energy.monitoring.components.HttpConstructions.EndPoints;
+import com.energy.monitoring.components.HttpConstructions.JsonBlocks;
 import com.energy.monitoring.components.HttpConstructions.Methods;
 import com.energy.monitoring.components.HttpStatusCodes;
 import com.energy.monitoring.components.JsonResponses;
 import com.energy.monitoring.database.dao.MeterDAO;
+import com.energy.monitoring.handlers.Router;
 import com.energy.monitoring.models.HttpRequest;
 import com.energy.monitoring.models.HttpResponse;
 import com.energy.monitoring.models.Meter;
@@ -17,45 +17,15 @@ import com.energy.monitoring.utils.JwtUtil;
 
 /* Клаасс метадов обработки запросов приборам учёта */
 public class MeterController {
-    // Обрабатывает запрос request и отправляет на него ответ
-    public static HttpResponse handleRequest(HttpRequest request) {
-        Map<String, String> headers = request.getHeaders();
-        String              token   = headers.get(HttpConstructions.JsonBlocks.AUTHORIZATION);
-        
-        if (JwtUtil.validateToken(token)) {
-            String endPoint   = request.getPath();
-            String method     = request.getMethod();
-            
-            try {
-                int meterId = getMeterIdFromEndPoint(endPoint);
-                final String meterEndPoint = EndPoints.METER + meterId;
-                return switch (method) {
-                    case Methods.GET -> {
-                        if (endPoint.equals(meterEndPoint)) {
-                            yield handlerGetMeterData(meterId);
-                        } else {
-                            yield HttpResponse.notFound(JsonResponses.formingUniversalResponse(false, "Meter endpoint not found"));
-                        }
-                    }
-                    default -> HttpResponse.notFound(JsonResponses.formingUniversalResponse(false, "Meter method is incorest"));
-                };
-            } catch (Exception e) {
-                return HttpResponse.error(HttpStatusCodes.INTERNAL_SERVER_ERROR, JsonResponses.formingUniversalResponse(false, "Server error: ".concat(e.getMessage())));
+    // Регистрирует в маршрутизаторе router конечные точки приборов учёта
+    public static void registerRoutes(Router router) {
+        router.add(Methods.GET, EndPoints.METER, (request, params) -> {
+            String token = request.getHeaders().get(JsonBlocks.AUTHORIZATION);
+            if (!JwtUtil.validateToken(token)) {
+                return HttpResponse.error(HttpStatusCodes.INTERNAL_SERVER_ERROR, JsonResponses.formingUniversalResponse(false, "Invalid token"));
             }
-        } else {
-            return HttpResponse.error(HttpStatusCodes.INTERNAL_SERVER_ERROR, JsonResponses.formingUniversalResponse(false, "Invalid token"));
-        }
-    }
-
-    // Возвращает id счётчика на основе конечной точки из запроса
-    private static int getMeterIdFromEndPoint(String endPoint) {
-        String[] parts = endPoint.split("/");
-        
-        if ((parts.length == 4 && parts[2].equals("meters"))) {
-            return Integer.parseInt(parts[3]);
-        } else {
-            return 0;
-        }
+            return handlerGetMeterData(params[0]);
+        });
     }
 
     // Формирует ответ на http-запрос получения информации о показаниях счётчика с id meterId
@@ -67,7 +37,7 @@ public class MeterController {
             if (meter == null) {
                 return HttpResponse.notFound(JsonResponses.formingUniversalResponse(false, "Coordinator not found"));
             } else {
-                String response = JsonResponses.formingGetMeterDataSuccessResponse(meter.getVoltage(), meter.getCurrent(), meter.getActivePower(), meter.getReactivePower(), 
+                byte[] response = JsonResponses.formingGetMeterDataSuccessResponse(meter.getVoltage(), meter.getCurrent(), meter.getActivePower(), meter.getReactivePower(), 
                                                                                    meter.getApparentPower(), meter.getPowerFactor(), meter.getFrequency(), meter.getNeutralCurrent());
                 return HttpResponse.ok(response, ContentTypes.JSON);
             }
@@ -0,0 +1,604 @@
+package com.energy.monitoring.database;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.sql.Statement;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.energy.monitoring.metrics.LatencyHistogram;
+import com.energy.monitoring.metrics.MetricsRegistry;
+
+/* Ограниченный пул соединений с базой данных. Выдаёт обёртки над физическими соединениями, метод close которых возвращает соединение в пул.
+   Проверяет соединения перед выдачей, закрывает простаивающие и слишком старые, сообщает о соединениях, которые долго не возвращают.
+   Каждое соединение хранит ограниченный кэш подготовленных запросов: повторная подготовка того же sql возвращает уже подготовленный запрос */
+public class ConnectionPool {
+    private static final Logger logger = LoggerFactory.getLogger(ConnectionPool.class); // Объект Logger для текущего класса
+
+    private static final long   VALIDATION_BYPASS      = 500;      // Соединение, вернувшееся в пул менее стольких мс назад, выдаётся без проверки
+    private static final long   HOUSEKEEPING_PERIOD    = 5000;     // Период обхода пула в мс
+    private static final String CONNECTION_ERROR_CLASS = "08";     // Класс SQLSTATE ошибок соединения, после которых соединение не возвращается в пул
+    private static final String GENERATED_KEYS_SUFFIX  = "\0keys"; // Добавляется к ключу кэша запросов, возвращающих сгенерированные ключи
+
+    // Настройки запроса, которые сбрасываются при возвращении запроса в кэш
+    private static final Set<String> RESETTABLE_SETTINGS = Set.of("setFetchSize", "setMaxRows", "setQueryTimeout", "addBatch");
+    // Настройки запроса, после изменения которых запрос не возвращается в кэш
+    private static final Set<String> UNCACHEABLE_SETTINGS = Set.of("setCursorName", "setEscapeProcessing", "setFetchDirection", "setLargeMaxRows",
+                                                                   "setMaxFieldSize", "setPoolable", "closeOnCompletion");
+
+    private final String     url;                // Ссылка для доступа к базе данных
+    private final Properties properties;         // Пользователь и пароль
+    private final int        maxSize;            // Максимальное количество открытых соединений
+    private final int        minIdle;            // Сколько свободных соединений пул держит открытыми
+    private final long       acquireTimeout;     // Сколько мс ждать свободного соединения
+    private final long       idleTimeout;        // Через сколько мс простоя лишнее свободное соединение закрывается
+    private final long       maxLifetime;        // Через сколько мс после открытия соединение закрывается, 0 - без ограничения
+    private final int        validationTimeout;  // Сколько секунд ждать ответа базы при проверке соединения
+    private final long       leakThreshold;      // Через сколько мс невозвращённое соединение считается утечкой, 0 - не искать утечки
+    private final int        statementCacheSize; // Сколько подготовленных запросов хранит каждое соединение, 0 - не кэшировать
+
+    private final ReentrantLock                lock      = new ReentrantLock();
+    private final Condition                    available = lock.newCondition();           // Сигнал о возвращённом соединении или освободившемся месте
+    private final ArrayDeque<PooledConnection> idle      = new ArrayDeque<>();            // Свободные соединения, последнее возвращённое - первое
+    private final Set<PooledConnection>        leased    = ConcurrentHashMap.newKeySet(); // Выданные соединения
+    private       int                          total;                                     // Количество открытых и открываемых соединений
+    private       int                          waiting;                                   // Количество потоков, ждущих соединения
+    private       boolean                      closed;                                    // Закрыт ли пул
+
+    private final ScheduledExecutorService housekeeper; // Поток, закрывающий лишние соединения и ищущий утечки
+
+    private final LongAdder        created     = new LongAdder();        // Количество открытых физических соединений
+    private final LongAdder        destroyed   = new LongAdder();        // Количество закрытых физических соединений
+    private final LongAdder        timeouts    = new LongAdder();        // Количество запросов, не дождавшихся соединения
+    private final LongAdder        leaks       = new LongAdder();        // Количество обнаруженных утечек
+    private final LongAdder        cacheHits   = new LongAdder();        // Сколько раз подготовленный запрос взят из кэша
+    private final LongAdder        cacheMisses = new LongAdder();        // Сколько раз запрос пришлось подготовить заново
+    private final LatencyHistogram acquireTime = new LatencyHistogram(); // Время получения соединения из пула
+
+    /* Физическое соединение пула и сведения о его использовании */
+    private static class PooledConnection {
+        private final    Connection connection;   // Физическое соединение
+        private final    long       createdAt;    // Время открытия в мс
+        private volatile long       returnedAt;   // Время последнего возвращения в пул в мс
+        private volatile long       leasedAt;     // Время последней выдачи в мс
+        private volatile Exception  leaseTrace;   // Место последней выдачи для сообщения об утечке
+        private volatile boolean    leakReported; // Сообщалось ли об утечке при последней выдаче
+
+        private final Map<String, CachedStatement> statements; // Подготовленные запросы по sql, давно не использованный - первый
+
+        private PooledConnection(Connection connection, int statementCacheSize) {
+            this.connection = connection;
+            this.createdAt  = System.currentTimeMillis();
+            this.returnedAt = createdAt;
+            this.statements = new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, CachedStatement> eldest) {
+                    if (size() <= statementCacheSize) {
+                        return false;
+                    }
+                    eldest.getValue().evict();
+                    return true;
+                }
+            };
+        }
+    }
+
+    /* Подготовленный запрос в кэше соединения */
+    private static class CachedStatement {
+        private final PreparedStatement statement; // Подготовленный запрос
+        private       boolean           inUse;     // Выдан ли запрос и ещё не закрыт
+        private       boolean           dirty;     // Менялись ли настройки, которые нужно сбросить при возвращении в кэш
+        private       boolean           evicted;   // Вытеснен ли запрос из кэша и должен ли закрыться при возвращении
+
+        private CachedStatement(PreparedStatement statement) {
+            this.statement = statement;
+        }
+
+        // Помечает запрос вытесненным, не используемый закрывает сразу
+        private void evict() {
+            evicted = true;
+            if (!inUse) {
+                closeQuietly(statement);
+            }
+        }
+
+        // Возвращает запрос в кэш, сбрасывая параметры и изменённые настройки, вытесненный или не сбрасываемый запрос закрывает
+        private void recycle() {
+            inUse = false;
+            if (evicted) {
+                closeQuietly(statement);
+                return;
+            }
+            try {
+                statement.clearParameters();
+                if (dirty) {
+                    statement.clearBatch();
+                    statement.setFetchSize(0);
+                    statement.setMaxRows(0);
+                    statement.setQueryTimeout(0);
+                    dirty = false;
+                }
+            } catch (SQLException e) {
+                evicted = true;
+                closeQuietly(statement);
+            }
+        }
+    }
+
+    /* Обёртка, выдаваемая пользователю пула: закрытие возвращает соединение в пул, после закрытия обёртка недействительна */
+    private class Lease implements InvocationHandler {
+        private final PooledConnection     pooled;     // Выданное соединение
+        private final List<StatementLease> statements; // Выданные и ещё не закрытые запросы из кэша
+        private       Connection           proxy;      // Обёртка соединения, которую видит пользователь
+        private       boolean              closed;     // Возвращено ли соединение в пул
+        private       boolean              broken;     // Была ли ошибка соединения
+
+        private Lease(PooledConnection pooled) {
+            this.pooled     = pooled;
+            this.statements = new ArrayList<>(2);
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close" -> {
+                    if (!closed) {
+                        for (int i = statements.size() - 1; i >= 0; i--) {
+                            statements.get(i).close();
+                        }
+                        closed = true;
+                        release(pooled, broken);
+                    }
+                    return null;
+                }
+                case "isClosed" -> {
+                    return closed || pooled.connection.isClosed();
+                }
+                case "prepareStatement" -> {
+                    if (!closed && statementCacheSize > 0 && (args.length == 1 || (args.length == 2 && args[1] instanceof Integer))) {
+                        return prepareCached((String) args[0], args.length == 1 ? Statement.NO_GENERATED_KEYS : (Integer) args[1]);
+                    }
+                }
+                case "equals" -> {
+                    return proxy == args[0];
+                }
+                case "hashCode" -> {
+                    return System.identityHashCode(proxy);
+                }
+                case "toString" -> {
+                    return "Pooled " + pooled.connection;
+                }
+                default -> {
+                }
+            }
+
+            if (closed) {
+                throw new SQLException("Connection is closed", "08003");
+            }
+            return invokeTarget(pooled.connection, method, args);
+        }
+
+        // Вызывает метод method объекта target, запоминая ошибки соединения
+        private Object invokeTarget(Object target, Method method, Object[] args) throws Throwable {
+            try {
+                return method.invoke(target, args);
+            } catch (InvocationTargetException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof SQLException sqlException && sqlException.getSQLState() != null && sqlException.getSQLState().startsWith(CONNECTION_ERROR_CLASS)) {
+                    broken = true;
+                }
+                throw cause;
+            }
+        }
+
+        // Возвращает подготовленный запрос sql из кэша соединения, если его там нет - подготавливает и кэширует,
+        // если он уже выдан этому же пользователю - подготавливает отдельный запрос вне кэша
+        private PreparedStatement prepareCached(String sql, int generatedKeys) throws SQLException {
+            String          key    = generatedKeys == Statement.RETURN_GENERATED_KEYS ? sql + GENERATED_KEYS_SUFFIX : sql;
+            CachedStatement cached = pooled.statements.get(key);
+            if (cached != null && cached.inUse) {
+                cacheMisses.increment();
+                return pooled.connection.prepareStatement(sql, generatedKeys);
+            }
+
+            if (cached == null) {
+                cacheMisses.increment();
+                try {
+                    cached = new CachedStatement(pooled.connection.prepareStatement(sql, generatedKeys));
+                } catch (SQLException e) {
+                    if (e.getSQLState() != null && e.getSQLState().startsWith(CONNECTION_ERROR_CLASS)) {
+                        broken = true;
+                    }
+                    throw e;
+                }
+                pooled.statements.put(key, cached);
+            } else {
+                cacheHits.increment();
+            }
+
+            cached.inUse = true;
+            StatementLease lease = new StatementLease(this, cached);
+            statements.add(lease);
+            return (PreparedStatement) Proxy.newProxyInstance(PreparedStatement.class.getClassLoader(), new Class<?>[] { PreparedStatement.class }, lease);
+        }
+    }
+
+    /* Обёртка подготовленного запроса из кэша: закрытие возвращает запрос в кэш соединения */
+    private static class StatementLease implements InvocationHandler {
+        private final Lease           owner;  // Выдача соединения, которому принадлежит запрос
+        private final CachedStatement cached; // Запрос из кэша
+        private       boolean         closed; // Возвращён ли запрос в кэш
+
+        private StatementLease(Lease owner, CachedStatement cached) {
+            this.owner  = owner;
+            this.cached = cached;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            switch (name) {
+                case "close" -> {
+                    close();
+                    return null;
+                }
+                case "isClosed" -> {
+                    return closed || cached.statement.isClosed();
+                }
+                case "getConnection" -> {
+                    return owner.proxy;
+                }
+                case "equals" -> {
+                    return proxy == args[0];
+                }
+                case "hashCode" -> {
+                    return System.identityHashCode(proxy);
+                }
+                case "toString" -> {
+                    return "Cached " + cached.statement;
+                }
+                default -> {
+                }
+            }
+
+            if (closed) {
+                throw new SQLException("Statement is closed");
+            }
+            if (RESETTABLE_SETTINGS.contains(name)) {
+                cached.dirty = true;
+            } else
+            if (UNCACHEABLE_SETTINGS.contains(name)) {
+                cached.evicted = true;
+            }
+            return owner.invokeTarget(cached.statement, method, args);
+        }
+
+        private void close() {
+            if (!closed) {
+                closed = true;
+                owner.statements.remove(this);
+                cached.recycle();
+            }
+        }
+    }
+
+    public ConnectionPool(String url, Properties properties, int maxSize, int minIdle, long acquireTimeout, long idleTimeout,
+                          long maxLifetime, long validationTimeout, long leakThreshold, int statementCacheSize) {
+        this.url                = url;
+        this.properties         = properties;
+        this.maxSize            = Math.max(1, maxSize);
+        this.minIdle            = Math.max(0, Math.min(minIdle, this.maxSize));
+        this.acquireTimeout     = Math.max(0, acquireTimeout);
+        this.idleTimeout        = idleTimeout;
+        this.maxLifetime        = maxLifetime;
+        this.validationTimeout  = (int) Math.max(1, (validationTimeout + 999) / 1000);
+        this.leakThreshold      = leakThreshold;
+        this.statementCacheSize = Math.max(0, statementCacheSize);
+
+        this.housekeeper = Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform().name("db-pool-housekeeper").daemon().factory());
+        this.housekeeper.scheduleWithFixedDelay(this::housekeep, 0, HOUSEKEEPING_PERIOD, TimeUnit.MILLISECONDS);
+        registerMetrics();
+    }
+
+    // Возвращает свободное соединение пула, если свободных нет и пул заполнен - ждёт его не дольше acquireTimeout
+    public Connection getConnection() throws SQLException {
+        long start    = System.nanoTime();
+        long deadline = start + TimeUnit.MILLISECONDS.toNanos(acquireTimeout);
+        while (true) {
+            PooledConnection pooled = take(deadline);
+            if (pooled == null) {
+                pooled = open();
+            } else
+            if (!isUsable(pooled)) {
+                destroy(pooled);
+                continue;
+            }
+
+            pooled.leasedAt     = System.currentTimeMillis();
+            pooled.leaseTrace   = leakThreshold > 0 ? new Exception("Connection acquired here") : null;
+            pooled.leakReported = false;
+            leased.add(pooled);
+            acquireTime.record(System.nanoTime() - start);
+            Lease lease = new Lease(pooled);
+            lease.proxy = (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[] { Connection.class }, lease);
+            return lease.proxy;
+        }
+    }
+
+    // Закрывает свободные соединения и останавливает обход пула, выданные соединения закрываются при возвращении
+    public void close() {
+        List<PooledConnection> evicted;
+        lock.lock();
+        try {
+            closed  = true;
+            evicted = new ArrayList<>(idle);
+            idle.clear();
+            available.signalAll();
+        } finally {
+            lock.unlock();
+        }
+
+        housekeeper.shutdownNow();
+        for (PooledConnection pooled : evicted) {
+            destroy(pooled);
+        }
+        logger.info("Connection pool closed, {} connections still in use", leased.size());
+    }
+
+    // Возвращает свободное соединение, null - если можно открыть новое (место под него уже занято), или ждёт до deadline
+    private PooledConnection take(long deadline) throws SQLException {
+        lock.lock();
+        try {
+            while (true) {
+                if (closed) {
+                    throw new SQLException("Connection pool is closed");
+                }
+
+                PooledConnection pooled = idle.pollFirst();
+                if (pooled != null) {
+                    return pooled;
+                }
+                if (total < maxSize) {
+                    total++;
+                    return null;
+                }
+
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    timeouts.increment();
+                    throw new SQLTimeoutException("Timed out after " + acquireTimeout + " ms waiting for a database connection, all " + maxSize + " are in use");
+                }
+
+                waiting++;
+                try {
+                    available.awaitNanos(remaining);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new SQLException("Interrupted while waiting for a database connection", e);
+                } finally {
+                    waiting--;
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Открывает физическое соединение на уже занятом в пуле месте, при ошибке освобождает место
+    private PooledConnection open() throws SQLException {
+        try {
+            PooledConnection pooled = new PooledConnection(DriverManager.getConnection(url, properties), statementCacheSize);
+            created.increment();
+            return pooled;
+        } catch (SQLException | RuntimeException e) {
+            freeSlot();
+            throw e;
+        }
+    }
+
+    // Возвращает true, если соединение pooled не устарело и, если давно не использовалось, отвечает на проверку
+    private boolean isUsable(PooledConnection pooled) {
+        long now = System.currentTimeMillis();
+        if (isExpired(pooled, now)) {
+            return false;
+        }
+        if (now - pooled.returnedAt < VALIDATION_BYPASS) {
+            return true;
+        }
+
+        try {
+            return pooled.connection.isValid(validationTimeout);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    // Возвращает соединение pooled в пул, восстанавливая автоматическое подтверждение транзакций, сломанное или устаревшее - закрывает
+    private void release(PooledConnection pooled, boolean broken) {
+        leased.remove(pooled);
+        if (!broken && !isExpired(pooled, System.currentTimeMillis())) {
+            try {
+                if (!pooled.connection.getAutoCommit()) {
+                    pooled.connection.rollback();
+                    pooled.connection.setAutoCommit(true);
+                }
+                pooled.connection.clearWarnings();
+            } catch (SQLException e) {
+                logger.warn("Error resetting pooled connection: {}", e.getMessage());
+                broken = true;
+            }
+        }
+
+        if (!broken && !isExpired(pooled, System.currentTimeMillis())) {
+            lock.lock();
+            try {
+                if (!closed) {
+                    pooled.returnedAt = System.currentTimeMillis();
+                    idle.offerFirst(pooled);
+                    available.signal();
+                    return;
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+        destroy(pooled);
+    }
+
+    // Закрывает физическое соединение pooled и освобождает его место в пуле
+    private void destroy(PooledConnection pooled) {
+        try {
+            pooled.connection.close();
+        } catch (SQLException e) {
+            logger.warn("Error closing pooled connection: {}", e.getMessage());
+        }
+        destroyed.increment();
+        freeSlot();
+    }
+
+    private void freeSlot() {
+        lock.lock();
+        try {
+            total--;
+            available.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private boolean isExpired(PooledConnection pooled, long now) {
+        return maxLifetime > 0 && now - pooled.createdAt >= maxLifetime;
+    }
+
+    // Закрывает устаревшие и лишние простаивающие соединения, сообщает об утечках и дополняет пул до minIdle свободных соединений
+    private void housekeep() {
+        try {
+            long                   now     = System.currentTimeMillis();
+            List<PooledConnection> evicted = new ArrayList<>();
+            lock.lock();
+            try {
+                Iterator<PooledConnection> iterator = idle.descendingIterator();
+                while (iterator.hasNext()) {
+                    PooledConnection pooled = iterator.next();
+                    boolean          stale  = idleTimeout > 0 && now - pooled.returnedAt >= idleTimeout && idle.size() > minIdle;
+                    if (stale || isExpired(pooled, now)) {
+                        iterator.remove();
+                        evicted.add(pooled);
+                    }
+                }
+            } finally {
+                lock.unlock();
+            }
+            for (PooledConnection pooled : evicted) {
+                destroy(pooled);
+            }
+
+            detectLeaks(now);
+            fill();
+        } catch (RuntimeException e) {
+            logger.error("Connection pool housekeeping failed: {}", e.getMessage());
+        }
+    }
+
+    // Сообщает о соединениях, выданных дольше leakThreshold назад, по одному разу на выдачу
+    private void detectLeaks(long now) {
+        if (leakThreshold <= 0) {
+            return;
+        }
+        for (PooledConnection pooled : leased) {
+            if (!pooled.leakReported && now - pooled.leasedAt >= leakThreshold) {
+                pooled.leakReported = true;
+                leaks.increment();
+                logger.warn("Connection held for {} ms without being returned to the pool, possible leak", now - pooled.leasedAt, pooled.leaseTrace);
+            }
+        }
+    }
+
+    // Открывает соединения, пока свободных меньше minIdle
+    private void fill() {
+        while (true) {
+            lock.lock();
+            try {
+                if (closed || total >= maxSize || idle.size() >= minIdle) {
+                    return;
+                }
+                total++;
+            } finally {
+                lock.unlock();
+            }
+
+            PooledConnection pooled;
+            try {
+                pooled = open();
+            } catch (SQLException e) {
+                logger.warn("Failed to open idle database connection: {}", e.getMessage());
+                return;
+            }
+            release(pooled, false);
+        }
+    }
+
+    private int getIdleCount() {
+        lock.lock();
+        try {
+            return idle.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private int getWaitingCount() {
+        lock.lock();
+        try {
+            return waiting;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Регистрирует показатели пула в реестре метрик
+    private void registerMetrics() {
+        MetricsRegistry.registerGauge("db_pool_active_connections", "Connections handed out by the pool", leased::size);
+        MetricsRegistry.registerGauge("db_pool_idle_connections", "Open connections waiting in the pool", this::getIdleCount);
+        MetricsRegistry.registerGauge("db_pool_max_connections", "Maximum number of open connections", () -> maxSize);
+        MetricsRegistry.registerGauge("db_pool_pending_requests", "Threads waiting for a free connection", this::getWaitingCount);
+        MetricsRegistry.registerCounter("db_pool_connections_created_total", "Physical connections opened", created::sum);
+        MetricsRegistry.registerCounter("db_pool_connections_closed_total", "Physical connections closed", destroyed::sum);
+        MetricsRegistry.registerCounter("db_pool_acquire_timeouts_total", "Requests that timed out waiting for a connection", timeouts::sum);
+        MetricsRegistry.registerCounter("db_pool_leaks_detected_total", "Connections held longer than the leak detection threshold", leaks::sum);
+        MetricsRegistry.registerCounter("db_statement_cache_hits_total", "Prepared statements reused from a connection cache", cacheHits::sum);
+        MetricsRegistry.registerCounter("db_statement_cache_misses_total", "Prepared statements prepared on the connection", cacheMisses::sum);
+        MetricsRegistry.registerHistogram("db_pool_acquire_duration_seconds", "Time spent getting a connection from the pool", acquireTime);
+    }
+
+    private static void closeQuietly(Statement statement) {
+        try {
+            statement.close();
+        } catch (SQLException e) {
+            logger.warn("Error closing cached statement: {}", e.getMessage());
+        }
+    }
+}
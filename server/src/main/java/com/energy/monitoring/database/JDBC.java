@@ -1,7 +1,6 @@
 package com.energy.monitoring.database;
 
 import java.sql.Connection;
-import java.sql.DriverManager;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
@@ -10,13 +9,14 @@ import java.util.Properties;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.energy.monitoring.config.Config;
+import com.energy.monitoring.config.ConfigKeys;
+
 /* API для общения с базой данных */
 public class JDBC {
     private static final Logger logger = LoggerFactory.getLogger(JDBC.class); // Объект Logger для текущего класса
 
-    private static String url;      // Ссылка для доступа к базе данных
-    private static String user;     // Пользоветель базы данных
-    private static String password; // Пароль пользователя
+    private static ConnectionPool pool; // Пул соединений с базой данных
     
     static {
         try {
@@ -32,19 +32,47 @@ public class JDBC {
         }
     }
     
+    // Создаёт пул соединений с базой данных по ссылке url от имени пользователя user с паролем password, настройки пула берутся из конфигурации
     public static void configure(String url, String user, String password) {
-        JDBC.url      = url;
-        JDBC.user     = user;
-        JDBC.password = password;
-    }
-    
-    // Возвращает объект Connection текущего соединения с базой данных
-    public static Connection getConnection() throws SQLException {
+        int statementCacheSize = Config.getInt(ConfigKeys.DataBase.STATEMENT_CACHE_SIZE);
+
         Properties props = new Properties();
         props.setProperty("user",     user);
         props.setProperty("password", password);
-        
-        return DriverManager.getConnection(url, props);
+        // Запросы из кэша пула выполняются многократно, поэтому драйвер готовит их на сервере уже с prepareThreshold-го выполнения,
+        // а его собственный кэш серверных запросов держит не меньше запросов, чем кэш пула
+        props.setProperty("prepareThreshold",              Config.getString(ConfigKeys.DataBase.PREPARE_THRESHOLD));
+        props.setProperty("preparedStatementCacheQueries", String.valueOf(Math.max(256, statementCacheSize)));
+        // Пакеты однострочных вставок драйвер отправляет многострочными вставками
+        props.setProperty("reWriteBatchedInserts",         "true");
+
+        shutdown();
+        pool = new ConnectionPool(url, props,
+                                  Config.getInt (ConfigKeys.DataBase.POOL_MAX_SIZE),
+                                  Config.getInt (ConfigKeys.DataBase.POOL_MIN_IDLE),
+                                  Config.getLong(ConfigKeys.DataBase.POOL_ACQUIRE_TIMEOUT),
+                                  Config.getLong(ConfigKeys.DataBase.POOL_IDLE_TIMEOUT),
+                                  Config.getLong(ConfigKeys.DataBase.POOL_MAX_LIFETIME),
+                                  Config.getLong(ConfigKeys.DataBase.POOL_VALIDATION_TIMEOUT),
+                                  Config.getLong(ConfigKeys.DataBase.POOL_LEAK_DETECTION_THRESHOLD),
+                                  statementCacheSize);
+    }
+
+    // Закрывает пул соединений с базой данных
+    public static void shutdown() {
+        if (pool != null) {
+            pool.close();
+            pool = null;
+        }
+    }
+    
+    // Возвращает соединение с базой данных из пула, закрытие соединения возвращает его в пул
+    public static Connection getConnection() throws SQLException {
+        ConnectionPool current = pool;
+        if (current == null) {
+            throw new SQLException("Database connection pool is not configured");
+        }
+        return current.getConnection();
     }
     
     // Закрывает соединение connection с базой данных
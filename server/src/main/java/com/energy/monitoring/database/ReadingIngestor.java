@@ -0,0 +1,123 @@
+package com.energy.monitoring.database;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.energy.monitoring.config.Config;
+import com.energy.monitoring.config.ConfigKeys;
+import com.energy.monitoring.database.dao.MeterReadingDAO;
+import com.energy.monitoring.metrics.LatencyHistogram;
+import com.energy.monitoring.metrics.MetricsRegistry;
+import com.energy.monitoring.models.MeterReading;
+
+/* Очередь записи показаний приборов учёта: показания принимаются без ожидания базы и записываются фоновым потоком пачками.
+   Пока пачка пишется, в очереди копится следующая, поэтому чем выше поток показаний, тем крупнее пачки */
+public class ReadingIngestor {
+    private static final Logger logger = LoggerFactory.getLogger(ReadingIngestor.class); // Объект Logger для текущего класса
+
+    private static final int  QUEUE_CAPACITY = Math.max(1, Config.getInt(ConfigKeys.Ingest.QUEUE_CAPACITY)); // Сколько показаний может ждать записи, лишние отбрасываются
+    private static final int  BATCH_SIZE     = Math.max(1, Config.getInt(ConfigKeys.Ingest.BATCH_SIZE));     // Максимальное количество показаний в одной пачке
+    private static final long POLL_TIMEOUT   = 200;                                                            // Как часто поток записи проверяет, не пора ли остановиться, в мс
+
+    private static final BlockingQueue<MeterReading> queue     = new ArrayBlockingQueue<>(QUEUE_CAPACITY); // Показания, ожидающие записи
+    private static final MeterReadingDAO             dao       = new MeterReadingDAO();
+    private static final LongAdder                   written   = new LongAdder();                           // Количество записанных показаний
+    private static final LongAdder                   dropped   = new LongAdder();                           // Количество показаний, не поместившихся в очередь
+    private static final LongAdder                   failed    = new LongAdder();                           // Количество показаний, потерянных из-за ошибок базы
+    private static final LatencyHistogram            flushTime = new LatencyHistogram();                    // Время записи одной пачки
+    private static volatile Thread                   writer;                                                // Поток записи
+    private static volatile boolean                  running;                                               // Работает ли поток записи
+
+    // Запускает поток записи показаний
+    public static synchronized void start() {
+        if (writer != null) {
+            return;
+        }
+
+        running = true;
+        writer  = Thread.ofPlatform().name("reading-ingestor").daemon().start(ReadingIngestor::run);
+        registerMetrics();
+    }
+
+    // Записывает в базу оставшиеся в очереди показания и останавливает поток записи
+    public static synchronized void stop() {
+        Thread thread = writer;
+        if (thread == null) {
+            return;
+        }
+
+        running = false;
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            logger.warn("Interrupted while flushing meter readings, {} left unwritten", queue.size());
+        }
+        writer = null;
+        logger.info("Reading ingestor stopped");
+    }
+
+    // Ставит показание reading в очередь записи, если очередь заполнена - отбрасывает его и возвращает false
+    public static boolean submit(MeterReading reading) {
+        if (queue.offer(reading)) {
+            return true;
+        }
+        dropped.increment();
+        return false;
+    }
+
+    // Забирает из очереди пачки показаний и записывает их, после остановки дописывает остаток очереди
+    private static void run() {
+        List<MeterReading> batch = new ArrayList<>(Math.min(BATCH_SIZE, 1024));
+        while (running || !queue.isEmpty()) {
+            try {
+                MeterReading first = queue.poll(POLL_TIMEOUT, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, BATCH_SIZE - 1);
+            } catch (InterruptedException e) {
+                running = false;
+                queue.drainTo(batch, BATCH_SIZE);
+            }
+
+            flush(batch);
+            batch.clear();
+        }
+    }
+
+    // Записывает пачку показаний batch, при ошибке базы пачка теряется
+    private static void flush(List<MeterReading> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        long start = System.nanoTime();
+        try {
+            dao.insertReadings(batch);
+            written.add(batch.size());
+        } catch (SQLException | RuntimeException e) {
+            failed.add(batch.size());
+            logger.error("Failed to write {} meter readings: {}", batch.size(), e.getMessage());
+        }
+        flushTime.record(System.nanoTime() - start);
+    }
+
+    // Регистрирует показатели очереди записи в реестре метрик
+    private static void registerMetrics() {
+        MetricsRegistry.registerGauge("ingest_queue_depth", "Meter readings waiting to be written", queue::size);
+        MetricsRegistry.registerCounter("ingest_readings_written_total", "Meter readings written to the database", written::sum);
+        MetricsRegistry.registerCounter("ingest_readings_dropped_total", "Meter readings dropped because the queue was full", dropped::sum);
+        MetricsRegistry.registerCounter("ingest_readings_failed_total", "Meter readings lost because of database errors", failed::sum);
+        MetricsRegistry.registerHistogram("ingest_flush_duration_seconds", "Time spent writing one batch of meter readings", flushTime);
+    }
+}
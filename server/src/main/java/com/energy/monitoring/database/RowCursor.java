@@ -0,0 +1,106 @@
+package com.energy.monitoring.database;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/* Курсор по результату sql-запроса, строки которого читаются из базы порциями по мере обхода, а не загружаются в память все сразу.
+   Держит соединение с базой данных до закрытия */
+public class RowCursor<T> implements AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger(RowCursor.class); // Объект Logger для текущего класса
+
+    private static final int FETCH_SIZE = 256; // Сколько строк драйвер забирает из базы за один раз
+
+    private final Connection        connection; // Соединение, занятое курсором
+    private final PreparedStatement stmt;       // Выполненный запрос
+    private final ResultSet         rs;         // Результат запроса
+    private final RowMapper<T>      mapper;     // Преобразование строки в объект
+    private boolean                 unread;     // Вернуть ли текущую строку при следующем вызове next
+    private boolean                 closed;     // Закрыт ли курсор
+
+    private RowCursor(Connection connection, PreparedStatement stmt, ResultSet rs, RowMapper<T> mapper) {
+        this.connection = connection;
+        this.stmt       = stmt;
+        this.rs         = rs;
+        this.mapper     = mapper;
+    }
+
+    // Выполняет запрос sql с параметрами params и возвращает курсор по его строкам, преобразуемым mapper
+    public static <T> RowCursor<T> open(String sql, RowMapper<T> mapper, Object... params) throws SQLException {
+        Connection        connection = JDBC.getConnection();
+        PreparedStatement stmt       = null;
+        try {
+            // Драйвер PostgreSQL читает результат порциями только внутри транзакции
+            connection.setAutoCommit(false);
+            stmt = connection.prepareStatement(sql);
+            stmt.setFetchSize(FETCH_SIZE);
+            for (int i = 0; i < params.length; i++) {
+                stmt.setObject(i + 1, params[i]);
+            }
+            return new RowCursor<>(connection, stmt, stmt.executeQuery(), mapper);
+        } catch (SQLException | RuntimeException e) {
+            JDBC.closeResources(null, stmt, connection);
+            throw e;
+        }
+    }
+
+    // Переходит к следующей строке, возвращает false, если строк больше нет
+    public boolean next() throws SQLException {
+        if (unread) {
+            unread = false;
+            return true;
+        }
+        return rs.next();
+    }
+
+    // Возвращает объект текущей строки
+    public T get() throws SQLException {
+        return mapper.map(rs);
+    }
+
+    // Возвращает текущую строку, преобразованную other, например, чтобы прочитать общие для всех строк столбцы
+    public <R> R get(RowMapper<R> other) throws SQLException {
+        return other.map(rs);
+    }
+
+    // Оставляет курсор на текущей строке: следующий вызов next вернёт её ещё раз
+    public void unread() {
+        unread = true;
+    }
+
+    // Читает оставшиеся строки в список и закрывает курсор
+    public List<T> toList() throws SQLException {
+        List<T> rows = new ArrayList<>();
+        try {
+            while (next()) {
+                rows.add(get());
+            }
+        } finally {
+            close();
+        }
+        return rows;
+    }
+
+    // Закрывает результат и запрос, завершает транзакцию чтения и освобождает соединение
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+
+        try {
+            connection.rollback();
+            connection.setAutoCommit(true);
+        } catch (SQLException e) {
+            logger.warn("Error finishing cursor transaction: {}", e.getMessage());
+        }
+        JDBC.closeResources(rs, stmt, connection);
+    }
+}
@@ -0,0 +1,10 @@
+package com.energy.monitoring.database;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/* Преобразование текущей строки результата sql-запроса в объект */
+@FunctionalInterface
+public interface RowMapper<T> {
+    T map(ResultSet rs) throws SQLException;
+}
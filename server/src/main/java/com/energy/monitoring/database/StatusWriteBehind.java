@@ -0,0 +1,144 @@
+package com.energy.monitoring.database;
+
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.energy.monitoring.config.Config;
+import com.energy.monitoring.config.ConfigKeys;
+import com.energy.monitoring.database.dao.CoordinatorDAO;
+import com.energy.monitoring.metrics.MetricsRegistry;
+import com.energy.monitoring.models.StatusUpdate;
+
+/* Отложенная запись статусов координаторов: изменения копятся в памяти в течение окна записи,
+   из нескольких изменений одного объекта остаётся только самое новое, и накопленное записывается в базу одним пакетом */
+public class StatusWriteBehind {
+    private static final Logger logger = LoggerFactory.getLogger(StatusWriteBehind.class); // Объект Logger для текущего класса
+
+    private static final long WINDOW = Math.max(1, Config.getLong(ConfigKeys.DataBase.WRITE_BEHIND_WINDOW)); // Как долго копятся изменения статусов перед записью, в мс
+
+    private static final Map<Integer, StatusUpdate> coordinators   = new ConcurrentHashMap<>(); // Ожидающие записи статусы координаторов по их id
+    private static final CoordinatorDAO             coordinatorDAO = new CoordinatorDAO();
+    private static final LongAdder                  flushed        = new LongAdder();           // Количество записанных изменений статусов
+    private static final LongAdder                  coalesced      = new LongAdder();           // Количество изменений, заменённых более новыми до записи
+    private static final LongAdder                  failed         = new LongAdder();           // Количество неудачных попыток записи изменений
+    private static ScheduledExecutorService         scheduler;                                  // Поток периодической записи
+
+    // Запускает периодическую запись накопленных статусов
+    public static synchronized void start() {
+        if (scheduler != null) {
+            return;
+        }
+
+        scheduler = Executors.newSingleThreadScheduledExecutor(task -> Thread.ofPlatform().name("status-write-behind").daemon().unstarted(task));
+        scheduler.scheduleWithFixedDelay(StatusWriteBehind::flush, WINDOW, WINDOW, TimeUnit.MILLISECONDS);
+        registerMetrics();
+    }
+
+    // Останавливает периодическую запись и записывает в базу всё, что осталось в буфере
+    public static synchronized void stop() {
+        if (scheduler == null) {
+            return;
+        }
+
+        scheduler.shutdown();
+        try {
+            scheduler.awaitTermination(WINDOW + 5000, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        scheduler = null;
+
+        // После остановки следующего окна записи уже не будет, поэтому неудачная запись повторяется сразу
+        flush();
+        if (pendingCount() > 0) {
+            flush();
+        }
+        if (pendingCount() > 0) {
+            logger.warn("Status write-behind stopped with {} updates left unwritten", pendingCount());
+        }
+        logger.info("Status write-behind stopped");
+    }
+
+    // Запоминает новый статус status координатора с заданным coordinatorId для отложенной записи
+    public static void updateCoordinatorStatus(int coordinatorId, String status) {
+        enqueue(coordinators, coordinatorId, new StatusUpdate(status, new Timestamp(System.currentTimeMillis())));
+    }
+
+    // Возвращает количество изменений статусов, ожидающих записи
+    public static int pendingCount() {
+        return coordinators.size();
+    }
+
+    // Кладёт изменение update объекта с заданным id в буфер pending, оставляя более новое из двух
+    private static void enqueue(Map<Integer, StatusUpdate> pending, int id, StatusUpdate update) {
+        pending.merge(id, update, (current, next) -> {
+            coalesced.increment();
+            return newest(current, next);
+        });
+    }
+
+    // Записывает в базу накопленные статусы координаторов
+    private static synchronized void flush() {
+        flush(coordinators, "coordinator", coordinatorDAO::updateCoordinatorStatuses);
+    }
+
+    // Забирает из буфера pending накопленные изменения и записывает их пакетом, при ошибке возвращает их в буфер до следующей попытки
+    private static void flush(Map<Integer, StatusUpdate> pending, String kind, BatchWriter writer) {
+        if (pending.isEmpty()) {
+            return;
+        }
+
+        // Строки обновляются в порядке возрастания id, чтобы параллельные транзакции не блокировали друг друга накрест
+        SortedMap<Integer, StatusUpdate> batch = new TreeMap<>();
+        for (Integer id : pending.keySet()) {
+            StatusUpdate update = pending.remove(id);
+            if (update != null) {
+                batch.put(id, update);
+            }
+        }
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        try {
+            writer.write(batch);
+            flushed.add(batch.size());
+        } catch (SQLException | RuntimeException e) {
+            failed.add(batch.size());
+            logger.error("Failed to write {} {} status updates: {}", batch.size(), kind, e.getMessage());
+            for (Map.Entry<Integer, StatusUpdate> update : batch.entrySet()) {
+                pending.merge(update.getKey(), update.getValue(), StatusWriteBehind::newest);
+            }
+        }
+    }
+
+    // Возвращает более позднее из двух изменений статуса
+    private static StatusUpdate newest(StatusUpdate first, StatusUpdate second) {
+        return second.getChangedAt().before(first.getChangedAt()) ? first : second;
+    }
+
+    // Регистрирует показатели отложенной записи в реестре метрик
+    private static void registerMetrics() {
+        MetricsRegistry.registerGauge("write_behind_pending_updates", "Status updates waiting to be written", StatusWriteBehind::pendingCount);
+        MetricsRegistry.registerCounter("write_behind_flushed_total", "Status updates written to the database", flushed::sum);
+        MetricsRegistry.registerCounter("write_behind_coalesced_total", "Status updates replaced by a newer one before being written", coalesced::sum);
+        MetricsRegistry.registerCounter("write_behind_failed_total", "Status updates whose write failed and was retried", failed::sum);
+    }
+
+    /* Пакетная запись изменений статусов в базу */
+    @FunctionalInterface
+    private interface BatchWriter {
+        void write(SortedMap<Integer, StatusUpdate> updates) throws SQLException;
+    }
+}
@@ -8,16 +8,25 @@ import java.sql.Statement;
 import java.sql.Timestamp;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
 
 import com.energy.monitoring.components.DataBaseFildNames;
 import com.energy.monitoring.components.SqlRequests;
 import com.energy.monitoring.database.JDBC;
+import com.energy.monitoring.database.RowCursor;
 import com.energy.monitoring.models.Coordinator;
+import com.energy.monitoring.models.CoordinatorDetails;
+import com.energy.monitoring.models.Meter;
+import com.energy.monitoring.models.StatusUpdate;
 
 /* Методы для взаимодействия с таблицей координаторов */
 public class CoordinatorDAO {
     // private static final Logger logger = LoggerFactory.getLogger(CoordinatorDAO.class);  // Объект Logger для текущего класса
 
+    private static final int JOINED_OWNER = 10; // Номер столбца признака принадлежности в выборке координатора с приборами учёта
+    private static final int JOINED_METER = 11; // Номер первого столбца прибора учёта в выборке координатора с приборами учёта
+
     // Отправляет sql-запрос базе данных на добавления в таблицу координаторов нового объекта с заданными параметрами
     public Coordinator createCoordinator(int userId, String name, String mac, String ip, int port) throws SQLException {
         String sql = SqlRequests.Coordinator.CREATE_COORDINATOR;
@@ -120,6 +129,31 @@ public class CoordinatorDAO {
         return null;
     }
     
+    // Одним sql-запросом получает координатор с заданным coordinatorId, признак его принадлежности пользователю userId
+    // и курсор по его приборам учёта, если координатора нет - возвращает null
+    public CoordinatorDetails openCoordinatorDetails(int coordinatorId, int userId) throws SQLException {
+        String sql = SqlRequests.Coordinator.GET_COORDINATOR_WITH_METERS;
+
+        RowCursor<Meter> cursor = RowCursor.open(sql, CoordinatorDAO::mapJoinedMeter, userId, userId, coordinatorId);
+        try {
+            if (!cursor.next()) {
+                cursor.close();
+                return null;
+            }
+
+            Coordinator coordinator = cursor.get(CoordinatorDAO::mapJoinedCoordinator);
+            boolean     owner       = cursor.get(rs -> rs.getBoolean(JOINED_OWNER));
+            // Первая строка несёт и первый прибор учёта, если он есть, - курсор отдаст её ещё раз
+            if (cursor.get(rs -> rs.getObject(JOINED_METER) != null)) {
+                cursor.unread();
+            }
+            return new CoordinatorDetails(coordinator, owner, cursor);
+        } catch (SQLException | RuntimeException e) {
+            cursor.close();
+            throw e;
+        }
+    }
+
     // Отправляет sql-запрос базе данных на обновление в таблице координаторов статуса объекта с заданным coordinatorId
     public void updateCoordinatorStatus(int coordinatorId, String status) throws SQLException {
         String sql = SqlRequests.Coordinator.UPDATE_COORDINATOR_STATUS;
@@ -135,6 +169,44 @@ public class CoordinatorDAO {
         }
     }
 
+    // Отправляет базе данных одним пакетом sql-запросы на обновление статусов координаторов по их id из updates
+    public void updateCoordinatorStatuses(SortedMap<Integer, StatusUpdate> updates) throws SQLException {
+        String sql = SqlRequests.Coordinator.UPDATE_COORDINATOR_STATUS;
+
+        try (Connection connection  = JDBC.getConnection();
+             PreparedStatement stmt = connection.prepareStatement(sql)) {
+
+            for (Map.Entry<Integer, StatusUpdate> update : updates.entrySet()) {
+                stmt.setString   (1, update.getValue().getStatus());
+                stmt.setTimestamp(2, update.getValue().getChangedAt());
+                stmt.setInt      (3, update.getKey());
+                stmt.addBatch();
+            }
+
+            stmt.executeBatch();
+        }
+    }
+
+    // Возвращает координатор из первых столбцов строки объединённой выборки rs
+    private static Coordinator mapJoinedCoordinator(ResultSet rs) throws SQLException {
+        return new Coordinator(
+            rs.getInt      (1),
+            rs.getInt      (2),
+            rs.getString   (3),
+            rs.getString   (4),
+            rs.getString   (5),
+            rs.getInt      (6),
+            rs.getString   (7),
+            rs.getTimestamp(8),
+            rs.getTimestamp(9)
+        );
+    }
+
+    // Возвращает прибор учёта из столбцов прибора строки объединённой выборки rs
+    private static Meter mapJoinedMeter(ResultSet rs) throws SQLException {
+        return MeterDAO.mapListedMeter(rs, JOINED_METER);
+    }
+
     // Отправляет sql-запрос базе данных на удаление из таблицы координаторов объекта с заданным coordinatorId
     public void deleteCoordinator(int coordinatorId) throws SQLException {
         String sql = SqlRequests.Coordinator.DELETE_COORDINATOR;
@@ -7,12 +7,16 @@ import java.sql.SQLException;
 import java.sql.Statement;
 import java.sql.Timestamp;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
-import com.energy.monitoring.components.DataBaseFildNames;
 import com.energy.monitoring.components.SqlRequests;
 import com.energy.monitoring.database.JDBC;
+import com.energy.monitoring.database.ReadingIngestor;
+import com.energy.monitoring.database.RowCursor;
 import com.energy.monitoring.models.Meter;
+import com.energy.monitoring.models.MeterReading;
 
 /* Методы для взаимодействия с таблицей приборов учёта */
 public class MeterDAO {
@@ -53,6 +57,24 @@ public class MeterDAO {
         }
     }    
 
+    // Отправляет sql-запрос базе данных на получение приборов учёта со статусом status, сгруппированных по mac-адресу их координатора
+    public Map<String, List<Meter>> getPolledMeters(String status) throws SQLException {
+        Map<String, List<Meter>> meters = new HashMap<>();
+
+        try (Connection connection  = JDBC.getConnection();
+             PreparedStatement stmt = connection.prepareStatement(SqlRequests.Meter.GET_POLLED_METERS)) {
+
+            stmt.setString(1, status);
+
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    meters.computeIfAbsent(rs.getString(1), mac -> new ArrayList<>()).add(mapListedMeter(rs, 2));
+                }
+            }
+        }
+        return meters;
+    }
+
     // Отправляет sql-запрос базе данных на получение из таблицы приборов учёта всех объекта с заданным coordinatorId
     public List<Meter> getMetersByCoordinator(int coordinatorId) throws SQLException {
         String sql = SqlRequests.Meter.GET_METERS_BY_COORDINATOR;
@@ -65,31 +87,18 @@ public class MeterDAO {
             
             try (ResultSet rs = stmt.executeQuery()) {
                 while (rs.next()) {
-                    Meter meter = new Meter(
-                        rs.getInt      (DataBaseFildNames.Tables.Meter.ID),
-                        rs.getInt      (DataBaseFildNames.Tables.Meter.COORDINATOR_ID),
-                        rs.getString   (DataBaseFildNames.Tables.Meter.ZB_LONG_ADDR),
-                        rs.getShort    (DataBaseFildNames.Tables.Meter.ZB_SHORT_ADDR),
-                        rs.getString   (DataBaseFildNames.Tables.Meter.NAME),
-                        rs.getString   (DataBaseFildNames.Tables.Meter.STATUS),
-                        rs.getTimestamp(DataBaseFildNames.Tables.Meter.CREATED_AT),
-                        rs.getTimestamp(DataBaseFildNames.Tables.Meter.LAST_SEEN),
-                        rs.getDouble   (DataBaseFildNames.Tables.Meter.VOLTAGE),
-                        rs.getDouble   (DataBaseFildNames.Tables.Meter.CURRENT),
-                        rs.getDouble   (DataBaseFildNames.Tables.Meter.ACTIVE_POWER),
-                        rs.getDouble   (DataBaseFildNames.Tables.Meter.REACTIVE_POWER),
-                        rs.getDouble   (DataBaseFildNames.Tables.Meter.APPARENT_POWER),
-                        rs.getDouble   (DataBaseFildNames.Tables.Meter.POWER_FACTOR),
-                        rs.getDouble   (DataBaseFildNames.Tables.Meter.FREQUENCY),
-                        rs.getDouble   (DataBaseFildNames.Tables.Meter.NEUTRAL_CURRENT)
-                    );
-                    meters.add(meter);
+                    meters.add(mapListedMeter(rs));
                 }
             }
         }
         return meters;
     }
 
+    // Открывает курсор по приборам учёта координатора с заданным coordinatorId, строки читаются из базы по мере обхода
+    public RowCursor<Meter> openMetersByCoordinator(int coordinatorId) throws SQLException {
+        return RowCursor.open(SqlRequests.Meter.GET_METERS_BY_COORDINATOR, MeterDAO::mapListedMeter, coordinatorId);
+    }
+
     // Отправляет sql-запрос базе данных на получение из таблицы приборов учёта объекта с заданным meterId
     public Meter getMeter(int meterId) throws SQLException {
         String sql = SqlRequests.Meter.GET_METER;
@@ -101,51 +110,19 @@ public class MeterDAO {
             
             try (ResultSet rs = stmt.executeQuery()) {
                 if (rs.next()) {
-                    return new Meter(
-                        rs.getInt      (DataBaseFildNames.Tables.Meter.ID),
-                        rs.getInt      (DataBaseFildNames.Tables.Meter.COORDINATOR_ID),
-                        rs.getString   (DataBaseFildNames.Tables.Meter.ZB_LONG_ADDR),
-                        rs.getShort    (DataBaseFildNames.Tables.Meter.ZB_SHORT_ADDR),
-                        rs.getString   (DataBaseFildNames.Tables.Meter.NAME),
-                        rs.getString   (DataBaseFildNames.Tables.Meter.STATUS),
-                        rs.getTimestamp(DataBaseFildNames.Tables.Meter.CREATED_AT),
-                        rs.getTimestamp(DataBaseFildNames.Tables.Meter.LAST_SEEN),
-                        rs.getDouble   (DataBaseFildNames.Tables.Meter.VOLTAGE),
-                        rs.getDouble   (DataBaseFildNames.Tables.Meter.CURRENT),
-                        rs.getDouble   (DataBaseFildNames.Tables.Meter.ACTIVE_POWER),
-                        rs.getDouble   (DataBaseFildNames.Tables.Meter.REACTIVE_POWER),
-                        rs.getDouble   (DataBaseFildNames.Tables.Meter.APPARENT_POWER),
-                        rs.getDouble   (DataBaseFildNames.Tables.Meter.POWER_FACTOR),
-                        rs.getDouble   (DataBaseFildNames.Tables.Meter.FREQUENCY),
-                        rs.getDouble   (DataBaseFildNames.Tables.Meter.NEUTRAL_CURRENT)
-                    );
+                    return mapMeterWithData(rs);
                 }
             }
         }
         return null;
     }
     
-    // Отправляет sql-запрос базе данных на обновление в таблице приборов учёта показаний объекта с заданным meterId
-    public void updateMeterData(int meterId, double voltage, double current, double activePower, double reactivePower, 
-                                double apparentPower, double powerFactor, double frequency, double neutralCurrent) throws SQLException {
-        String sql = SqlRequests.Meter.UPDATE_METER_DATA;
-        
-        try (Connection connection  = JDBC.getConnection();
-             PreparedStatement stmt = connection.prepareStatement(sql)) {
-            
-            stmt.setDouble   (1,  voltage);
-            stmt.setDouble   (2,  current);
-            stmt.setDouble   (3,  activePower);
-            stmt.setDouble   (4,  reactivePower);
-            stmt.setDouble   (5,  apparentPower);
-            stmt.setDouble   (6,  powerFactor);
-            stmt.setDouble   (7,  frequency);
-            stmt.setDouble   (8,  neutralCurrent);
-            stmt.setTimestamp(9,  new Timestamp(System.currentTimeMillis()));
-            stmt.setInt      (10, meterId);
-            
-            stmt.executeUpdate();
-        }
+    // Ставит показания объекта с заданным meterId в очередь записи: они дописываются в таблицу показаний, а последние значения
+    // переносятся в таблицу приборов учёта одним запросом на пачку, возвращает false, если очередь переполнена
+    public boolean updateMeterData(int meterId, double voltage, double current, double activePower, double reactivePower, 
+                                   double apparentPower, double powerFactor, double frequency, double neutralCurrent) {
+        return ReadingIngestor.submit(new MeterReading(meterId, new Timestamp(System.currentTimeMillis()), voltage, current, activePower, 
+                                                       reactivePower, apparentPower, powerFactor, frequency, neutralCurrent));
     }
 
     // Отправляет sql-запрос базе данных на обновление в таблице приборов учёта статуса объекта с заданным meterId
@@ -163,6 +140,51 @@ public class MeterDAO {
         }
     }
     
+    // Сохраняет результат опроса сети одной транзакцией: пакетом добавляет новые приборы учёта createdMeters
+    // и пакетом обновляет статусы приборов учёта changedMeters, у которых статус изменился
+    public void saveDiscoveryResults(List<Meter> createdMeters, List<Meter> changedMeters) throws SQLException {
+        if (createdMeters.isEmpty() && changedMeters.isEmpty()) {
+            return;
+        }
+
+        Timestamp now = new Timestamp(System.currentTimeMillis());
+        try (Connection connection = JDBC.getConnection()) {
+            connection.setAutoCommit(false);
+            try {
+                if (!createdMeters.isEmpty()) {
+                    try (PreparedStatement stmt = connection.prepareStatement(SqlRequests.Meter.CREATE_METER)) {
+                        for (Meter meter : createdMeters) {
+                            stmt.setInt   (1, meter.getCoordinatorId());
+                            stmt.setString(2, meter.getZbLongAddr());
+                            stmt.setInt   (3, meter.getZbShortAddr());
+                            stmt.setString(4, meter.getName());
+                            stmt.setString(5, meter.getStatus());
+                            stmt.addBatch();
+                        }
+                        stmt.executeBatch();
+                    }
+                }
+
+                if (!changedMeters.isEmpty()) {
+                    try (PreparedStatement stmt = connection.prepareStatement(SqlRequests.Meter.UPDATE_METER_STATUS)) {
+                        for (Meter meter : changedMeters) {
+                            stmt.setString   (1, meter.getStatus());
+                            stmt.setTimestamp(2, now);
+                            stmt.setInt      (3, meter.getId());
+                            stmt.addBatch();
+                        }
+                        stmt.executeBatch();
+                    }
+                }
+
+                connection.commit();
+            } catch (SQLException | RuntimeException e) {
+                connection.rollback();
+                throw e;
+            }
+        }
+    }
+
     // Отправляет sql-запрос базе данных на удаление из таблицы приборов учёта объекта с заданным meterId
     public void deleteMeter(int meterId) throws SQLException {
         String sql = SqlRequests.Meter.DELETE_METER;
@@ -174,4 +196,45 @@ public class MeterDAO {
             stmt.executeUpdate();
         }
     }
-}
\ No newline at end of file
+
+    // Возвращает прибор учёта без показаний из текущей строки результата rs
+    private static Meter mapListedMeter(ResultSet rs) throws SQLException {
+        return mapListedMeter(rs, 1);
+    }
+
+    // Возвращает прибор учёта без показаний из столбцов списка приборов, начинающихся в строке rs со столбца first
+    static Meter mapListedMeter(ResultSet rs, int first) throws SQLException {
+        return new Meter(
+            rs.getInt      (first),
+            rs.getInt      (first + 1),
+            rs.getString   (first + 2),
+            rs.getShort    (first + 3),
+            rs.getString   (first + 4),
+            rs.getString   (first + 5),
+            rs.getTimestamp(first + 6),
+            rs.getTimestamp(first + 7)
+        );
+    }
+
+    // Возвращает прибор учёта вместе с последними показаниями из текущей строки результата rs
+    private static Meter mapMeterWithData(ResultSet rs) throws SQLException {
+        return new Meter(
+            rs.getInt      (1),
+            rs.getInt      (2),
+            rs.getString   (3),
+            rs.getShort    (4),
+            rs.getString   (5),
+            rs.getString   (6),
+            rs.getTimestamp(7),
+            rs.getTimestamp(8),
+            rs.getDouble   (9),
+            rs.getDouble   (10),
+            rs.getDouble   (11),
+            rs.getDouble   (12),
+            rs.getDouble   (13),
+            rs.getDouble   (14),
+            rs.getDouble   (15),
+            rs.getDouble   (16)
+        );
+    }
+}
@@ -0,0 +1,156 @@
+package com.energy.monitoring.database.dao;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Array;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+
+import com.energy.monitoring.components.SqlRequests;
+import com.energy.monitoring.database.JDBC;
+import com.energy.monitoring.models.MeterReading;
+
+/* Методы для взаимодействия с таблицей показаний приборов учёта */
+public class MeterReadingDAO {
+    private static final String UNIQUE_VIOLATION      = "23505"; // SQLSTATE нарушения уникальности ключа
+    private static final String FOREIGN_KEY_VIOLATION = "23503"; // SQLSTATE ссылки на несуществующую строку, здесь - на удалённый прибор учёта
+    private static final int    VALUE_COUNT           = 8;       // Количество значений в одном показании
+
+    // Записывает показания readings в таблицу показаний и обновляет последние значения в таблице приборов учёта одной транзакцией
+    public void insertReadings(List<MeterReading> readings) throws SQLException {
+        if (readings.isEmpty()) {
+            return;
+        }
+
+        try (Connection connection = JDBC.getConnection()) {
+            connection.setAutoCommit(false);
+            try {
+                if (!copyReadings(connection, readings)) {
+                    insertReadingsBatch(connection, readings);
+                }
+                updateLatestMeterData(connection, readings);
+                connection.commit();
+            } catch (SQLException | RuntimeException e) {
+                connection.rollback();
+                throw e;
+            }
+        }
+    }
+
+    // Записывает показания командой COPY, возвращает false, если это не соединение PostgreSQL, часть показаний уже записана
+    // или среди них есть показания удалённых приборов учёта
+    private boolean copyReadings(Connection connection, List<MeterReading> readings) throws SQLException {
+        if (!connection.isWrapperFor(PGConnection.class)) {
+            return false;
+        }
+
+        StringBuilder rows = new StringBuilder(readings.size() * 96);
+        for (MeterReading reading : readings) {
+            rows.append(reading.getMeterId()).append('\t').append(reading.getRecordedAt());
+            for (double value : reading.getValues()) {
+                rows.append('\t');
+                if (Double.isFinite(value)) {
+                    rows.append(value);
+                } else {
+                    rows.append("\\N");
+                }
+            }
+            rows.append('\n');
+        }
+        byte[] data = rows.toString().getBytes(StandardCharsets.UTF_8);
+
+        // COPY не умеет пропускать повторы ключа и строки удалённых приборов, поэтому в этих случаях показания записываются заново построчной вставкой
+        Savepoint savepoint = connection.setSavepoint();
+        try {
+            CopyIn copy = connection.unwrap(PGConnection.class).getCopyAPI().copyIn(SqlRequests.MeterReading.COPY_READINGS);
+            try {
+                copy.writeToCopy(data, 0, data.length);
+                copy.endCopy();
+            } catch (SQLException | RuntimeException e) {
+                if (copy.isActive()) {
+                    try {
+                        copy.cancelCopy();
+                    } catch (SQLException cancelError) {
+                        e.addSuppressed(cancelError);
+                    }
+                }
+                throw e;
+            }
+        } catch (SQLException e) {
+            if (UNIQUE_VIOLATION.equals(e.getSQLState()) || FOREIGN_KEY_VIOLATION.equals(e.getSQLState())) {
+                connection.rollback(savepoint);
+                return false;
+            }
+            throw e;
+        }
+        connection.releaseSavepoint(savepoint);
+        return true;
+    }
+
+    // Записывает показания пакетом вставок, уже записанные показания и показания удалённых приборов учёта пропускаются
+    private void insertReadingsBatch(Connection connection, List<MeterReading> readings) throws SQLException {
+        try (PreparedStatement stmt = connection.prepareStatement(SqlRequests.MeterReading.INSERT_READING)) {
+            for (MeterReading reading : readings) {
+                stmt.setInt      (1, reading.getMeterId());
+                stmt.setTimestamp(2, reading.getRecordedAt());
+                double[] values = reading.getValues();
+                for (int i = 0; i < VALUE_COUNT; i++) {
+                    if (Double.isFinite(values[i])) {
+                        stmt.setDouble(3 + i, values[i]);
+                    } else {
+                        stmt.setNull(3 + i, Types.NUMERIC);
+                    }
+                }
+                stmt.setInt(3 + VALUE_COUNT, reading.getMeterId());
+                stmt.addBatch();
+            }
+            stmt.executeBatch();
+        }
+    }
+
+    // Переносит в таблицу приборов учёта самые новые показания каждого прибора одним запросом
+    private void updateLatestMeterData(Connection connection, List<MeterReading> readings) throws SQLException {
+        // Приборы обновляются в порядке возрастания id, чтобы параллельные транзакции не блокировали друг друга накрест
+        Map<Integer, MeterReading> latest = new TreeMap<>();
+        for (MeterReading reading : readings) {
+            latest.merge(reading.getMeterId(), reading, (current, next) -> next.getRecordedAt().before(current.getRecordedAt()) ? current : next);
+        }
+
+        int         count      = latest.size();
+        Integer[]   meterIds   = new Integer[count];
+        Timestamp[] recordedAt = new Timestamp[count];
+        Double[][]  values     = new Double[VALUE_COUNT][count];
+        int         row        = 0;
+        for (MeterReading reading : latest.values()) {
+            meterIds[row]   = reading.getMeterId();
+            recordedAt[row] = reading.getRecordedAt();
+            double[] readingValues = reading.getValues();
+            for (int i = 0; i < VALUE_COUNT; i++) {
+                values[i][row] = Double.isFinite(readingValues[i]) ? readingValues[i] : null;
+            }
+            row++;
+        }
+
+        try (PreparedStatement stmt = connection.prepareStatement(SqlRequests.MeterReading.UPDATE_LATEST_METER_DATA)) {
+            Array[] arrays = new Array[VALUE_COUNT + 2];
+            arrays[0] = connection.createArrayOf("int4", meterIds);
+            arrays[1] = connection.createArrayOf("timestamp", recordedAt);
+            for (int i = 0; i < VALUE_COUNT; i++) {
+                arrays[2 + i] = connection.createArrayOf("float8", values[i]);
+            }
+            for (int i = 0; i < arrays.length; i++) {
+                stmt.setArray(i + 1, arrays[i]);
+            }
+            stmt.executeUpdate();
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package com.energy.monitoring.handlers;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/* Пул байтовых буферов одного размера для повторного использования между соединениями */
+public class ByteBufferPool {
+    private final int                               bufferSize; // Размер буферов пула
+    private final int                               maxPooled;  // Максимальное количество свободных буферов в пуле
+    private final ConcurrentLinkedQueue<ByteBuffer> buffers;    // Свободные буферы
+    private final AtomicInteger                     pooled;     // Текущее количество свободных буферов
+
+    public ByteBufferPool(int bufferSize, int maxPooled) {
+        this.bufferSize = bufferSize;
+        this.maxPooled  = maxPooled;
+        this.buffers    = new ConcurrentLinkedQueue<>();
+        this.pooled     = new AtomicInteger();
+    }
+
+    public int getBufferSize() {
+        return bufferSize;
+    }
+
+    // Возвращает очищенный буфер из пула, если пул пуст - новый буфер
+    public ByteBuffer acquire() {
+        ByteBuffer buffer = buffers.poll();
+        if (buffer == null) {
+            return ByteBuffer.allocate(bufferSize);
+        }
+
+        pooled.decrementAndGet();
+        buffer.clear();
+        return buffer;
+    }
+
+    // Возвращает буфер buffer в пул, буферы чужого размера и сверх лимита пула отбрасываются
+    public void release(ByteBuffer buffer) {
+        if (buffer == null || buffer.capacity() != bufferSize) {
+            return;
+        }
+
+        if (pooled.incrementAndGet() <= maxPooled) {
+            buffers.offer(buffer);
+        } else {
+            pooled.decrementAndGet();
+        }
+    }
+}
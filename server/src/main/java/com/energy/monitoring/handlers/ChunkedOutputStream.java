@@ -0,0 +1,99 @@
+package com.energy.monitoring.handlers;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+/* Поток, записывающий тело http-ответа в формате Transfer-Encoding: chunked: данные копятся в буфере и уходят в output кусками */
+public class ChunkedOutputStream extends OutputStream {
+    public  static final int    CHUNK_SIZE = 8192; // Размер буфера, а значит и типичного куска
+    private static final byte[] CRLF       = { '\r', '\n' };
+    private static final byte[] LAST_CHUNK = "0\r\n\r\n".getBytes(StandardCharsets.US_ASCII);
+
+    private final OutputStream output;   // Поток соединения
+    private final byte[]       buffer;   // Данные очередного куска
+    private       int          count;    // Количество байт в буфере
+    private       long         written;  // Сколько байт вместе с разметкой кусков записано в output
+    private       boolean      finished; // Записан ли завершающий кусок
+
+    public ChunkedOutputStream(OutputStream output) {
+        this.output = output;
+        this.buffer = new byte[CHUNK_SIZE];
+    }
+
+    @Override
+    public void write(int value) throws IOException {
+        ensureOpen();
+        if (count == buffer.length) {
+            writeChunk(buffer, 0, count);
+            count = 0;
+        }
+        buffer[count++] = (byte) value;
+    }
+
+    @Override
+    public void write(byte[] data, int offset, int length) throws IOException {
+        ensureOpen();
+        if (length >= buffer.length) {
+            writeBuffered();
+            writeChunk(data, offset, length);
+            return;
+        }
+        if (count + length > buffer.length) {
+            writeBuffered();
+        }
+        System.arraycopy(data, offset, buffer, count, length);
+        count += length;
+    }
+
+    // Отправляет накопленные данные отдельным куском и проталкивает их в соединение
+    @Override
+    public void flush() throws IOException {
+        ensureOpen();
+        writeBuffered();
+        output.flush();
+    }
+
+    // Отправляет накопленные данные и завершающий кусок нулевой длины, поток соединения остаётся открытым
+    public void finish() throws IOException {
+        ensureOpen();
+        writeBuffered();
+        output.write(LAST_CHUNK);
+        output.flush();
+        written += LAST_CHUNK.length;
+        finished = true;
+    }
+
+    // Не завершает тело: если finish не был вызван из-за ошибки, клиент должен увидеть оборванный ответ, а не целый
+    @Override
+    public void close() {
+    }
+
+    // Возвращает количество байт, записанных в соединение вместе с разметкой кусков
+    public long getBytesWritten() {
+        return written;
+    }
+
+    private void writeBuffered() throws IOException {
+        if (count > 0) {
+            writeChunk(buffer, 0, count);
+            count = 0;
+        }
+    }
+
+    // Записывает length байт data с позиции offset одним куском: длина в шестнадцатеричном виде, данные, перевод строки
+    private void writeChunk(byte[] data, int offset, int length) throws IOException {
+        byte[] size = Integer.toHexString(length).getBytes(StandardCharsets.US_ASCII);
+        output.write(size);
+        output.write(CRLF);
+        output.write(data, offset, length);
+        output.write(CRLF);
+        written += size.length + 2L * CRLF.length + length;
+    }
+
+    private void ensureOpen() throws IOException {
+        if (finished) {
+            throw new IOException("Chunked body is already finished");
+        }
+    }
+}
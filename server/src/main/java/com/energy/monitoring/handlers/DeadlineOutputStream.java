@@ -0,0 +1,102 @@
+package com.energy.monitoring.handlers;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.net.Socket;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/* Поток записи в сокет блокирующего движка со сроком на каждую запись: SO_TIMEOUT ограничивает только чтение, поэтому если клиент
+   перестал читать ответ и запись не завершилась за таймаут, сокет закрывается, а зависшая запись завершается ошибкой */
+public class DeadlineOutputStream extends FilterOutputStream {
+    private static final Logger logger = LoggerFactory.getLogger(DeadlineOutputStream.class); // Объект Logger для текущего класса
+
+    private static final ScheduledThreadPoolExecutor timer = createTimer(); // Поток, закрывающий сокеты с просроченной записью
+
+    private final Socket     socket;  // Сокет клиента
+    private final long       timeout; // Срок одной записи в миллисекундах, 0 - без срока
+    private volatile boolean expired; // Закрыт ли сокет из-за просроченной записи
+
+    /* Запись в сокет, выполняемая со сроком */
+    @FunctionalInterface
+    public interface Write {
+        long run() throws IOException;
+    }
+
+    public DeadlineOutputStream(Socket socket, long timeout) throws IOException {
+        super(socket.getOutputStream());
+        this.socket  = socket;
+        this.timeout = timeout;
+    }
+
+    @Override
+    public void write(int value) throws IOException {
+        withDeadline(() -> {
+            out.write(value);
+            return 1;
+        });
+    }
+
+    @Override
+    public void write(byte[] data, int offset, int length) throws IOException {
+        withDeadline(() -> {
+            out.write(data, offset, length);
+            return length;
+        });
+    }
+
+    @Override
+    public void flush() throws IOException {
+        withDeadline(() -> {
+            out.flush();
+            return 0;
+        });
+    }
+
+    // Выполняет запись write в сокет и возвращает её результат, если запись не завершилась за срок - закрывает сокет
+    public long withDeadline(Write write) throws IOException {
+        if (timeout <= 0) {
+            return write.run();
+        }
+
+        ScheduledFuture<?> deadline = timer.schedule(this::expire, timeout, TimeUnit.MILLISECONDS);
+        try {
+            return write.run();
+        } catch (IOException e) {
+            if (expired) {
+                throw new IOException("Client has not read the response for " + timeout + " ms");
+            }
+            throw e;
+        } finally {
+            deadline.cancel(false);
+        }
+    }
+
+    // Обрывает соединение клиента, который не принял ответ за срок записи: закрытие сокета само по себе не будит поток,
+    // застрявший в transferTo, поэтому сначала запись в сокет прекращается, а неотправленные данные сбрасываются
+    private void expire() {
+        logger.warn("Client {} has not read the response for {} ms, closing connection", socket.getRemoteSocketAddress(), timeout);
+        expired = true;
+        try {
+            socket.setSoLinger(true, 0);
+            socket.shutdownOutput();
+        } catch (IOException e) {
+            // Соединение уже разорвано клиентом
+        }
+        try {
+            socket.close();
+        } catch (IOException e) {
+            // Соединение уже разорвано клиентом
+        }
+    }
+
+    private static ScheduledThreadPoolExecutor createTimer() {
+        ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1, task -> Thread.ofPlatform().name("socket-write-deadline").daemon().unstarted(task));
+        executor.setRemoveOnCancelPolicy(true);
+        return executor;
+    }
+}
@@ -1,15 +1,17 @@
 package com.energy.monitoring.handlers;
 
-import java.io.BufferedReader;
-import java.io.File;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
-import java.io.InputStreamReader;
+import java.io.InputStream;
 import java.io.OutputStream;
-import java.io.OutputStreamWriter;
-import java.io.PrintWriter;
 import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
 import java.nio.charset.StandardCharsets;
-import java.util.HashMap;
+import java.nio.file.StandardOpenOption;
 import java.util.Map;
 
 import org.slf4j.Logger;
@@ -21,84 +23,80 @@ import com.energy.monitoring.components.HttpConstructions.JsonBlocks;
 import com.energy.monitoring.components.HttpConstructions.Methods;
 import com.energy.monitoring.components.HttpStatusCodes;
 import com.energy.monitoring.components.JsonResponses;
+import com.energy.monitoring.config.Config;
+import com.energy.monitoring.config.ConfigKeys;
 import com.energy.monitoring.controllers.AuthController;
 import com.energy.monitoring.controllers.CoordinatorController;
 import com.energy.monitoring.controllers.MeterController;
+import com.energy.monitoring.metrics.MetricsRegistry;
+import com.energy.monitoring.metrics.RequestMetrics;
 import com.energy.monitoring.models.HttpRequest;
 import com.energy.monitoring.models.HttpResponse;
+import com.energy.monitoring.models.StreamingBody;
 
 /* Главный класс обработки http-запросов */
 public class HttpHandler implements Runnable {
     private static final Logger logger = LoggerFactory.getLogger(HttpHandler.class); // Объект Logger для текущего класса
+
+    private static final int KEEP_ALIVE_TIMEOUT      = Config.getInt(ConfigKeys.Server.KEEP_ALIVE_TIMEOUT);      // Таймаут простоя постоянного соединения между запросами
+    private static final int KEEP_ALIVE_MAX_REQUESTS = Config.getInt(ConfigKeys.Server.KEEP_ALIVE_MAX_REQUESTS); // Максимальное количество запросов в одном соединении
+    private static final int TRANSFER_PART           = 256 * 1024;                                               // Сколько байт файла передаётся за один вызов transferTo
+    private static final int RETRY_AFTER             = Config.getInt(ConfigKeys.Server.RETRY_AFTER);             // Через сколько секунд перегруженный сервер просит повторить запрос
+    private static final String HTTP_1_0             = "HTTP/1.0";
+    private static final String KEEP_ALIVE           = "keep-alive";
+    private static final String CLOSE                = "close";
+    private static final String GZIP                 = "gzip";
+    private static final Router ROUTER               = createRouter();                                           // Маршрутизатор конечных точек api
+
+    private static final RequestMetrics STATIC_METRICS  = MetricsRegistry.route(Methods.GET, "static");  // Задержки отдачи статических файлов
+    private static final RequestMetrics OPTIONS_METRICS = MetricsRegistry.route(Methods.OPTIONS, "*");   // Задержки ответов на предварительные запросы CORS
     
-    private final Socket clientSocket; // Сокет текущего клиента
+    private final Socket         clientSocket; // Сокет текущего клиента
+    private DeadlineOutputStream socketOutput; // Поток записи в сокет клиента со сроком на каждую запись
     
     // Записывает сокет socket текущего клиента
     public HttpHandler(Socket socket) {
         this.clientSocket = socket;
     }
     
-    // Отлавливает http-запросы, обрабатывает и отправляет на них ответ
+    // Отлавливает http-запросы, пока клиент держит соединение, обрабатывает и отправляет на них ответы в порядке поступления
     @Override
     public void run() {
-        try (BufferedReader reader = new BufferedReader(
-            new InputStreamReader(clientSocket.getInputStream(), StandardCharsets.UTF_8));
-            OutputStream output = clientSocket.getOutputStream();
-            PrintWriter  writer = new PrintWriter(
-            new OutputStreamWriter(output, StandardCharsets.UTF_8), true)) {
-            
-            String requestLine = reader.readLine();
-            if (requestLine == null) {
-                return;
-            }
-            
-            logger.info("Received HTTP-Request: {}", requestLine);
-            
-            String[] requestParts = requestLine.split(" ");
-            if (requestParts.length < 2) {
-                sendError(writer, HttpStatusCodes.BAD_REQUEST, "Bad Request");
-                return;
-            }
-            
-            String method = requestParts[0];
-            String path   = requestParts[1];
-            
-            Map<String, String> headers = new HashMap<>();
-            String line;
-            int contentLength = 0;
-            String origin     = null;
-            
-            while ((line = reader.readLine()) != null && !line.isEmpty()) {
-                String[] headerParts = line.split(":", 2);
-                if (headerParts.length == 2) {
-                    String headerName  = headerParts[0].trim().toLowerCase();
-                    String headerValue = headerParts[1].trim();
-                    headers.put(headerName, headerValue);
-                    
-                    if (headerName.equals(JsonBlocks.CONTENT_LENGTH)) {
-                        contentLength = Integer.parseInt(headerValue);
-                    } else
-                    if (headerName.equals(JsonBlocks.ORIG)) {
-                        origin = headerValue;
-                    }
+        HttpRequestDecoder decoder = new HttpRequestDecoder();
+        MetricsRegistry.connectionOpened();
+        try (InputStream  input  = clientSocket.getInputStream();
+             OutputStream output = new BufferedOutputStream(openOutput())) {
+
+            int clientTimeout   = clientSocket.getSoTimeout();
+            int handledRequests = 0;
+
+            while (true) {
+                HttpRequest request;
+                try {
+                    request = readRequest(input, decoder, clientTimeout, handledRequests > 0);
+                } catch (HttpRequestDecoder.DecodeException e) {
+                    sendError(output, e.getStatusCode(), e.getMessage());
+                    return;
+                }
+                if (request == null) {
+                    return;
+                }
+
+                logger.info("Received HTTP-Request: {} {}", request.getMethod(), request.getPath());
+
+                handledRequests++;
+                int remainingRequests = isKeepAliveRequested(request) ? Math.max(0, KEEP_ALIVE_MAX_REQUESTS - handledRequests) : 0;
+                HttpResponse response = frameStreamingBody(ResponseCompressor.compress(routeRequest(request), request), request);
+
+                if (!sendResponse(output, response, request.getHeaders().get(JsonBlocks.ORIG), remainingRequests) || remainingRequests == 0) {
+                    return;
                 }
             }
-            
-            String body = "";
-            if (contentLength > 0) {
-                char[] bodyChars = new char[contentLength];
-                reader.read(bodyChars, 0, contentLength);
-                body = new String(bodyChars);
-            }
-            
-            HttpRequest request   = new HttpRequest(method, path, headers, body);
-            HttpResponse response = routeRequest(request);
-            
-            sendResponse(writer, response, origin);
-            
         } catch (IOException e) {
             logger.error("Error handling request: {}", e.getMessage());
         } finally {
+            decoder.release();
+            MetricsRegistry.connectionClosed();
             try {
                 clientSocket.close();
             } catch (IOException e) {
@@ -106,66 +104,225 @@ public class HttpHandler implements Runnable {
             }
         }
     }
+
+    // Открывает поток записи в сокет клиента, каждая запись в который должна завершиться за таймаут клиента
+    private DeadlineOutputStream openOutput() throws IOException {
+        socketOutput = new DeadlineOutputStream(clientSocket, clientSocket.getSoTimeout());
+        return socketOutput;
+    }
+
+    // Возвращает очередной запрос соединения или null, если клиент закрыл соединение или простаивает дольше таймаута
+    private HttpRequest readRequest(InputStream input, HttpRequestDecoder decoder, int clientTimeout, boolean idle) throws IOException, HttpRequestDecoder.DecodeException {
+        HttpRequest request = decoder.next();
+        if (request != null) {
+            return request;
+        }
+
+        clientSocket.setSoTimeout(idle && !decoder.hasBufferedData() ? KEEP_ALIVE_TIMEOUT : clientTimeout);
+        while (true) {
+            int read;
+            try {
+                read = decoder.readFrom(input);
+            } catch (SocketTimeoutException e) {
+                return null;
+            }
+            if (read == -1) {
+                return null;
+            }
+            MetricsRegistry.addBytesIn(read);
+
+            clientSocket.setSoTimeout(clientTimeout);
+
+            request = decoder.next();
+            if (request != null) {
+                return request;
+            }
+        }
+    }
+
+    // Возвращает ответ 503 для запроса, отклонённого из-за перегрузки сервера
+    static HttpResponse serviceUnavailable() {
+        return new HttpResponse(HttpStatusCodes.SERVICE_UNAVAILABLE, "Service Unavailable", JsonResponses.formingUniversalResponse(false, "Server is busy"), ContentTypes.JSON)
+                   .withHeader("Retry-After", String.valueOf(RETRY_AFTER));
+    }
+
+    // Сразу отвечает 503 на соединение clientSocket, которое не поместилось в очередь обработчиков, и закрывает его
+    public static void rejectConnection(Socket clientSocket) {
+        try (Socket socket = clientSocket) {
+            HttpResponse response = serviceUnavailable();
+            OutputStream output   = socket.getOutputStream();
+            output.write(encodeResponseHead(response, null, 0));
+            output.write(response.getBody());
+            output.flush();
+        } catch (IOException e) {
+            logger.warn("Error rejecting client connection: {}", e.getMessage());
+        }
+    }
+
+    // Возвращает true, если клиент готов оставить соединение открытым после ответа на запрос request
+    static boolean isKeepAliveRequested(HttpRequest request) {
+        String connection = request.getHeaders().get(JsonBlocks.CONNECTION);
+        if (HTTP_1_0.equals(request.getVersion())) {
+            return connection != null && connection.equalsIgnoreCase(KEEP_ALIVE);
+        } else {
+            return connection == null || !connection.equalsIgnoreCase(CLOSE);
+        }
+    }
     
     // Перенаплавляет запрос request в другие обработчики
-    private HttpResponse routeRequest(HttpRequest request) {
+    static HttpResponse routeRequest(HttpRequest request) {
+        long   start  = System.nanoTime();
         String path   = request.getPath();
         String method = request.getMethod();
+        HttpResponse response;
+        RequestMetrics metrics;
         if (method.equals(Methods.OPTIONS)) {
-            return handleOptionsRequest();
+            response = handleOptionsRequest();
+            metrics  = OPTIONS_METRICS;
         } else
         if (method.equals(Methods.GET) && (path.equals(EndPoints.MAIN) || path.equals(EndPoints.MAIN_PAGE))) {
-            return serveStaticFile(EndPoints.MAIN_PAGE);
+            response = serveStaticFile(EndPoints.MAIN_PAGE, request);
+            metrics  = STATIC_METRICS;
         } else
         if (method.equals(Methods.GET) && !path.startsWith(EndPoints.API)) {
-            return serveStaticFile(path);
-        } else
-        if (path.startsWith(EndPoints.AUTH)) {
-            return AuthController.handleRequest(request);
-        } else 
-        if (path.equals(EndPoints.HEALTH)) {
-            return handleHealthCheck();
-        } else 
-        if (path.startsWith(EndPoints.COORDINATORS)) {
-            return CoordinatorController.handleRequest(request);
-        } if (path.startsWith(EndPoints.METER)) {
-            return MeterController.handleRequest(request);
+            response = serveStaticFile(path, request);
+            metrics  = STATIC_METRICS;
         } else {
-            return HttpResponse.notFound(JsonResponses.formingUniversalResponse(false, "Endpoint not found"));
+            return ROUTER.route(request);
         }
+
+        metrics.record(response.getStatusCode(), System.nanoTime() - start);
+        return response;
+    }
+
+    // Готовит потоковое тело ответа response к отправке: для HTTP/1.1 помечает его Transfer-Encoding: chunked,
+    // а клиентам HTTP/1.0, не знающим такой разметки, собирает тело в памяти и отправляет с Content-Length
+    static HttpResponse frameStreamingBody(HttpResponse response, HttpRequest request) {
+        if (!response.hasStreamingBody()) {
+            return response;
+        }
+        if (!HTTP_1_0.equals(request.getVersion())) {
+            return response.withHeader("Transfer-Encoding", "chunked");
+        }
+
+        try (StreamingBody body = response.getStreamingBody()) {
+            ByteArrayOutputStream buffer = new ByteArrayOutputStream(ChunkedOutputStream.CHUNK_SIZE);
+            body.writeTo(buffer);
+
+            HttpResponse result = new HttpResponse(response.getStatusCode(), response.getStatusMessage(), buffer.toByteArray(), response.getContentType());
+            result.getHeaders().putAll(response.getHeaders());
+            return result;
+        } catch (IOException e) {
+            logger.error("Error building response body: {}", e.getMessage());
+            return HttpResponse.error(HttpStatusCodes.INTERNAL_SERVER_ERROR, JsonResponses.formingUniversalResponse(false, "Internal server error"));
+        }
+    }
+
+    // Возвращает маршрутизатор со всеми конечными точками api
+    private static Router createRouter() {
+        Router router = new Router().add(Methods.GET, EndPoints.HEALTH, (request, params) -> handleHealthCheck())
+                                    .add(Methods.GET, EndPoints.METRICS, (request, params) -> handleMetrics());
+        AuthController.registerRoutes(router);
+        CoordinatorController.registerRoutes(router);
+        MeterController.registerRoutes(router);
+        return router;
     }
     
-    private HttpResponse handleHealthCheck() {
-        String json = JsonResponses.formingHealthCheckResponse(System.currentTimeMillis());
+    private static HttpResponse handleHealthCheck() {
+        byte[] json = JsonResponses.formingHealthCheckResponse(System.currentTimeMillis());
         
         return HttpResponse.ok(json, ContentTypes.JSON);
     }
     
-    private HttpResponse handleOptionsRequest() {
+    // Возвращает метрики сервера в текстовом формате Prometheus
+    private static HttpResponse handleMetrics() {
+        return HttpResponse.ok(MetricsRegistry.render(), ContentTypes.PROMETHEUS);
+    }
+
+    private static HttpResponse handleOptionsRequest() {
         return new HttpResponse(HttpStatusCodes.OK, "OK", new byte[0], ContentTypes.PLAIN);
     }
 
-    private HttpResponse serveStaticFile(String path) {
+    // Возвращает статический файл path из кэша: сжатый, если клиент принимает gzip, или 304, если у клиента актуальная версия
+    private static HttpResponse serveStaticFile(String path, HttpRequest request) {
         try {
-            String filePath = JsonBlocks.CLIENT + path;
-            File file       = new File(filePath);
-            
-            if (!file.exists() || file.isDirectory()) {
+            StaticFileCache.CachedFile file = StaticFileCache.get(path);
+            if (file == null) {
                 return HttpResponse.notFound("File not found: " + path);
             }
-            
-            String contentType = getContentType(filePath);
-            byte[] content = java.nio.file.Files.readAllBytes(file.toPath());
-            
-            return new HttpResponse(HttpStatusCodes.OK, "OK", content, contentType);
+
+            String  contentType = getContentType(path);
+            boolean gzip        = file.hasGzipped() && acceptsEncoding(request.getHeaders().get(JsonBlocks.ACCEPT_ENC), GZIP);
+            String  etag        = gzip ? file.getGzippedEtag() : file.getEtag();
+
+            HttpResponse response;
+            if (matchesEtag(request.getHeaders().get(JsonBlocks.IF_NONE_MATCH), etag)) {
+                response = HttpResponse.notModified(contentType);
+            } else
+            if (!file.isInMemory()) {
+                response = new HttpResponse(HttpStatusCodes.OK, "OK", file.getPath(), file.getSize(), contentType);
+            } else
+            if (gzip) {
+                response = new HttpResponse(HttpStatusCodes.OK, "OK", file.getGzipped(), contentType).withHeader("Content-Encoding", GZIP);
+            } else {
+                response = new HttpResponse(HttpStatusCodes.OK, "OK", file.getContent(), contentType);
+            }
+
+            response.withHeader("ETag", etag).withHeader("Cache-Control", "no-cache");
+            if (file.hasGzipped()) {
+                response.withHeader("Vary", "Accept-Encoding");
+            }
+            return response;
             
         } catch (IOException e) {
             logger.error("Error serving static file {}: {}",path, e.getMessage());
             return HttpResponse.error(HttpStatusCodes.INTERNAL_SERVER_ERROR, "Internal server error");
         }
     }
+
+    // Возвращает true, если заголовок Accept-Encoding со значением acceptEncoding разрешает кодирование coding
+    static boolean acceptsEncoding(String acceptEncoding, String coding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+
+        for (String part : acceptEncoding.split(",")) {
+            String[] parameters = part.split(";");
+            String   name       = parameters[0].trim();
+            if (!name.equalsIgnoreCase(coding) && !name.equals("*")) {
+                continue;
+            }
+
+            for (int i = 1; i < parameters.length; i++) {
+                String parameter = parameters[i].trim();
+                if (parameter.startsWith("q=") && parameter.substring(2).matches("0(\\.0*)?")) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        return false;
+    }
+
+    // Возвращает true, если заголовок If-None-Match со значением ifNoneMatch содержит ETag etag
+    private static boolean matchesEtag(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+
+        for (String candidate : ifNoneMatch.split(",")) {
+            candidate = candidate.trim();
+            if (candidate.startsWith("W/")) {
+                candidate = candidate.substring(2);
+            }
+            if (candidate.equals("*") || candidate.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
     
-    private String getContentType(String filePath) {
+    private static String getContentType(String filePath) {
         if (filePath.endsWith(".html")) {
             return ContentTypes.HTML;
         }else
@@ -194,42 +351,90 @@ public class HttpHandler implements Runnable {
         }
     }
     
-    // Формирует и тправляет http-ответ 
-    private void sendResponse(PrintWriter writer, HttpResponse response, String origin) {
-        writer.printf("HTTP/1.1 %d %s\r\n",     response.getStatusCode(), response.getStatusMessage());
-        writer.printf("Content-Type: %s\r\n",   response.getContentType());
-        writer.printf("Content-Length: %d\r\n", response.getBody().length);
-        
+    // Формирует и тправляет http-ответ, возвращает false, если отправить его не удалось
+    private boolean sendResponse(OutputStream output, HttpResponse response, String origin, int remainingRequests) {
+        try (StreamingBody stream = response.getStreamingBody()) {
+            byte[] head = encodeResponseHead(response, origin, remainingRequests);
+            output.write(head);
+            if (stream != null) {
+                ChunkedOutputStream chunked = new ChunkedOutputStream(output);
+                stream.writeTo(chunked);
+                chunked.finish();
+                MetricsRegistry.addBytesOut(head.length + chunked.getBytesWritten());
+                return true;
+            }
+
+            if (response.hasFileBody()) {
+                output.flush();
+                transferFile(response, output);
+            } else {
+                output.write(response.getBody());
+            }
+            output.flush();
+            MetricsRegistry.addBytesOut(head.length + response.getContentLength());
+            return true;
+        } catch (IOException | RuntimeException e) {
+            logger.error("Error writing response: {}", e.getMessage());
+            return false;
+        }
+    }
+
+    // Передаёт в сокет файл-тело ответа response через FileChannel.transferTo, не копируя его содержимое в память,
+    // файл уходит частями, чтобы срок записи ограничивал простой клиента, а не время передачи всего файла
+    private void transferFile(HttpResponse response, OutputStream output) throws IOException {
+        WritableByteChannel target = clientSocket.getChannel() != null ? clientSocket.getChannel() : Channels.newChannel(output);
+        try (FileChannel file = FileChannel.open(response.getFile(), StandardOpenOption.READ)) {
+            long position = 0;
+            long length   = response.getContentLength();
+            while (position < length) {
+                long from = position;
+                long sent = socketOutput.withDeadline(() -> file.transferTo(from, Math.min(length - from, TRANSFER_PART), target));
+                if (sent <= 0 && position >= file.size()) {
+                    throw new IOException("File " + response.getFile() + " was truncated while sending");
+                }
+                position += sent;
+            }
+        }
+    }
+
+    // Возвращает стартовую строку и заголовки http-ответа response в виде набора байт, remainingRequests - сколько ещё запросов
+    // примет соединение после этого ответа, 0 - соединение закрывается
+    static byte[] encodeResponseHead(HttpResponse response, String origin, int remainingRequests) {
+        StringBuilder head = new StringBuilder(512);
+        head.append("HTTP/1.1 ").append(response.getStatusCode()).append(' ').append(response.getStatusMessage()).append("\r\n");
+        head.append("Content-Type: ").append(response.getContentType()).append("\r\n");
+        if (response.getStatusCode() != HttpStatusCodes.NOT_MODIFIED && !response.hasStreamingBody()) {
+            head.append("Content-Length: ").append(response.getContentLength()).append("\r\n");
+        }
+        for (Map.Entry<String, String> header : response.getHeaders().entrySet()) {
+            head.append(header.getKey()).append(": ").append(header.getValue()).append("\r\n");
+        }
+
         if (origin == null || origin.isEmpty()) {
-            writer.println("Access-Control-Allow-Origin: *");
-            writer.println("Access-Control-Allow-Credentials: false");
+            head.append("Access-Control-Allow-Origin: *\r\n");
+            head.append("Access-Control-Allow-Credentials: false\r\n");
         } else {
-            writer.println("Access-Control-Allow-Origin: " + origin);
-            writer.println("Access-Control-Allow-Credentials: true");
+            head.append("Access-Control-Allow-Origin: ").append(origin).append("\r\n");
+            head.append("Access-Control-Allow-Credentials: true\r\n");
         }
-        
-        writer.println("Access-Control-Allow-Methods: GET, POST, PUT, DELETE, OPTIONS");
-        writer.println("Access-Control-Allow-Headers: Content-Type, Authorization, X-Requested-With");
-        writer.println("Access-Control-Max-Age: 86400");
-        writer.println("Connection: close");
-        writer.println();
-        writer.flush();
-        
-        try {
-            clientSocket.getOutputStream().write(response.getBody());
-        } catch (IOException e) {
-            logger.error("Error writing response body: ", e.getMessage());
+
+        head.append("Access-Control-Allow-Methods: GET, POST, PUT, DELETE, OPTIONS\r\n");
+        head.append("Access-Control-Allow-Headers: Content-Type, Authorization, X-Requested-With\r\n");
+        head.append("Access-Control-Max-Age: 86400\r\n");
+        if (remainingRequests > 0) {
+            head.append("Connection: keep-alive\r\n");
+            head.append("Keep-Alive: timeout=").append(KEEP_ALIVE_TIMEOUT / 1000).append(", max=").append(remainingRequests).append("\r\n");
+        } else {
+            head.append("Connection: close\r\n");
         }
+        head.append("\r\n");
+
+        return head.toString().getBytes(StandardCharsets.UTF_8);
     }
     
     // Формирует и отправляет http-ответ с ошибкой
-    private void sendError(PrintWriter writer, int statusCode, String message) {
-        writer.printf ("HTTP/1.1 %d %s\r\n", statusCode, message);
-        writer.println("Content-Type: text/plain; charset=utf-8");
-        writer.println("Access-Control-Allow-Origin: *");
-        writer.println("Connection: close");
-        writer.println();
-        writer.println(message);
-        writer.flush();
+    private void sendError(OutputStream output, int statusCode, String message) {
+        HttpResponse response = new HttpResponse(statusCode, message, message, ContentTypes.PLAIN);
+        sendResponse(output, response, null, 0);
     }
 }
\ No newline at end of file
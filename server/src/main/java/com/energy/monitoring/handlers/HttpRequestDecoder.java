@@ -0,0 +1,317 @@
+package com.energy.monitoring.handlers;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import com.energy.monitoring.components.HttpConstructions.JsonBlocks;
+import com.energy.monitoring.components.HttpConstructions.Methods;
+import com.energy.monitoring.components.HttpStatusCodes;
+import com.energy.monitoring.models.HttpHeaders;
+import com.energy.monitoring.models.HttpRequest;
+
+/* Пошаговый разборщик http-запросов, работающий прямо над байтами соединения в буфере из общего пула */
+public class HttpRequestDecoder {
+    private static final int MAX_HEADER_SIZE = 8192;        // Максимальный размер стартовой строки и заголовков
+    private static final int MAX_BODY_SIZE   = 1024 * 1024; // Максимальный размер тела запроса
+    private static final int MAX_HEADERS     = 64;          // Максимальное количество заголовков
+
+    private static final ByteBufferPool BUFFER_POOL = new ByteBufferPool(MAX_HEADER_SIZE, 1024); // Общий пул буферов чтения
+
+    private static final byte[]   CONTENT_LENGTH = JsonBlocks.CONTENT_LENGTH.getBytes(StandardCharsets.US_ASCII);
+    private static final byte[]   TRANSFER_ENC   = JsonBlocks.TRANSFER_ENC.getBytes(StandardCharsets.US_ASCII);
+    private static final String   HTTP_1_1       = "HTTP/1.1";
+    private static final String   HTTP_1_0       = "HTTP/1.0";
+    private static final String[] KNOWN_METHODS  = { Methods.GET, Methods.POST, Methods.PUT, Methods.DELETE, Methods.OPTIONS };
+    private static final String[] KNOWN_VERSIONS = { HTTP_1_1, HTTP_1_0 };
+
+    private ByteBuffer  buffer;        // Накопленные, но ещё не разобранные байты в промежутке [0, position)
+    private int         scanned;       // Сколько байт уже просмотрено в поисках конца заголовков
+    private int         headerEnd;     // Позиция конца заголовков текущего запроса, пока они не разобраны - -1
+    private String      method;        // Метод текущего запроса
+    private String      path;          // Путь текущего запроса
+    private String      version;       // Версия протокола текущего запроса
+    private HttpHeaders headers;       // Заголовки текущего запроса
+    private int         contentLength; // Длина тела текущего запроса
+
+    /* Ошибка разбора запроса со статус-кодом для ответа клиенту */
+    public static class DecodeException extends Exception {
+        private static final long serialVersionUID = 1L;
+
+        private final int statusCode; // Статус-код ответа клиенту
+
+        public DecodeException(int statusCode, String message) {
+            super(message);
+            this.statusCode = statusCode;
+        }
+
+        public int getStatusCode() {
+            return statusCode;
+        }
+    }
+
+    public HttpRequestDecoder() {
+        this.headerEnd = -1;
+    }
+
+    // Дочитывает в буфер доступные байты канала channel, возвращает их количество или -1, если канал закрыт
+    public int readFrom(ReadableByteChannel channel) throws IOException {
+        return channel.read(writableBuffer());
+    }
+
+    // Дочитывает в буфер доступные байты потока input, возвращает их количество или -1, если поток закрыт
+    public int readFrom(InputStream input) throws IOException {
+        ByteBuffer target = writableBuffer();
+        int read = input.read(target.array(), target.arrayOffset() + target.position(), target.remaining());
+        if (read > 0) {
+            target.position(target.position() + read);
+        }
+        return read;
+    }
+
+    // Возвращает true, если в буфере есть байты, ещё не собранные в запрос
+    public boolean hasBufferedData() {
+        return buffer != null && buffer.position() > 0;
+    }
+
+    // Возвращает буфер в общий пул, вызывается при закрытии соединения
+    public void release() {
+        BUFFER_POOL.release(buffer);
+        buffer = null;
+    }
+
+    // Возвращает очередной полностью принятый запрос, если его байты ещё не пришли целиком - null
+    public HttpRequest next() throws DecodeException {
+        if (buffer == null) {
+            return null;
+        }
+
+        byte[] data   = buffer.array();
+        int    length = buffer.position();
+
+        if (headerEnd == -1) {
+            int end = findHeaderEnd(data, length);
+            if (end == -1) {
+                if (length >= MAX_HEADER_SIZE) {
+                    throw new DecodeException(HttpStatusCodes.REQUEST_HEADER_FIELDS_TOO_LARGE, "Request Header Fields Too Large");
+                }
+                return null;
+            }
+            parseHead(data, end);
+            headerEnd = end;
+        }
+
+        int bodyStart = headerEnd + 4;
+        if (length - bodyStart < contentLength) {
+            return null;
+        }
+
+        byte[] body = Arrays.copyOfRange(data, bodyStart, bodyStart + contentLength);
+        HttpRequest request = new HttpRequest(method, path, version, headers, body);
+
+        consume(bodyStart + contentLength);
+        return request;
+    }
+
+    // Возвращает буфер со свободным местом для чтения: берёт его из пула или расширяет под тело текущего запроса
+    private ByteBuffer writableBuffer() {
+        if (buffer == null) {
+            buffer = BUFFER_POOL.acquire();
+        } else
+        if (!buffer.hasRemaining()) {
+            int required = headerEnd == -1 ? buffer.capacity() * 2 : headerEnd + 4 + contentLength;
+            ByteBuffer grown = ByteBuffer.allocate(Math.max(required, buffer.capacity() + 1));
+            buffer.flip();
+            grown.put(buffer);
+            BUFFER_POOL.release(buffer);
+            buffer = grown;
+        }
+        return buffer;
+    }
+
+    // Возвращает позицию начала последовательности \r\n\r\n, продолжая поиск с места предыдущего вызова, если её нет - -1
+    private int findHeaderEnd(byte[] data, int length) {
+        for (int i = Math.max(0, scanned - 3); i + 3 < length; i++) {
+            if (data[i] == '\r' && data[i + 1] == '\n' && data[i + 2] == '\r' && data[i + 3] == '\n') {
+                return i;
+            }
+        }
+        scanned = length;
+        return -1;
+    }
+
+    // Разбирает стартовую строку и заголовки, занимающие байты [0, end) массива data
+    private void parseHead(byte[] data, int end) throws DecodeException {
+        int lineEnd = indexOf(data, 0, end, (byte) '\r');
+        if (lineEnd == -1) {
+            lineEnd = end;
+        }
+
+        int methodEnd = indexOf(data, 0, lineEnd, (byte) ' ');
+        if (methodEnd <= 0) {
+            throw new DecodeException(HttpStatusCodes.BAD_REQUEST, "Bad Request");
+        }
+        int pathEnd = indexOf(data, methodEnd + 1, lineEnd, (byte) ' ');
+
+        method  = matchToken(data, 0, methodEnd, KNOWN_METHODS);
+        path    = new String(data, methodEnd + 1, (pathEnd == -1 ? lineEnd : pathEnd) - methodEnd - 1, StandardCharsets.ISO_8859_1);
+        version = pathEnd == -1 ? HTTP_1_0 : matchToken(data, pathEnd + 1, lineEnd, KNOWN_VERSIONS);
+
+        byte[] raw    = Arrays.copyOfRange(data, Math.min(lineEnd + 2, end), end);
+        int[]  bounds = new int[4 * 8];
+        int    count  = 0;
+
+        contentLength = -1;
+        int lineStart = 0;
+        while (lineStart < raw.length) {
+            int nextLine = indexOf(raw, lineStart, raw.length, (byte) '\r');
+            if (nextLine == -1) {
+                nextLine = raw.length;
+            }
+
+            int colon = indexOf(raw, lineStart, nextLine, (byte) ':');
+            if (colon > lineStart) {
+                if (count == MAX_HEADERS) {
+                    throw new DecodeException(HttpStatusCodes.REQUEST_HEADER_FIELDS_TOO_LARGE, "Request Header Fields Too Large");
+                }
+                if (4 * count == bounds.length) {
+                    bounds = Arrays.copyOf(bounds, bounds.length * 2);
+                }
+
+                int nameStart  = skipSpaces(raw, lineStart, colon);
+                int nameEnd    = trimSpaces(raw, nameStart, colon);
+                int valueStart = skipSpaces(raw, colon + 1, nextLine);
+                int valueEnd   = trimSpaces(raw, valueStart, nextLine);
+
+                bounds[4 * count]     = nameStart;
+                bounds[4 * count + 1] = nameEnd;
+                bounds[4 * count + 2] = valueStart;
+                bounds[4 * count + 3] = valueEnd;
+                count++;
+
+                // Тело определяется только одним значением Content-Length: иначе прокси и сервер могут по-разному увидеть границу
+                // запроса, и остаток тела будет разобран как следующий запрос того же соединения
+                if (equalsIgnoreCase(raw, nameStart, nameEnd, TRANSFER_ENC)) {
+                    throw new DecodeException(HttpStatusCodes.NOT_IMPLEMENTED, "Transfer-Encoding Not Implemented");
+                }
+                if (equalsIgnoreCase(raw, nameStart, nameEnd, CONTENT_LENGTH)) {
+                    int value = parseContentLength(raw, valueStart, valueEnd);
+                    if (contentLength != -1 && contentLength != value) {
+                        throw new DecodeException(HttpStatusCodes.BAD_REQUEST, "Conflicting Content-Length");
+                    }
+                    contentLength = value;
+                }
+            }
+
+            lineStart = nextLine + 2;
+        }
+        if (contentLength == -1) {
+            contentLength = 0;
+        }
+
+        headers = new HttpHeaders(raw, bounds, count);
+    }
+
+    // Возвращает значение заголовка Content-Length из байт [from, to) массива data
+    private static int parseContentLength(byte[] data, int from, int to) throws DecodeException {
+        if (from == to) {
+            throw new DecodeException(HttpStatusCodes.BAD_REQUEST, "Bad Request");
+        }
+
+        long value = 0;
+        for (int i = from; i < to; i++) {
+            byte digit = data[i];
+            if (digit < '0' || digit > '9') {
+                throw new DecodeException(HttpStatusCodes.BAD_REQUEST, "Bad Request");
+            }
+            value = value * 10 + (digit - '0');
+            if (value > MAX_BODY_SIZE) {
+                throw new DecodeException(HttpStatusCodes.PAYLOAD_TOO_LARGE, "Payload Too Large");
+            }
+        }
+        return (int) value;
+    }
+
+    // Возвращает константу из known, совпадающую с байтами [from, to) массива data, если такой нет - новую строку из этих байт
+    private static String matchToken(byte[] data, int from, int to, String[] known) {
+        for (String token : known) {
+            if (token.length() != to - from) {
+                continue;
+            }
+
+            boolean equal = true;
+            for (int i = 0; i < token.length() && equal; i++) {
+                equal = data[from + i] == token.charAt(i);
+            }
+            if (equal) {
+                return token;
+            }
+        }
+        return new String(data, from, to - from, StandardCharsets.ISO_8859_1);
+    }
+
+    // Возвращает true, если байты [from, to) массива data без учёта регистра совпадают с именем name в нижнем регистре
+    private static boolean equalsIgnoreCase(byte[] data, int from, int to, byte[] name) {
+        if (to - from != name.length) {
+            return false;
+        }
+        for (int i = 0; i < name.length; i++) {
+            byte symbol = data[from + i];
+            if (symbol >= 'A' && symbol <= 'Z') {
+                symbol += 'a' - 'A';
+            }
+            if (symbol != name[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Возвращает позицию первого байта value в промежутке [from, to) массива data, если его нет - -1
+    private static int indexOf(byte[] data, int from, int to, byte value) {
+        for (int i = from; i < to; i++) {
+            if (data[i] == value) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    // Возвращает позицию первого непробельного байта в промежутке [from, to)
+    private static int skipSpaces(byte[] data, int from, int to) {
+        while (from < to && (data[from] == ' ' || data[from] == '\t')) {
+            from++;
+        }
+        return from;
+    }
+
+    // Возвращает позицию после последнего непробельного байта в промежутке [from, to)
+    private static int trimSpaces(byte[] data, int from, int to) {
+        while (to > from && (data[to - 1] == ' ' || data[to - 1] == '\t')) {
+            to--;
+        }
+        return to;
+    }
+
+    // Удаляет из буфера count первых байт и сбрасывает состояние разобранного запроса, опустевший буфер возвращается в пул
+    private void consume(int count) {
+        int remaining = buffer.position() - count;
+        if (remaining == 0) {
+            release();
+        } else {
+            byte[] data = buffer.array();
+            System.arraycopy(data, count, data, 0, remaining);
+            buffer.position(remaining);
+        }
+
+        scanned   = 0;
+        headerEnd = -1;
+        method    = null;
+        path      = null;
+        version   = null;
+        headers   = null;
+    }
+}
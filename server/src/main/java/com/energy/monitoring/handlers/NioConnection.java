@@ -0,0 +1,276 @@
+package com.energy.monitoring.handlers;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayDeque;
+
+import com.energy.monitoring.metrics.MetricsRegistry;
+
+/* Состояние одного клиентского соединения неблокирующего движка */
+public class NioConnection {
+    private static final int MAX_STREAM_QUEUED = 64 * 1024; // Сколько байт потокового ответа может ждать записи, пока обработчик не остановится
+    private static final int MAX_GATHER        = 16;        // Сколько порций потокового ответа записывается за один вызов write
+
+    private final SocketChannel          channel;         // Канал клиента
+    private final SelectionKey           key;             // Ключ регистрации канала в селекторе цикла событий
+    private final HttpRequestDecoder     decoder;         // Разборщик входящих запросов
+    private final ArrayDeque<ByteBuffer> streamParts;     // Порции потокового ответа, ожидающие записи, доступ под монитором соединения
+    private final long                   writeTimeout;    // Сколько мс запись ответа может не продвигаться, прежде чем клиент считается зависшим
+
+    private volatile ByteBuffer[]        output;          // Ещё не записанные в канал части ответа
+    private          FileChannel         file;            // Файл-тело ответа, передаваемый после частей output
+    private          long                filePosition;    // Сколько байт файла уже передано
+    private          long                fileLength;      // Сколько байт файла нужно передать
+    private volatile boolean             closeAfterWrite; // Закрыть ли соединение после отправки ответа
+    private          boolean             requestInFlight; // Обрабатывается ли сейчас запрос этого соединения
+    private          int                 handledRequests; // Количество запросов, принятых соединением
+    private volatile long                lastActivity;    // Время последней активности соединения: приёма, записи или постановки ответа в очередь, в мс
+    private volatile boolean             closed;          // Закрыто ли соединение
+    private volatile boolean             streaming;       // Пишется ли сейчас потоковый ответ
+    private          long                streamQueued;    // Сколько байт в streamParts
+    private          boolean             streamFinished;  // Передал ли обработчик все порции потокового ответа
+
+    public NioConnection(SocketChannel channel, SelectionKey key, long writeTimeout) {
+        this.channel         = channel;
+        this.key             = key;
+        this.writeTimeout    = writeTimeout;
+        this.decoder         = new HttpRequestDecoder();
+        this.requestInFlight = false;
+        this.lastActivity    = System.currentTimeMillis();
+        this.streamParts     = new ArrayDeque<>();
+        MetricsRegistry.connectionOpened();
+    }
+
+    public SocketChannel getChannel() {
+        return channel;
+    }
+
+    public SelectionKey getKey() {
+        return key;
+    }
+
+    public HttpRequestDecoder getDecoder() {
+        return decoder;
+    }
+
+    public boolean isRequestInFlight() {
+        return requestInFlight;
+    }
+
+    public void setRequestInFlight(boolean newRequestInFlight) {
+        requestInFlight = newRequestInFlight;
+    }
+
+    public int getHandledRequests() {
+        return handledRequests;
+    }
+
+    // Учитывает очередной принятый соединением запрос и возвращает их общее количество
+    public int countRequest() {
+        return ++handledRequests;
+    }
+
+    public boolean isCloseAfterWrite() {
+        return closeAfterWrite;
+    }
+
+    public long getLastActivity() {
+        return lastActivity;
+    }
+
+    // Отмечает соединение как активное в текущий момент
+    public void touch() {
+        lastActivity = System.currentTimeMillis();
+    }
+
+    // Ставит в очередь на запись ответ из частей parts, после записи соединение закроется, если close - true
+    public void setOutput(ByteBuffer[] parts, boolean close) {
+        setOutput(parts, null, 0, close);
+    }
+
+    // Ставит в очередь на запись ответ из частей parts и первых length байт файла file
+    public void setOutput(ByteBuffer[] parts, FileChannel file, long length, boolean close) {
+        this.file         = file;
+        this.filePosition = 0;
+        this.fileLength   = length;
+        closeAfterWrite   = close;
+        output            = parts;
+        touch();
+    }
+
+    // Начинает потоковый ответ с заголовками head, дальше его порции передаются методом offerStreamPart
+    public synchronized void startStream(ByteBuffer head, boolean close) {
+        streamParts.add(head);
+        streamQueued    = head.remaining();
+        streamFinished  = false;
+        streaming       = true;
+        closeAfterWrite = close;
+        output          = new ByteBuffer[0];
+        touch();
+    }
+
+    // Ставит порцию part потокового ответа в очередь записи, пока очередь переполнена - ждёт, когда цикл событий её разгрузит,
+    // если клиент дольше writeTimeout не принял ни байта, запись прерывается, а само соединение закроет цикл событий
+    public synchronized void offerStreamPart(ByteBuffer part) throws IOException {
+        try {
+            while (streamQueued >= MAX_STREAM_QUEUED && !closed) {
+                long stalled = System.currentTimeMillis() - lastActivity;
+                if (stalled >= writeTimeout) {
+                    throw new IOException("Client has not read the response for " + stalled + " ms");
+                }
+                wait(writeTimeout - stalled);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for a slow client");
+        }
+        if (closed) {
+            throw new IOException("Connection closed by client");
+        }
+
+        streamParts.add(part);
+        streamQueued += part.remaining();
+    }
+
+    // Отмечает, что все порции потокового ответа переданы, если complete - false, тело оборвано и соединение закроется после записи
+    public synchronized void finishStream(boolean complete) {
+        streamFinished = true;
+        if (!complete) {
+            closeAfterWrite = true;
+        }
+    }
+
+    // Возвращает true, если все переданные порции потокового ответа записаны и цикл ждёт от обработчика следующих
+    public synchronized boolean isWaitingForStream() {
+        return streaming && streamParts.isEmpty() && !streamFinished;
+    }
+
+    // Возвращает true, если есть ответ, ожидающий записи
+    public boolean hasOutput() {
+        return output != null;
+    }
+
+    // Пишет в канал сколько получится из ожидающего ответа, возвращает true, если ответ записан полностью
+    public boolean writeOutput() throws IOException {
+        ByteBuffer[] parts = output;
+        if (parts == null) {
+            return true;
+        }
+        if (streaming) {
+            return writeStream();
+        }
+
+        if (hasRemaining(parts)) {
+            countWritten(channel.write(parts));
+            if (hasRemaining(parts)) {
+                return false;
+            }
+        }
+
+        if (file != null) {
+            while (filePosition < fileLength) {
+                long sent = file.transferTo(filePosition, fileLength - filePosition, channel);
+                if (sent <= 0) {
+                    if (filePosition >= file.size()) {
+                        throw new IOException("File was truncated while sending");
+                    }
+                    return false;
+                }
+                filePosition += sent;
+                countWritten(sent);
+            }
+            closeFile();
+        }
+
+        output = null;
+        return true;
+    }
+
+    // Пишет в канал сколько получится из очереди потокового ответа, возвращает true, если ответ записан полностью
+    private boolean writeStream() throws IOException {
+        while (true) {
+            ByteBuffer[] parts;
+            synchronized (this) {
+                if (streamParts.isEmpty()) {
+                    if (!streamFinished) {
+                        return false;
+                    }
+                    streaming = false;
+                    output    = null;
+                    return true;
+                }
+                parts = streamParts.stream().limit(MAX_GATHER).toArray(ByteBuffer[]::new);
+            }
+
+            long written = channel.write(parts);
+            countWritten(written);
+
+            synchronized (this) {
+                while (!streamParts.isEmpty() && !streamParts.peekFirst().hasRemaining()) {
+                    streamParts.pollFirst();
+                }
+                streamQueued -= written;
+                notifyAll();
+            }
+            if (hasRemaining(parts)) {
+                return false;
+            }
+        }
+    }
+
+    // Учитывает written байт, записанных в канал, запись хотя бы одного байта считается активностью клиента
+    private void countWritten(long written) {
+        if (written > 0) {
+            MetricsRegistry.addBytesOut(written);
+            touch();
+        }
+    }
+
+    // Возвращает true, если в частях parts остались незаписанные байты
+    private static boolean hasRemaining(ByteBuffer[] parts) {
+        for (ByteBuffer part : parts) {
+            if (part.hasRemaining()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Закрывает файл-тело ответа, если он есть
+    private void closeFile() {
+        if (file == null) {
+            return;
+        }
+        try {
+            file.close();
+        } catch (IOException e) {
+            // Файл открыт только на чтение
+        }
+        file = null;
+    }
+
+    // Закрывает соединение и возвращает буфер разборщика в пул
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        MetricsRegistry.connectionClosed();
+        synchronized (this) {
+            streamParts.clear();
+            notifyAll();
+        }
+
+        key.cancel();
+        decoder.release();
+        closeFile();
+        try {
+            channel.close();
+        } catch (IOException e) {
+            // Соединение уже разорвано клиентом
+        }
+    }
+}
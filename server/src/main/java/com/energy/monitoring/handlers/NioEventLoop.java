@@ -0,0 +1,323 @@
+package com.energy.monitoring.handlers;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.energy.monitoring.components.HttpConstructions.JsonBlocks;
+import com.energy.monitoring.components.HttpStatusCodes;
+import com.energy.monitoring.components.JsonResponses;
+import com.energy.monitoring.metrics.MetricsRegistry;
+import com.energy.monitoring.models.HttpRequest;
+import com.energy.monitoring.models.HttpResponse;
+import com.energy.monitoring.models.StreamingBody;
+
+/* Цикл событий неблокирующего движка: читает и разбирает запросы своих соединений, а готовые запросы передаёт в пул обработчиков */
+public class NioEventLoop implements Runnable {
+    private static final Logger logger = LoggerFactory.getLogger(NioEventLoop.class); // Объект Logger для текущего класса
+
+    private static final int SELECT_TIMEOUT = 1000; // Период проверки простаивающих соединений в миллисекундах
+
+    private final String                       name;                                       // Имя потока цикла
+    private final Selector                     selector;                                   // Селектор каналов этого цикла
+    private final Executor                     workers;                                    // Пул, в котором выполняются контроллеры
+    private final int                          idleTimeout;                                // Таймаут ожидания клиента: запроса в новом соединении или чтения ответа, в мс
+    private final int                          keepAliveTimeout;                           // Таймаут простоя постоянного соединения между запросами
+    private final int                          keepAliveMaxRequests;                       // Максимальное количество запросов в одном соединении
+    private final Queue<SocketChannel>         newChannels  = new ConcurrentLinkedQueue<>(); // Принятые, но ещё не зарегистрированные каналы
+    private final Queue<NioConnection>         readyToWrite = new ConcurrentLinkedQueue<>(); // Соединения с готовыми ответами
+    private Thread                             thread;                                     // Поток цикла, создаётся при запуске
+    private volatile boolean                   isRunning;
+    private long                               lastIdleCheck;                              // Время последней проверки простаивающих соединений в миллисекундах
+
+    public NioEventLoop(String name, Executor workers, int idleTimeout, int keepAliveTimeout, int keepAliveMaxRequests) throws IOException {
+        this.name                 = name;
+        this.selector             = Selector.open();
+        this.workers              = workers;
+        this.idleTimeout          = idleTimeout;
+        this.keepAliveTimeout     = keepAliveTimeout;
+        this.keepAliveMaxRequests = keepAliveMaxRequests;
+        this.isRunning            = false;
+    }
+
+    // Запускает поток цикла событий
+    public void start() {
+        isRunning = true;
+        thread    = new Thread(this, name);
+        thread.start();
+    }
+
+    // Останавливает цикл событий и закрывает все его соединения
+    public void shutdown() {
+        isRunning = false;
+        selector.wakeup();
+        if (thread == null) {
+            return;
+        }
+        try {
+            thread.join(SELECT_TIMEOUT);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // Передаёт циклу принятый канал channel
+    public void register(SocketChannel channel) {
+        newChannels.add(channel);
+        selector.wakeup();
+    }
+
+    @Override
+    public void run() {
+        try {
+            while (isRunning) {
+                selector.select(SELECT_TIMEOUT);
+
+                registerNewChannels();
+                flushReadyConnections();
+
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+
+                    NioConnection connection = (NioConnection) key.attachment();
+                    if (!key.isValid()) {
+                        continue;
+                    }
+                    if (key.isReadable()) {
+                        read(connection);
+                    } else
+                    if (key.isWritable()) {
+                        write(connection);
+                    }
+                }
+
+                closeIdleConnections();
+            }
+        } catch (IOException e) {
+            logger.error("Event loop {} failed: {}", name, e.getMessage());
+        } finally {
+            for (SelectionKey key : selector.keys()) {
+                NioConnection connection = (NioConnection) key.attachment();
+                if (connection != null) {
+                    connection.close();
+                }
+            }
+            try {
+                selector.close();
+            } catch (IOException e) {
+                logger.warn("Error closing selector: {}", e.getMessage());
+            }
+        }
+    }
+
+    // Регистрирует в селекторе все каналы, принятые с прошлой итерации
+    private void registerNewChannels() {
+        SocketChannel channel;
+        while ((channel = newChannels.poll()) != null) {
+            try {
+                channel.configureBlocking(false);
+                SelectionKey key = channel.register(selector, SelectionKey.OP_READ);
+                key.attach(new NioConnection(channel, key, idleTimeout));
+            } catch (IOException e) {
+                logger.warn("Error registering client channel: {}", e.getMessage());
+                try {
+                    channel.close();
+                } catch (IOException ignored) {
+                    // Канал уже закрыт
+                }
+            }
+        }
+    }
+
+    // Начинает запись ответов, подготовленных пулом обработчиков
+    private void flushReadyConnections() {
+        NioConnection connection;
+        while ((connection = readyToWrite.poll()) != null) {
+            if (connection.getKey().isValid()) {
+                write(connection);
+            }
+        }
+    }
+
+    // Читает доступные байты соединения connection и, если запрос принят целиком, передаёт его обработчикам
+    private void read(NioConnection connection) {
+        try {
+            int read = connection.getDecoder().readFrom(connection.getChannel());
+            if (read == -1) {
+                connection.close();
+                return;
+            }
+
+            MetricsRegistry.addBytesIn(read);
+            connection.touch();
+
+            dispatchNext(connection);
+        } catch (IOException e) {
+            logger.warn("Error reading client channel: {}", e.getMessage());
+            connection.close();
+        }
+    }
+
+    // Передаёт следующий полностью принятый запрос соединения connection в пул обработчиков
+    private void dispatchNext(NioConnection connection) {
+        if (connection.isRequestInFlight()) {
+            return;
+        }
+
+        HttpRequest request;
+        try {
+            request = connection.getDecoder().next();
+        } catch (HttpRequestDecoder.DecodeException e) {
+            respond(connection, HttpResponse.error(e.getStatusCode(), JsonResponses.formingUniversalResponse(false, e.getMessage())), null, 0);
+            return;
+        }
+        if (request == null) {
+            return;
+        }
+
+        logger.info("Received HTTP-Request: {} {}", request.getMethod(), request.getPath());
+
+        int handled           = connection.countRequest();
+        int remainingRequests = HttpHandler.isKeepAliveRequested(request) ? Math.max(0, keepAliveMaxRequests - handled) : 0;
+        connection.setRequestInFlight(true);
+        connection.getKey().interestOps(0);
+        try {
+            workers.execute(() -> {
+                HttpResponse response;
+                try {
+                    response = HttpHandler.frameStreamingBody(ResponseCompressor.compress(HttpHandler.routeRequest(request), request), request);
+                } catch (RuntimeException e) {
+                    logger.error("Error handling request: {}", e.getMessage());
+                    response = HttpResponse.error(HttpStatusCodes.INTERNAL_SERVER_ERROR, JsonResponses.formingUniversalResponse(false, "Internal server error"));
+                }
+
+                if (response.hasStreamingBody()) {
+                    stream(connection, response, request.getHeaders().get(JsonBlocks.ORIG), remainingRequests);
+                } else {
+                    respond(connection, response, request.getHeaders().get(JsonBlocks.ORIG), remainingRequests);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            respond(connection, HttpHandler.serviceUnavailable(), null, 0);
+        }
+    }
+
+    // Подготавливает ответ response соединению connection и будит цикл для его записи
+    private void respond(NioConnection connection, HttpResponse response, String origin, int remainingRequests) {
+        FileChannel file = null;
+        if (response.hasFileBody()) {
+            try {
+                file = FileChannel.open(response.getFile(), StandardOpenOption.READ);
+            } catch (IOException e) {
+                logger.error("Error opening response file {}: {}", response.getFile(), e.getMessage());
+                response = HttpResponse.error(HttpStatusCodes.INTERNAL_SERVER_ERROR, JsonResponses.formingUniversalResponse(false, "Internal server error"));
+            }
+        }
+
+        connection.setOutput(new ByteBuffer[] {
+            ByteBuffer.wrap(HttpHandler.encodeResponseHead(response, origin, remainingRequests)),
+            ByteBuffer.wrap(response.getBody())
+        }, file, response.getContentLength(), remainingRequests == 0);
+
+        requestWrite(connection);
+    }
+
+    // Пишет потоковый ответ response в соединение connection, выполняется в потоке-обработчике, который при медленном клиенте
+    // ждёт, пока цикл событий разгрузит очередь соединения
+    private void stream(NioConnection connection, HttpResponse response, String origin, int remainingRequests) {
+        connection.startStream(ByteBuffer.wrap(HttpHandler.encodeResponseHead(response, origin, remainingRequests)), remainingRequests == 0);
+        requestWrite(connection);
+
+        boolean complete = false;
+        try (StreamingBody body = response.getStreamingBody()) {
+            NioOutputStream     output  = new NioOutputStream(connection, this);
+            ChunkedOutputStream chunked = new ChunkedOutputStream(output);
+            body.writeTo(chunked);
+            chunked.finish();
+            complete = true;
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Error streaming response: {}", e.getMessage());
+        } finally {
+            connection.finishStream(complete);
+            requestWrite(connection);
+        }
+    }
+
+    // Запускает запись ответа соединения connection: сразу, если вызвано из потока цикла, иначе - на ближайшей итерации цикла
+    void requestWrite(NioConnection connection) {
+        if (Thread.currentThread() == thread) {
+            write(connection);
+        } else {
+            readyToWrite.add(connection);
+            selector.wakeup();
+        }
+    }
+
+    // Дописывает ожидающий ответ соединения connection, затем закрывает его или переходит к следующему запросу
+    private void write(NioConnection connection) {
+        try {
+            if (connection.writeOutput()) {
+                connection.touch();
+                if (connection.isCloseAfterWrite()) {
+                    connection.close();
+                } else {
+                    connection.setRequestInFlight(false);
+                    connection.getKey().interestOps(SelectionKey.OP_READ);
+                    dispatchNext(connection);
+                }
+            } else {
+                connection.getKey().interestOps(connection.isWaitingForStream() ? 0 : SelectionKey.OP_WRITE);
+            }
+        } catch (IOException e) {
+            logger.warn("Error writing client channel: {}", e.getMessage());
+            connection.close();
+        }
+    }
+
+    // Закрывает соединения без обрабатываемого запроса, простаивающие дольше таймаута, и соединения, клиент которых дольше
+    // таймаута не принимает ожидающий записи ответ, обход всех соединений выполняется не чаще раза в SELECT_TIMEOUT,
+    // а не после каждого пробуждения селектора
+    private void closeIdleConnections() {
+        long now = System.currentTimeMillis();
+        if (now - lastIdleCheck < SELECT_TIMEOUT) {
+            return;
+        }
+        lastIdleCheck = now;
+
+        for (SelectionKey key : selector.keys()) {
+            NioConnection connection = (NioConnection) key.attachment();
+            if (connection == null) {
+                continue;
+            }
+            if (connection.hasOutput()) {
+                if (!connection.isWaitingForStream() && now - connection.getLastActivity() > idleTimeout) {
+                    logger.warn("Client has not read the response for {} ms, closing connection", now - connection.getLastActivity());
+                    connection.close();
+                }
+                continue;
+            }
+            if (connection.isRequestInFlight()) {
+                continue;
+            }
+
+            boolean betweenRequests = connection.getHandledRequests() > 0 && !connection.getDecoder().hasBufferedData();
+            if (now - connection.getLastActivity() > (betweenRequests ? keepAliveTimeout : idleTimeout)) {
+                connection.close();
+            }
+        }
+    }
+}
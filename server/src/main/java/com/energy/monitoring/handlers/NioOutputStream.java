@@ -0,0 +1,58 @@
+package com.energy.monitoring.handlers;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+
+/* Поток, через который поток-обработчик пишет тело ответа в неблокирующее соединение: данные отдаются циклу событий порциями,
+   а если клиент читает медленнее, чем пишется тело, запись блокируется до освобождения очереди соединения */
+public class NioOutputStream extends OutputStream {
+    private static final int PART_SIZE = ChunkedOutputStream.CHUNK_SIZE + 64; // Размер порции: кусок тела с разметкой
+
+    private final NioConnection connection; // Соединение, в которое пишется ответ
+    private final NioEventLoop  loop;       // Цикл событий соединения
+    private       ByteBuffer    part;       // Накапливаемая порция
+
+    public NioOutputStream(NioConnection connection, NioEventLoop loop) {
+        this.connection = connection;
+        this.loop       = loop;
+        this.part       = ByteBuffer.allocate(PART_SIZE);
+    }
+
+    @Override
+    public void write(int value) throws IOException {
+        if (!part.hasRemaining()) {
+            send();
+        }
+        part.put((byte) value);
+    }
+
+    @Override
+    public void write(byte[] data, int offset, int length) throws IOException {
+        while (length > 0) {
+            if (!part.hasRemaining()) {
+                send();
+            }
+            int count = Math.min(length, part.remaining());
+            part.put(data, offset, count);
+            offset += count;
+            length -= count;
+        }
+    }
+
+    // Отдаёт циклу событий накопленную порцию
+    @Override
+    public void flush() throws IOException {
+        if (part.position() > 0) {
+            send();
+        }
+    }
+
+    // Ставит порцию в очередь соединения, ожидая места в ней, и будит цикл событий для записи
+    private void send() throws IOException {
+        part.flip();
+        connection.offerStreamPart(part);
+        loop.requestWrite(connection);
+        part = ByteBuffer.allocate(PART_SIZE);
+    }
+}
@@ -0,0 +1,204 @@
+package com.energy.monitoring.handlers;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+import com.energy.monitoring.components.HttpConstructions.JsonBlocks;
+import com.energy.monitoring.components.HttpStatusCodes;
+import com.energy.monitoring.config.Config;
+import com.energy.monitoring.config.ConfigKeys;
+import com.energy.monitoring.models.HttpRequest;
+import com.energy.monitoring.models.HttpResponse;
+import com.energy.monitoring.models.StreamingBody;
+
+/* Сжатие тел http-ответов в gzip или deflate по заголовку Accept-Encoding клиента на переиспользуемых объектах Deflater,
+   потоковые тела сжимаются на лету по мере записи */
+public class ResponseCompressor {
+    private static final boolean ENABLED  = Config.getBoolean(ConfigKeys.Compression.ENABLED); // Включено ли сжатие ответов
+    private static final int     MIN_SIZE = Config.getInt(ConfigKeys.Compression.MIN_SIZE);    // Минимальный размер тела, которое имеет смысл сжимать
+    private static final int     LEVEL    = Config.getInt(ConfigKeys.Compression.LEVEL);       // Уровень сжатия от 1 до 9
+
+    private static final String GZIP         = "gzip";
+    private static final String DEFLATE      = "deflate";
+    private static final int    MAX_POOLED   = 64; // Максимальное количество свободных объектов Deflater каждого вида
+    private static final int    GZIP_TRAILER = 8;  // Размер окончания gzip: CRC32 и длина исходных данных
+    private static final byte[] GZIP_HEADER  = { 0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, (byte) 0xff }; // Заголовок gzip без имени файла и времени
+
+    private static final Queue<Deflater> rawDeflaters  = new ConcurrentLinkedQueue<>(); // Свободные объекты Deflater без обёртки zlib для gzip
+    private static final Queue<Deflater> zlibDeflaters = new ConcurrentLinkedQueue<>(); // Свободные объекты Deflater с обёрткой zlib для deflate
+    private static final AtomicInteger   rawPooled     = new AtomicInteger();
+    private static final AtomicInteger   zlibPooled    = new AtomicInteger();
+
+    // Возвращает ответ response на запрос request, сжатый в кодировку, которую принимает клиент, если сжимать не нужно - исходный ответ
+    public static HttpResponse compress(HttpResponse response, HttpRequest request) {
+        if (!isCompressible(response)) {
+            return response;
+        }
+        response.withHeader("Vary", "Accept-Encoding");
+
+        String acceptEncoding = request.getHeaders().get(JsonBlocks.ACCEPT_ENC);
+        boolean gzip;
+        if (HttpHandler.acceptsEncoding(acceptEncoding, GZIP)) {
+            gzip = true;
+        } else
+        if (HttpHandler.acceptsEncoding(acceptEncoding, DEFLATE)) {
+            gzip = false;
+        } else {
+            return response;
+        }
+
+        if (response.hasStreamingBody()) {
+            HttpResponse result = new HttpResponse(response.getStatusCode(), response.getStatusMessage(), compressStream(response.getStreamingBody(), gzip), response.getContentType());
+            result.getHeaders().putAll(response.getHeaders());
+            return result.withHeader("Content-Encoding", gzip ? GZIP : DEFLATE);
+        }
+
+        byte[] compressed = gzip ? gzip(response.getBody()) : deflate(response.getBody());
+        if (compressed == null) {
+            return response;
+        }
+
+        HttpResponse result = new HttpResponse(response.getStatusCode(), response.getStatusMessage(), compressed, response.getContentType());
+        result.getHeaders().putAll(response.getHeaders());
+        return result.withHeader("Content-Encoding", gzip ? GZIP : DEFLATE);
+    }
+
+    // Возвращает true, если тело ответа response текстовое, ещё не сжато и достаточно большое, размер потокового тела заранее
+    // неизвестен, поэтому оно сжимается всегда
+    private static boolean isCompressible(HttpResponse response) {
+        if (!ENABLED || response.hasFileBody()) {
+            return false;
+        }
+        if (!response.hasStreamingBody() && response.getBody().length < Math.max(MIN_SIZE, GZIP_HEADER.length + GZIP_TRAILER)) {
+            return false;
+        }
+        if (response.getStatusCode() == HttpStatusCodes.NOT_MODIFIED || response.getHeaders().containsKey("Content-Encoding") || response.getHeaders().containsKey("ETag")) {
+            return false;
+        }
+
+        String contentType = response.getContentType();
+        return contentType != null && (contentType.startsWith("text/") || contentType.contains("json") || contentType.contains("javascript"));
+    }
+
+    // Возвращает body в формате gzip, если сжатие не уменьшает размер - null
+    private static byte[] gzip(byte[] body) {
+        Deflater deflater = acquire(rawDeflaters, rawPooled, true);
+        try {
+            byte[] output = new byte[body.length];
+            System.arraycopy(GZIP_HEADER, 0, output, 0, GZIP_HEADER.length);
+
+            int length = deflate(deflater, body, output, GZIP_HEADER.length, output.length - GZIP_TRAILER);
+            if (length == -1) {
+                return null;
+            }
+
+            CRC32 crc = new CRC32();
+            crc.update(body);
+            writeIntLE(output, length, (int) crc.getValue());
+            writeIntLE(output, length + 4, body.length);
+            return Arrays.copyOf(output, length + GZIP_TRAILER);
+        } finally {
+            release(rawDeflaters, rawPooled, deflater);
+        }
+    }
+
+    // Возвращает body в формате zlib для кодировки deflate, если сжатие не уменьшает размер - null
+    private static byte[] deflate(byte[] body) {
+        Deflater deflater = acquire(zlibDeflaters, zlibPooled, false);
+        try {
+            byte[] output = new byte[body.length];
+
+            int length = deflate(deflater, body, output, 0, output.length);
+            return length == -1 ? null : Arrays.copyOf(output, length);
+        } finally {
+            release(zlibDeflaters, zlibPooled, deflater);
+        }
+    }
+
+    // Возвращает потоковое тело, которое пишет тело source сжатым в gzip или, если gzip - false, в deflate
+    private static StreamingBody compressStream(StreamingBody source, boolean gzip) {
+        return new StreamingBody() {
+            @Override
+            public void writeTo(OutputStream output) throws IOException {
+                Queue<Deflater> pool     = gzip ? rawDeflaters : zlibDeflaters;
+                AtomicInteger   pooled   = gzip ? rawPooled : zlibPooled;
+                Deflater        deflater = acquire(pool, pooled, gzip);
+                try {
+                    if (gzip) {
+                        output.write(GZIP_HEADER);
+                    }
+                    DeflaterOutputStream compressed = new DeflaterOutputStream(output, deflater, ChunkedOutputStream.CHUNK_SIZE, true);
+                    CRC32                crc        = new CRC32();
+                    source.writeTo(gzip ? new CheckedOutputStream(compressed, crc) : compressed);
+                    compressed.finish();
+
+                    if (gzip) {
+                        byte[] trailer = new byte[GZIP_TRAILER];
+                        writeIntLE(trailer, 0, (int) crc.getValue());
+                        writeIntLE(trailer, 4, (int) deflater.getBytesRead());
+                        output.write(trailer);
+                    }
+                } finally {
+                    release(pool, pooled, deflater);
+                }
+            }
+
+            @Override
+            public void close() {
+                source.close();
+            }
+        };
+    }
+
+    // Сжимает input в output начиная с позиции offset, не выходя за limit, возвращает позицию конца сжатых данных, если не поместились - -1
+    private static int deflate(Deflater deflater, byte[] input, byte[] output, int offset, int limit) {
+        deflater.setInput(input);
+        deflater.finish();
+
+        int position = offset;
+        while (!deflater.finished()) {
+            if (position >= limit) {
+                return -1;
+            }
+            position += deflater.deflate(output, position, limit - position);
+        }
+        return position;
+    }
+
+    // Записывает value в output с позиции offset в порядке little-endian
+    private static void writeIntLE(byte[] output, int offset, int value) {
+        output[offset]     = (byte) value;
+        output[offset + 1] = (byte) (value >>> 8);
+        output[offset + 2] = (byte) (value >>> 16);
+        output[offset + 3] = (byte) (value >>> 24);
+    }
+
+    // Возвращает свободный объект Deflater из пула pool, если пул пуст - новый
+    private static Deflater acquire(Queue<Deflater> pool, AtomicInteger pooled, boolean nowrap) {
+        Deflater deflater = pool.poll();
+        if (deflater == null) {
+            return new Deflater(LEVEL, nowrap);
+        }
+        pooled.decrementAndGet();
+        return deflater;
+    }
+
+    // Сбрасывает deflater и возвращает его в пул pool, сверх лимита пула освобождает его
+    private static void release(Queue<Deflater> pool, AtomicInteger pooled, Deflater deflater) {
+        deflater.reset();
+        if (pooled.incrementAndGet() <= MAX_POOLED) {
+            pool.offer(deflater);
+        } else {
+            pooled.decrementAndGet();
+            deflater.end();
+        }
+    }
+}
@@ -0,0 +1,168 @@
+package com.energy.monitoring.handlers;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import com.energy.monitoring.components.HttpStatusCodes;
+import com.energy.monitoring.components.JsonResponses;
+import com.energy.monitoring.metrics.MetricsRegistry;
+import com.energy.monitoring.metrics.RequestMetrics;
+import com.energy.monitoring.models.HttpRequest;
+import com.energy.monitoring.models.HttpResponse;
+
+/* Маршрутизатор http-запросов на префиксном дереве сегментов пути, строится один раз при запуске сервера */
+public class Router {
+    private static final char PARAM_START = '{'; // Первый символ сегмента шаблона, обозначающего целочисленный параметр
+    private static final int  MAX_PARAMS  = 8;   // Максимальное количество параметров в одном шаблоне
+
+    private static final RequestMetrics UNMATCHED = MetricsRegistry.route("ANY", "unmatched"); // Метрики запросов, не нашедших маршрута
+
+    /* Обработчик запроса, получающий значения целочисленных параметров пути в порядке их следования в шаблоне */
+    @FunctionalInterface
+    public interface Handler {
+        HttpResponse handle(HttpRequest request, int[] params);
+    }
+
+    /* Маршрут: обработчик и метрики его запросов */
+    private static class Route {
+        private final Handler        handler; // Обработчик запросов маршрута
+        private final RequestMetrics metrics; // Задержки обработки запросов маршрута
+
+        private Route(Handler handler, RequestMetrics metrics) {
+            this.handler = handler;
+            this.metrics = metrics;
+        }
+    }
+
+    /* Узел дерева маршрутов, соответствующий одному сегменту пути */
+    private static class Node {
+        private final String               segment;  // Постоянный сегмент пути, у узла параметра - null
+        private final Map<String, Route>   handlers; // Маршруты пути, заканчивающегося в этом узле, по методам
+        private       Node[]               children; // Дочерние узлы с постоянными сегментами
+        private       Node                 param;    // Дочерний узел целочисленного параметра
+        private       String               allow;    // Значение заголовка Allow для ответа 405
+
+        private Node(String segment) {
+            this.segment  = segment;
+            this.handlers = new HashMap<>();
+            this.children = new Node[0];
+        }
+
+        // Возвращает дочерний узел с постоянным сегментом, равным символам [from, to) строки path, если такого нет - null
+        private Node child(String path, int from, int to) {
+            for (Node child : children) {
+                if (child.segment.length() == to - from && path.regionMatches(from, child.segment, 0, to - from)) {
+                    return child;
+                }
+            }
+            return null;
+        }
+    }
+
+    private final Node root = new Node(""); // Корень дерева, соответствующий пути "/"
+
+    // Добавляет обработчик handler запросов методом method по шаблону pattern, например /api/coordinators/{id}/connect
+    public Router add(String method, String pattern, Handler handler) {
+        Node node   = root;
+        int  params = 0;
+        for (String segment : pattern.substring(1).split("/")) {
+            if (segment.isEmpty()) {
+                continue;
+            }
+
+            if (segment.charAt(0) == PARAM_START) {
+                if (++params > MAX_PARAMS) {
+                    throw new IllegalArgumentException("Too many parameters in route " + pattern);
+                }
+                if (node.param == null) {
+                    node.param = new Node(null);
+                }
+                node = node.param;
+            } else {
+                Node child = node.child(segment, 0, segment.length());
+                if (child == null) {
+                    child = new Node(segment);
+                    node.children = Arrays.copyOf(node.children, node.children.length + 1);
+                    node.children[node.children.length - 1] = child;
+                }
+                node = child;
+            }
+        }
+
+        if (node.handlers.putIfAbsent(method, new Route(handler, MetricsRegistry.route(method, pattern))) != null) {
+            throw new IllegalArgumentException("Route " + method + " " + pattern + " is already registered");
+        }
+        node.allow = String.join(", ", node.handlers.keySet());
+        return this;
+    }
+
+    // Передаёт запрос request обработчику его маршрута, если пути нет - возвращает 404, если путь есть, но без такого метода - 405
+    public HttpResponse route(HttpRequest request) {
+        long   start = System.nanoTime();
+        String path  = request.getPath();
+        int    end   = path.indexOf('?');
+        if (end == -1) {
+            end = path.length();
+        }
+
+        Node  node   = path.startsWith("/") ? root : null;
+        int[] params = null;
+        int   count  = 0;
+        int   from   = 1;
+        while (node != null && from < end) {
+            int to = path.indexOf('/', from);
+            if (to == -1 || to > end) {
+                to = end;
+            }
+
+            Node next = node.child(path, from, to);
+            if (next == null && node.param != null) {
+                long value = parseParam(path, from, to);
+                if (value != -1) {
+                    if (params == null) {
+                        params = new int[MAX_PARAMS];
+                    }
+                    params[count++] = (int) value;
+                    next = node.param;
+                }
+            }
+
+            node = next;
+            from = to + 1;
+        }
+
+        HttpResponse response;
+        if (node == null || node.handlers.isEmpty()) {
+            response = HttpResponse.notFound(JsonResponses.formingUniversalResponse(false, "Endpoint not found"));
+        } else {
+            Route route = node.handlers.get(request.getMethod());
+            if (route != null) {
+                response = route.handler.handle(request, params);
+                route.metrics.record(response.getStatusCode(), System.nanoTime() - start);
+                return response;
+            }
+            response = HttpResponse.error(HttpStatusCodes.METHOD_NOT_ALLOWED, JsonResponses.formingUniversalResponse(false, "Method not allowed")).withHeader("Allow", node.allow);
+        }
+
+        UNMATCHED.record(response.getStatusCode(), System.nanoTime() - start);
+        return response;
+    }
+
+    // Возвращает неотрицательное целое из символов [from, to) строки path, если это не число типа int - -1
+    private static long parseParam(String path, int from, int to) {
+        if (from == to || to - from > 10) {
+            return -1;
+        }
+
+        long value = 0;
+        for (int i = from; i < to; i++) {
+            char digit = path.charAt(i);
+            if (digit < '0' || digit > '9') {
+                return -1;
+            }
+            value = value * 10 + (digit - '0');
+        }
+        return value <= Integer.MAX_VALUE ? value : -1;
+    }
+}
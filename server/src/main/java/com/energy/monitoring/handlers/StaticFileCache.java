@@ -0,0 +1,300 @@
+package com.energy.monitoring.handlers;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPOutputStream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.energy.monitoring.config.Config;
+import com.energy.monitoring.config.ConfigKeys;
+
+/* Кэш статических файлов клиента в памяти со строгими ETag и заранее сжатыми gzip-вариантами */
+public class StaticFileCache {
+    private static final Logger logger = LoggerFactory.getLogger(StaticFileCache.class); // Объект Logger для текущего класса
+
+    private static final Path    ROOT                 = Paths.get(Config.getString(ConfigKeys.StaticFiles.ROOT)).toAbsolutePath().normalize(); // Корневая папка статических файлов
+    private static final int     MAX_CACHED_FILE_SIZE = Config.getInt(ConfigKeys.StaticFiles.MAX_CACHED_FILE_SIZE);                             // Максимальный размер файла, хранимого в памяти, крупные отправляются с диска
+    private static final boolean WATCH                = Config.getBoolean(ConfigKeys.StaticFiles.WATCH);                                        // Следить ли за изменениями файлов на диске
+    private static final String  GZIP_ETAG_SUFFIX     = "-gz";
+
+    private static final Map<Path, CachedFile> files       = new ConcurrentHashMap<>(); // Загруженные файлы по абсолютному пути
+    private static final AtomicLong            generation  = new AtomicLong();          // Счётчик сбросов кэша, защищает от записи устаревшего файла
+    private static volatile WatchService       watchService;                            // Служба слежения за папкой статических файлов
+
+    /* Закэшированный статический файл: небольшие файлы хранятся целиком, у крупных - только сведения для отправки с диска */
+    public static class CachedFile {
+        private final Path   path;        // Абсолютный путь файла
+        private final long   size;        // Размер файла
+        private final byte[] content;     // Содержимое файла, если файл отправляется с диска - null
+        private final String etag;        // Строгий ETag содержимого
+        private final byte[] gzipped;     // Содержимое, сжатое gzip, если сжатие не уменьшает файл - null
+        private final String gzippedEtag; // Строгий ETag сжатого варианта
+
+        public CachedFile(Path path, byte[] content, String etag, byte[] gzipped) {
+            this.path        = path;
+            this.size        = content.length;
+            this.content     = content;
+            this.etag        = etag;
+            this.gzipped     = gzipped;
+            this.gzippedEtag = gzipped == null ? null : etag.substring(0, etag.length() - 1) + GZIP_ETAG_SUFFIX + "\"";
+        }
+
+        public CachedFile(Path path, long size, String etag) {
+            this.path        = path;
+            this.size        = size;
+            this.content     = null;
+            this.etag        = etag;
+            this.gzipped     = null;
+            this.gzippedEtag = null;
+        }
+
+        public Path getPath() {
+            return path;
+        }
+
+        public long getSize() {
+            return size;
+        }
+
+        public byte[] getContent() {
+            return content;
+        }
+
+        public String getEtag() {
+            return etag;
+        }
+
+        public byte[] getGzipped() {
+            return gzipped;
+        }
+
+        public String getGzippedEtag() {
+            return gzippedEtag;
+        }
+
+        public boolean hasGzipped() {
+            return gzipped != null;
+        }
+
+        // Возвращает true, если содержимое файла хранится в памяти
+        public boolean isInMemory() {
+            return content != null;
+        }
+    }
+
+    // Загружает в кэш все файлы корневой папки и запускает слежение за их изменениями
+    public static void start() {
+        if (!Files.isDirectory(ROOT)) {
+            logger.warn("Static files directory {} not found", ROOT);
+            return;
+        }
+
+        try (var paths = Files.walk(ROOT)) {
+            paths.filter(Files::isRegularFile).forEach(StaticFileCache::loadQuietly);
+            logger.info("Static files cached: {}", files.size());
+        } catch (IOException e) {
+            logger.warn("Error preloading static files: {}", e.getMessage());
+        }
+
+        if (WATCH) {
+            startWatching();
+        }
+    }
+
+    // Останавливает слежение за файлами и очищает кэш
+    public static void stop() {
+        WatchService service = watchService;
+        watchService = null;
+        if (service != null) {
+            try {
+                service.close();
+            } catch (IOException e) {
+                logger.warn("Error closing static files watcher: {}", e.getMessage());
+            }
+        }
+        invalidateAll();
+    }
+
+    // Возвращает файл по пути запроса requestPath, если его нет или путь выходит за корневую папку - null
+    public static CachedFile get(String requestPath) throws IOException {
+        Path file = resolve(requestPath);
+        if (file == null) {
+            return null;
+        }
+
+        CachedFile cached = files.get(file);
+        if (cached != null) {
+            return cached;
+        }
+        if (!Files.isRegularFile(file)) {
+            return null;
+        }
+        return load(file);
+    }
+
+    // Возвращает абсолютный путь файла по пути запроса requestPath, если путь выходит за корневую папку - null
+    private static Path resolve(String requestPath) {
+        int query = requestPath.indexOf('?');
+        if (query != -1) {
+            requestPath = requestPath.substring(0, query);
+        }
+
+        Path file;
+        try {
+            file = ROOT.resolve(requestPath.replaceFirst("^/+", "")).normalize();
+        } catch (RuntimeException e) {
+            return null;
+        }
+        return file.startsWith(ROOT) ? file : null;
+    }
+
+    // Сохраняет в кэше файл file: небольшой - целиком вместе с ETag и сжатым вариантом, крупный - только его размер и ETag
+    private static CachedFile load(Path file) throws IOException {
+        long                loadedGeneration = generation.get();
+        BasicFileAttributes attributes       = Files.readAttributes(file, BasicFileAttributes.class);
+
+        CachedFile cached;
+        if (attributes.size() > MAX_CACHED_FILE_SIZE) {
+            String etag = "\"" + Long.toHexString(attributes.size()) + "-" + Long.toHexString(attributes.lastModifiedTime().toMillis()) + "\"";
+            cached = new CachedFile(file, attributes.size(), etag);
+        } else {
+            byte[] content = Files.readAllBytes(file);
+            cached = new CachedFile(file, content, computeEtag(content), isCompressible(file) ? compress(content) : null);
+        }
+
+        files.put(file, cached);
+        if (generation.get() != loadedGeneration) {
+            files.remove(file, cached);
+        }
+        return cached;
+    }
+
+    // Загружает файл file в кэш, ошибки только записываются в лог
+    private static void loadQuietly(Path file) {
+        try {
+            load(file);
+        } catch (IOException e) {
+            logger.warn("Error caching static file {}: {}", file, e.getMessage());
+        }
+    }
+
+    // Возвращает строгий ETag содержимого content
+    private static String computeEtag(byte[] content) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(content);
+            return "\"" + HexFormat.of().formatHex(digest, 0, 16) + "\"";
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    // Возвращает content, сжатое gzip, если сжатие не уменьшает размер - null
+    private static byte[] compress(byte[] content) {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream(content.length / 2 + 64);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+            gzip.write(content);
+        } catch (IOException e) {
+            return null;
+        }
+        return compressed.size() < content.length ? compressed.toByteArray() : null;
+    }
+
+    // Возвращает true, если файл file текстовый и его стоит сжимать
+    private static boolean isCompressible(Path file) {
+        String name = file.getFileName().toString();
+        return name.endsWith(".html") || name.endsWith(".css") || name.endsWith(".js") || name.endsWith(".json") || name.endsWith(".svg") || name.endsWith(".txt");
+    }
+
+    // Сбрасывает весь кэш
+    private static void invalidateAll() {
+        generation.incrementAndGet();
+        files.clear();
+    }
+
+    // Сбрасывает из кэша файл file или все файлы внутри папки file
+    private static void invalidate(Path file) {
+        generation.incrementAndGet();
+        files.keySet().removeIf(path -> path.startsWith(file));
+    }
+
+    // Запускает поток, сбрасывающий из кэша изменённые на диске файлы
+    private static void startWatching() {
+        try {
+            watchService = FileSystems.getDefault().newWatchService();
+            registerTree(ROOT);
+        } catch (IOException e) {
+            logger.warn("Static files watcher not started: {}", e.getMessage());
+            return;
+        }
+
+        Thread watcher = new Thread(StaticFileCache::watch, "static-file-watcher");
+        watcher.setDaemon(true);
+        watcher.start();
+    }
+
+    // Регистрирует в службе слежения папку directory со всеми вложенными папками
+    private static void registerTree(Path directory) throws IOException {
+        Files.walkFileTree(directory, new SimpleFileVisitor<>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attributes) throws IOException {
+                dir.register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+    // Обрабатывает события изменения файлов, пока служба слежения не закрыта
+    private static void watch() {
+        try {
+            while (true) {
+                WatchService service = watchService;
+                if (service == null) {
+                    return;
+                }
+
+                WatchKey key = service.take();
+                Path directory = (Path) key.watchable();
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                        invalidateAll();
+                        continue;
+                    }
+
+                    Path changed = directory.resolve((Path) event.context());
+                    invalidate(changed);
+                    if (event.kind() == StandardWatchEventKinds.ENTRY_CREATE && Files.isDirectory(changed)) {
+                        registerTree(changed);
+                    }
+                    logger.debug("Static file changed: {}", changed);
+                }
+                key.reset();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ClosedWatchServiceException e) {
+            // Служба слежения закрыта при остановке сервера
+        } catch (IOException e) {
+            logger.warn("Static files watcher stopped: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.energy.monitoring.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/* Гистограмма задержек с фиксированными границами корзин, записываемая без блокировок из любого числа потоков */
+public class LatencyHistogram {
+    // Верхние границы корзин в секундах
+    static final double[] BUCKETS = { 0.001, 0.0025, 0.005, 0.01, 0.025, 0.05, 0.1, 0.25, 0.5, 1, 2.5, 5, 10 };
+
+    private static final long[] BUCKET_NANOS = new long[BUCKETS.length]; // Верхние границы корзин в наносекундах
+
+    static {
+        for (int i = 0; i < BUCKETS.length; i++) {
+            BUCKET_NANOS[i] = (long) (BUCKETS[i] * 1_000_000_000L);
+        }
+    }
+
+    private final LongAdder[] counts;   // Количество значений в каждой корзине, последняя - для значений больше всех границ
+    private final LongAdder   sumNanos; // Сумма всех значений в наносекундах
+
+    public LatencyHistogram() {
+        this.counts   = new LongAdder[BUCKETS.length + 1];
+        this.sumNanos = new LongAdder();
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] = new LongAdder();
+        }
+    }
+
+    // Учитывает задержку nanos в наносекундах
+    public void record(long nanos) {
+        int bucket = 0;
+        while (bucket < BUCKET_NANOS.length && nanos > BUCKET_NANOS[bucket]) {
+            bucket++;
+        }
+        counts[bucket].increment();
+        sumNanos.add(nanos);
+    }
+
+    // Возвращает накопленные количества значений по корзинам: i-й элемент - сколько значений не больше i-й границы, последний - всего значений
+    public long[] cumulativeCounts() {
+        long[] cumulative = new long[counts.length];
+        long   total      = 0;
+        for (int i = 0; i < counts.length; i++) {
+            total        += counts[i].sum();
+            cumulative[i] = total;
+        }
+        return cumulative;
+    }
+
+    // Возвращает сумму всех значений в секундах
+    public double getSumSeconds() {
+        return sumNanos.sum() / 1e9;
+    }
+}
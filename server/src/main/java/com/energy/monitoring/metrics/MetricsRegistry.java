@@ -0,0 +1,156 @@
+package com.energy.monitoring.metrics;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/* Реестр метрик сервера и их вывод в текстовом формате Prometheus */
+public class MetricsRegistry {
+    private static final String LATENCY_NAME = "http_request_duration_seconds"; // Имя гистограммы задержек обработки запросов
+
+    private static final ConcurrentHashMap<String, RequestMetrics> routes            = new ConcurrentHashMap<>();   // Метрики маршрутов по методу и шаблону пути
+    private static final List<Metric>                              metrics           = new CopyOnWriteArrayList<>(); // Зарегистрированные счётчики и датчики
+    private static final List<NamedHistogram>                      histograms        = new CopyOnWriteArrayList<>(); // Зарегистрированные гистограммы без меток
+    private static final AtomicInteger                             activeConnections = new AtomicInteger();      // Количество открытых клиентских соединений
+    private static final LongAdder                                 bytesIn           = new LongAdder();          // Количество принятых байт
+    private static final LongAdder                                 bytesOut          = new LongAdder();          // Количество отправленных байт
+
+    /* Одиночная метрика, значение которой берётся при каждом выводе */
+    private static class Metric {
+        private final String       name;  // Имя метрики
+        private final String       help;  // Описание метрики
+        private final String       type;  // Тип метрики: gauge или counter
+        private final LongSupplier value; // Источник значения метрики
+
+        private Metric(String name, String help, String type, LongSupplier value) {
+            this.name  = name;
+            this.help  = help;
+            this.type  = type;
+            this.value = value;
+        }
+    }
+
+    /* Гистограмма задержек без меток, зарегистрированная под собственным именем */
+    private static class NamedHistogram {
+        private final String           name;      // Имя метрики
+        private final String           help;      // Описание метрики
+        private final LatencyHistogram histogram; // Значения метрики
+
+        private NamedHistogram(String name, String help, LatencyHistogram histogram) {
+            this.name      = name;
+            this.help      = help;
+            this.histogram = histogram;
+        }
+    }
+
+    static {
+        registerGauge("http_active_connections", "Open client connections", activeConnections::get);
+        registerCounter("http_received_bytes_total", "Bytes received from clients", bytesIn::sum);
+        registerCounter("http_sent_bytes_total", "Bytes sent to clients", bytesOut::sum);
+    }
+
+    // Возвращает метрики маршрута с методом method и шаблоном пути route, создавая их при первом обращении
+    public static RequestMetrics route(String method, String route) {
+        return routes.computeIfAbsent(method + ' ' + route, key -> new RequestMetrics(method, route));
+    }
+
+    // Регистрирует датчик name с описанием help, значение которого возвращает value
+    public static void registerGauge(String name, String help, LongSupplier value) {
+        register(new Metric(name, help, "gauge", value));
+    }
+
+    // Регистрирует монотонный счётчик name с описанием help, значение которого возвращает value
+    public static void registerCounter(String name, String help, LongSupplier value) {
+        register(new Metric(name, help, "counter", value));
+    }
+
+    // Регистрирует гистограмму задержек histogram под именем name с описанием help
+    public static void registerHistogram(String name, String help, LatencyHistogram histogram) {
+        histograms.removeIf(registered -> registered.name.equals(name));
+        histograms.add(new NamedHistogram(name, help, histogram));
+    }
+
+    // Учитывает открытое клиентское соединение
+    public static void connectionOpened() {
+        activeConnections.incrementAndGet();
+    }
+
+    // Учитывает закрытое клиентское соединение
+    public static void connectionClosed() {
+        activeConnections.decrementAndGet();
+    }
+
+    // Учитывает count принятых байт
+    public static void addBytesIn(long count) {
+        if (count > 0) {
+            bytesIn.add(count);
+        }
+    }
+
+    // Учитывает count отправленных байт
+    public static void addBytesOut(long count) {
+        if (count > 0) {
+            bytesOut.add(count);
+        }
+    }
+
+    // Возвращает все метрики в текстовом формате Prometheus
+    public static String render() {
+        StringBuilder output = new StringBuilder(4096);
+
+        for (Metric metric : metrics) {
+            output.append("# HELP ").append(metric.name).append(' ').append(metric.help).append('\n');
+            output.append("# TYPE ").append(metric.name).append(' ').append(metric.type).append('\n');
+            output.append(metric.name).append(' ').append(metric.value.getAsLong()).append('\n');
+        }
+
+        for (NamedHistogram named : histograms) {
+            output.append("# HELP ").append(named.name).append(' ').append(named.help).append('\n');
+            output.append("# TYPE ").append(named.name).append(" histogram\n");
+            appendHistogram(output, named.name, "", named.histogram);
+        }
+
+        output.append("# HELP ").append(LATENCY_NAME).append(" Request handling latency by route and status code\n");
+        output.append("# TYPE ").append(LATENCY_NAME).append(" histogram\n");
+        for (RequestMetrics route : routes.values()) {
+            for (int status = RequestMetrics.MIN_STATUS; status <= RequestMetrics.MAX_STATUS; status++) {
+                LatencyHistogram histogram = route.getHistogram(status);
+                if (histogram != null) {
+                    String labels = "method=\"" + escape(route.getMethod()) + "\",route=\"" + escape(route.getRoute()) + "\",status=\"" + status + "\"";
+                    appendHistogram(output, LATENCY_NAME, labels, histogram);
+                }
+            }
+        }
+        return output.toString();
+    }
+
+    // Дописывает в output корзины, сумму и количество гистограммы histogram метрики name с метками labels
+    private static void appendHistogram(StringBuilder output, String name, String labels, LatencyHistogram histogram) {
+        String prefix = labels.isEmpty() ? "" : labels + ",";
+        String suffix = labels.isEmpty() ? "" : "{" + labels + "}";
+        long[] counts = histogram.cumulativeCounts();
+
+        for (int i = 0; i < LatencyHistogram.BUCKETS.length; i++) {
+            output.append(name).append("_bucket{").append(prefix).append("le=\"").append(LatencyHistogram.BUCKETS[i]).append("\"} ").append(counts[i]).append('\n');
+        }
+        long total = counts[counts.length - 1];
+        output.append(name).append("_bucket{").append(prefix).append("le=\"+Inf\"} ").append(total).append('\n');
+        output.append(name).append("_sum").append(suffix).append(' ').append(String.format(Locale.ROOT, "%.6f", histogram.getSumSeconds())).append('\n');
+        output.append(name).append("_count").append(suffix).append(' ').append(total).append('\n');
+    }
+
+    // Добавляет метрику metric, заменяя ранее зарегистрированную с тем же именем
+    private static void register(Metric metric) {
+        metrics.removeIf(registered -> registered.name.equals(metric.name));
+        metrics.add(metric);
+    }
+
+    // Экранирует значение метки по правилам формата Prometheus
+    private static String escape(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+}
@@ -0,0 +1,44 @@
+package com.energy.monitoring.metrics;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/* Гистограммы задержек обработки запросов одного маршрута, по одной на каждый статус-код ответа */
+public class RequestMetrics {
+    static final int MIN_STATUS = 100; // Минимальный учитываемый статус-код
+    static final int MAX_STATUS = 599; // Максимальный учитываемый статус-код
+
+    private final String                                 method;     // Метод запросов маршрута
+    private final String                                 route;      // Шаблон пути маршрута
+    private final AtomicReferenceArray<LatencyHistogram> histograms; // Гистограммы по статус-кодам, создаются при первом ответе с кодом
+
+    RequestMetrics(String method, String route) {
+        this.method     = method;
+        this.route      = route;
+        this.histograms = new AtomicReferenceArray<>(MAX_STATUS - MIN_STATUS + 1);
+    }
+
+    public String getMethod() {
+        return method;
+    }
+
+    public String getRoute() {
+        return route;
+    }
+
+    // Учитывает запрос, обработанный за nanos наносекунд с ответом statusCode
+    public void record(int statusCode, long nanos) {
+        int index = Math.min(Math.max(statusCode, MIN_STATUS), MAX_STATUS) - MIN_STATUS;
+
+        LatencyHistogram histogram = histograms.get(index);
+        if (histogram == null) {
+            histograms.compareAndSet(index, null, new LatencyHistogram());
+            histogram = histograms.get(index);
+        }
+        histogram.record(nanos);
+    }
+
+    // Возвращает гистограмму ответов со статус-кодом statusCode, если таких ответов не было - null
+    LatencyHistogram getHistogram(int statusCode) {
+        return histograms.get(statusCode - MIN_STATUS);
+    }
+}
@@ -0,0 +1,34 @@
+package com.energy.monitoring.models;
+
+import com.energy.monitoring.database.RowCursor;
+
+/* Класс координатора вместе с признаком принадлежности пользователю и курсором по его приборам учёта, прочитанных одним запросом.
+   Держит соединение с базой данных до закрытия */
+public class CoordinatorDetails implements AutoCloseable {
+    private final Coordinator      coordinator; // Координатор
+    private final boolean          owner;       // Принадлежит ли координатор пользователю
+    private final RowCursor<Meter> meters;      // Приборы учёта координатора, пусто, если координатор чужой
+
+    public CoordinatorDetails(Coordinator coordinator, boolean owner, RowCursor<Meter> meters) {
+        this.coordinator = coordinator;
+        this.owner       = owner;
+        this.meters      = meters;
+    }
+
+    public Coordinator getCoordinator() {
+        return coordinator;
+    }
+
+    public boolean isOwner() {
+        return owner;
+    }
+
+    public RowCursor<Meter> getMeters() {
+        return meters;
+    }
+
+    @Override
+    public void close() {
+        meters.close();
+    }
+}
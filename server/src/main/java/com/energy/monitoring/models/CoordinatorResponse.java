@@ -0,0 +1,40 @@
+package com.energy.monitoring.models;
+
+import java.util.List;
+
+/* Класс ответа координатора на команду: код команды и параметры каждого кадра ответа по отдельности */
+public class CoordinatorResponse {
+    private final byte         commandCode;
+    private final List<byte[]> frames;
+
+    public CoordinatorResponse(byte commandCode, List<byte[]> frames) {
+        this.commandCode = commandCode;
+        this.frames      = List.copyOf(frames);
+    }
+
+    public byte getCommandCode() {
+        return commandCode;
+    }
+
+    // Возвращает параметры кадров ответа в порядке приёма, у ответа на команду с несколькими узлами - по кадру на узел
+    public List<byte[]> getFrames() {
+        return frames;
+    }
+
+    // Возвращает набор байт, где первый - код команды, а затем параметры всех кадров подряд
+    public byte[] toBytes() {
+        int length = 1;
+        for (byte[] frame : frames) {
+            length += frame.length;
+        }
+
+        byte[] bytes = new byte[length];
+        bytes[0] = commandCode;
+        int offset = 1;
+        for (byte[] frame : frames) {
+            System.arraycopy(frame, 0, bytes, offset, frame.length);
+            offset += frame.length;
+        }
+        return bytes;
+    }
+}
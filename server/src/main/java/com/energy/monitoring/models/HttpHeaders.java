@@ -0,0 +1,89 @@
+package com.energy.monitoring.models;
+
+import java.nio.charset.StandardCharsets;
+import java.util.AbstractMap;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/* Заголовки http-запроса, хранящиеся в исходных байтах и декодируемые в строки только при обращении */
+public class HttpHeaders extends AbstractMap<String, String> {
+    private final byte[]   raw;          // Байты блока заголовков
+    private final int[]    bounds;       // По четыре границы на заголовок: начало и конец имени, начало и конец значения
+    private final int      count;        // Количество заголовков
+    private final String[] cachedValues; // Уже декодированные значения
+
+    public HttpHeaders(byte[] raw, int[] bounds, int count) {
+        this.raw          = raw;
+        this.bounds       = bounds;
+        this.count        = count;
+        this.cachedValues = new String[count];
+    }
+
+    // Возвращает значение заголовка с именем key без учёта регистра, если такого нет - null
+    @Override
+    public String get(Object key) {
+        if (!(key instanceof String)) {
+            return null;
+        }
+
+        int index = indexOf((String) key);
+        return index == -1 ? null : valueAt(index);
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return key instanceof String && indexOf((String) key) != -1;
+    }
+
+    @Override
+    public int size() {
+        return count;
+    }
+
+    // Возвращает набор всех заголовков с именами в нижнем регистре
+    @Override
+    public Set<Entry<String, String>> entrySet() {
+        Set<Entry<String, String>> entries = new LinkedHashSet<>();
+        for (int i = 0; i < count; i++) {
+            String name = new String(raw, bounds[4 * i], bounds[4 * i + 1] - bounds[4 * i], StandardCharsets.ISO_8859_1).toLowerCase();
+            entries.add(new SimpleImmutableEntry<>(name, valueAt(i)));
+        }
+        return entries;
+    }
+
+    // Возвращает порядковый номер заголовка с именем name без учёта регистра, если такого нет - -1
+    private int indexOf(String name) {
+        int length = name.length();
+        for (int i = 0; i < count; i++) {
+            int start = bounds[4 * i];
+            if (bounds[4 * i + 1] - start != length) {
+                continue;
+            }
+
+            boolean equal = true;
+            for (int k = 0; k < length && equal; k++) {
+                equal = toLowerCase(raw[start + k]) == toLowerCase((byte) name.charAt(k));
+            }
+            if (equal) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    // Возвращает декодированное значение заголовка с порядковым номером index
+    private String valueAt(int index) {
+        String value = cachedValues[index];
+        if (value == null) {
+            int start = bounds[4 * index + 2];
+            value = new String(raw, start, bounds[4 * index + 3] - start, StandardCharsets.UTF_8);
+            cachedValues[index] = value;
+        }
+        return value;
+    }
+
+    // Возвращает ASCII-символ symbol в нижнем регистре
+    private static byte toLowerCase(byte symbol) {
+        return symbol >= 'A' && symbol <= 'Z' ? (byte) (symbol + ('a' - 'A')) : symbol;
+    }
+}
@@ -1,19 +1,23 @@
 package com.energy.monitoring.models;
 
+import java.nio.charset.StandardCharsets;
 import java.util.Map;
 
 /* Класс http-запроса */
 public class HttpRequest {
     private final String              method;
     private final String              path;
+    private final String              version;
     private final Map<String, String> headers;
-    private final String              body;
+    private final byte[]              bodyBytes; // Тело запроса в исходных байтах
+    private       String              body;      // Тело запроса, декодированное при первом обращении
     
-    public HttpRequest(String method, String path, Map<String, String> headers, String body) {
-        this.method  = method;
-        this.path    = path;
-        this.headers = headers;
-        this.body    = body;
+    public HttpRequest(String method, String path, String version, Map<String, String> headers, byte[] bodyBytes) {
+        this.method    = method;
+        this.path      = path;
+        this.version   = version;
+        this.headers   = headers;
+        this.bodyBytes = bodyBytes;
     }
     
     public String getMethod() { 
@@ -24,11 +28,23 @@ public class HttpRequest {
         return path; 
     }
 
+    public String getVersion() { 
+        return version; 
+    }
+
     public Map<String, String> getHeaders() { 
         return headers; 
     }
 
+    public byte[] getBodyBytes() { 
+        return bodyBytes; 
+    }
+
+    // Возвращает тело запроса, декодируя его из UTF-8 при первом обращении
     public String getBody() { 
+        if (body == null) {
+            body = new String(bodyBytes, StandardCharsets.UTF_8);
+        }
         return body; 
     }
-}
\ No newline at end of file
+}
@@ -1,21 +1,56 @@
 package com.energy.monitoring.models;
 
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 import com.energy.monitoring.components.HttpStatusCodes;
 
 /* Класс http-ответа */
 public class HttpResponse {
-    private final int    statusCode;
-    private final String statusMessage;
-    private final byte[] body;
-    private final String contentType;
+    private final int                 statusCode;
+    private final String              statusMessage;
+    private final byte[]              body;
+    private final Path                file;        // Файл, содержимое которого отправляется телом ответа вместо body
+    private final long                fileLength;  // Количество отправляемых байт файла
+    private final StreamingBody       stream;      // Тело, которое пишется по частям с Transfer-Encoding: chunked вместо body
+    private final String              contentType;
+    private final Map<String, String> headers;     // Дополнительные заголовки ответа
     
     public HttpResponse(int statusCode, String statusMessage, byte[] body, String contentType) {
         this.statusCode    = statusCode;
         this.statusMessage = statusMessage;
         this.body          = body;
+        this.file          = null;
+        this.fileLength    = 0;
+        this.stream        = null;
         this.contentType   = contentType;
+        this.headers       = new LinkedHashMap<>();
+    }
+
+    // Ответ, тело которого - первые fileLength байт файла file, передаваемые в сокет без копирования в память
+    public HttpResponse(int statusCode, String statusMessage, Path file, long fileLength, String contentType) {
+        this.statusCode    = statusCode;
+        this.statusMessage = statusMessage;
+        this.body          = new byte[0];
+        this.file          = file;
+        this.fileLength    = fileLength;
+        this.stream        = null;
+        this.contentType   = contentType;
+        this.headers       = new LinkedHashMap<>();
+    }
+
+    // Ответ, тело которого пишется по частям по мере готовности, его длина заранее неизвестна
+    public HttpResponse(int statusCode, String statusMessage, StreamingBody stream, String contentType) {
+        this.statusCode    = statusCode;
+        this.statusMessage = statusMessage;
+        this.body          = new byte[0];
+        this.file          = null;
+        this.fileLength    = 0;
+        this.stream        = stream;
+        this.contentType   = contentType;
+        this.headers       = new LinkedHashMap<>();
     }
     
     public HttpResponse(int statusCode, String statusMessage, String body, String contentType) {
@@ -26,26 +61,58 @@ public class HttpResponse {
         return new HttpResponse(HttpStatusCodes.OK, "OK", body, contentType);
     }
     
+    public static HttpResponse ok(byte[] body, String contentType) {
+        return new HttpResponse(HttpStatusCodes.OK, "OK", body, contentType);
+    }
+    
+    public static HttpResponse ok(StreamingBody body, String contentType) {
+        return new HttpResponse(HttpStatusCodes.OK, "OK", body, contentType);
+    }
+    
     public static HttpResponse created(String body) {
         return new HttpResponse(HttpStatusCodes.CREATED, "Created", body, "application/json");
     }
     
+    public static HttpResponse created(byte[] body) {
+        return new HttpResponse(HttpStatusCodes.CREATED, "Created", body, "application/json");
+    }
+    
     public static HttpResponse badRequest(String body) {
         return new HttpResponse(HttpStatusCodes.BAD_REQUEST, "Bad Request", body, "application/json");
     }
     
+    public static HttpResponse badRequest(byte[] body) {
+        return new HttpResponse(HttpStatusCodes.BAD_REQUEST, "Bad Request", body, "application/json");
+    }
+    
     public static HttpResponse unauthorized(String body) {
         return new HttpResponse(HttpStatusCodes.UNAUTHORIZED, "Unauthorized", body, "application/json");
     }
     
+    public static HttpResponse unauthorized(byte[] body) {
+        return new HttpResponse(HttpStatusCodes.UNAUTHORIZED, "Unauthorized", body, "application/json");
+    }
+    
     public static HttpResponse notFound(String body) {
         return new HttpResponse(HttpStatusCodes.NOT_FOUND, "Not Found", body, "application/json");
     }
     
+    public static HttpResponse notFound(byte[] body) {
+        return new HttpResponse(HttpStatusCodes.NOT_FOUND, "Not Found", body, "application/json");
+    }
+    
+    public static HttpResponse notModified(String contentType) {
+        return new HttpResponse(HttpStatusCodes.NOT_MODIFIED, "Not Modified", new byte[0], contentType);
+    }
+    
     public static HttpResponse error(int code, String body) {
         return new HttpResponse(code, "Error", body, "application/json");
     }
     
+    public static HttpResponse error(int code, byte[] body) {
+        return new HttpResponse(code, "Error", body, "application/json");
+    }
+    
     public int getStatusCode() { 
         return statusCode; 
     }
@@ -58,7 +125,41 @@ public class HttpResponse {
         return body; 
     }
 
+    public Path getFile() { 
+        return file; 
+    }
+
+    public boolean hasFileBody() { 
+        return file != null; 
+    }
+
+    public StreamingBody getStreamingBody() { 
+        return stream; 
+    }
+
+    public boolean hasStreamingBody() { 
+        return stream != null; 
+    }
+
+    // Возвращает длину тела ответа в байтах, для тела, которое пишется по частям, - -1
+    public long getContentLength() { 
+        if (stream != null) {
+            return -1;
+        }
+        return file != null ? fileLength : body.length; 
+    }
+
     public String getContentType() { 
         return contentType; 
     }
+
+    public Map<String, String> getHeaders() { 
+        return headers; 
+    }
+
+    // Добавляет к ответу заголовок name со значением value и возвращает этот же ответ
+    public HttpResponse withHeader(String name, String value) {
+        headers.put(name, value);
+        return this;
+    }
 }
\ No newline at end of file
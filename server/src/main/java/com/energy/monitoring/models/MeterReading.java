@@ -0,0 +1,84 @@
+package com.energy.monitoring.models;
+
+import java.sql.Timestamp;
+
+/* Класс показаний прибора учёта в момент времени, отсутствующее или не помещающееся в столбец базы значение - NaN */
+public class MeterReading {
+    private static final double MAX_STORED = 99_999_999.99; // Наибольшее по модулю значение, которое помещается в столбец DECIMAL(10,2)
+
+    private final int       meterId;
+    private final Timestamp recordedAt;
+    private final double    voltage;
+    private final double    current;
+    private final double    activePower;
+    private final double    reactivePower;
+    private final double    apparentPower;
+    private final double    powerFactor;
+    private final double    frequency;
+    private final double    neutralCurrent;
+
+    public MeterReading(int meterId, Timestamp recordedAt, double voltage, double current, double activePower, double reactivePower,
+                        double apparentPower, double powerFactor, double frequency, double neutralCurrent) {
+        this.meterId        = meterId;
+        this.recordedAt     = recordedAt;
+        this.voltage        = storable(voltage);
+        this.current        = storable(current);
+        this.activePower    = storable(activePower);
+        this.reactivePower  = storable(reactivePower);
+        this.apparentPower  = storable(apparentPower);
+        this.powerFactor    = storable(powerFactor);
+        this.frequency      = storable(frequency);
+        this.neutralCurrent = storable(neutralCurrent);
+    }
+
+    // Возвращает value, если оно помещается в столбец показаний, иначе - NaN, который записывается как NULL: одно значение вне
+    // диапазона DECIMAL(10,2) иначе откатило бы запись всей пачки показаний
+    private static double storable(double value) {
+        return Math.abs(value) <= MAX_STORED ? value : Double.NaN;
+    }
+
+    public int getMeterId() {
+        return meterId;
+    }
+
+    public Timestamp getRecordedAt() {
+        return recordedAt;
+    }
+
+    public double getVoltage() {
+        return voltage;
+    }
+
+    public double getCurrent() {
+        return current;
+    }
+
+    public double getActivePower() {
+        return activePower;
+    }
+
+    public double getReactivePower() {
+        return reactivePower;
+    }
+
+    public double getApparentPower() {
+        return apparentPower;
+    }
+
+    public double getPowerFactor() {
+        return powerFactor;
+    }
+
+    public double getFrequency() {
+        return frequency;
+    }
+
+    public double getNeutralCurrent() {
+        return neutralCurrent;
+    }
+
+    // Возвращает значения показаний в порядке столбцов таблицы показаний
+    public double[] getValues() {
+        return new double[] { voltage, current, activePower, reactivePower, apparentPower, powerFactor, frequency, neutralCurrent };
+    }
+}
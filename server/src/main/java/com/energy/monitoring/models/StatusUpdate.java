@@ -0,0 +1,22 @@
+package com.energy.monitoring.models;
+
+import java.sql.Timestamp;
+
+/* Класс изменения статуса координатора или прибора учёта, ожидающего записи в базу данных */
+public class StatusUpdate {
+    private final String    status;
+    private final Timestamp changedAt;
+
+    public StatusUpdate(String status, Timestamp changedAt) {
+        this.status    = status;
+        this.changedAt = changedAt;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public Timestamp getChangedAt() {
+        return changedAt;
+    }
+}
@@ -0,0 +1,15 @@
+package com.energy.monitoring.models;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/* Тело http-ответа, которое пишется в соединение по частям по мере готовности, а не собирается в памяти целиком */
+public interface StreamingBody extends AutoCloseable {
+    // Пишет тело в поток output, ошибки источника данных передаются как IOException
+    void writeTo(OutputStream output) throws IOException;
+
+    // Освобождает ресурсы источника данных, вызывается сервером всегда: и после записи, и если ответ так и не был отправлен
+    @Override
+    default void close() {
+    }
+}
@@ -0,0 +1,320 @@
+package com.energy.monitoring.uart;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.energy.monitoring.components.CoordinatorCommands;
+import com.energy.monitoring.config.Config;
+import com.energy.monitoring.config.ConfigKeys;
+import com.energy.monitoring.models.CoordinatorResponse;
+import com.energy.monitoring.utils.CommandsUtil;
+import com.energy.monitoring.utils.UartFrameDecoder;
+import com.energy.monitoring.utils.UartUtil;
+import com.fazecast.jSerialComm.SerialPort;
+import com.fazecast.jSerialComm.SerialPortDataListener;
+import com.fazecast.jSerialComm.SerialPortEvent;
+
+/* Очередь команд одного com-порта: команды всех потоков выполняются по одной собственным потоком порта, поэтому байты разных
+   запросов не перемешиваются на линии. Каждая команда получает порядковый номер, ответ засчитывается той команде, которая сейчас
+   на линии, и только если совпадает код команды. Принятые байты разбираются в потоке событий порта, поэтому команда завершается
+   сразу, как только пришёл её кадр, а не по опросу порта. Фоновые команды опроса приборов учёта стоят в отдельной очереди
+   и отправляются, только когда нет ожидающих команд пользователей */
+public class SerialPortChannel {
+    private static final Logger logger = LoggerFactory.getLogger(SerialPortChannel.class); // Объект Logger для текущего класса
+
+    private static final int  QUEUE_CAPACITY = Math.max(1, Config.getInt(ConfigKeys.Uart.QUEUE_CAPACITY)); // Сколько команд может ждать своей очереди на одном порту
+    private static final int  MAX_LEN        = Config.getInt(ConfigKeys.Uart.MAX_LEN);                     // Сколько байт читается из порта за раз
+    private static final int  READ_TIMEOUT   = Config.getInt(ConfigKeys.Uart.RESPONSE_TIMEOUT);            // Сколько мс ждать ответа координатора после отправки запроса
+    private static final int  FRAME_GAP      = Config.getInt(ConfigKeys.Uart.FRAME_GAP);                   // Сколько мс тишины после кадра завершают ответ из нескольких кадров
+    private static final long POLL_TIMEOUT   = 200;                                                         // Как часто поток порта проверяет, не пора ли остановиться, в мс
+
+    private static final Map<String, SerialPortChannel> channels = new ConcurrentHashMap<>(); // Очереди команд по имени порта
+    private static final AtomicLong                     sequence = new AtomicLong();          // Счётчик порядковых номеров команд
+    private static volatile boolean                     stopped;                              // Остановлены ли очереди при остановке сервера
+
+    private final String                       portName;   // Имя com-порта
+    private final BlockingQueue<PendingCommand> queue;      // Команды пользователей, ожидающие отправки
+    private final BlockingQueue<PendingCommand> background; // Фоновые команды, ожидающие отправки
+    private final Semaphore                    pending;    // Количество команд в обеих очередях, на нём ждёт поток порта
+    private final Thread                       worker;     // Поток, выполняющий команды порта
+    private volatile boolean                   running;    // Принимает ли очередь команды
+
+    // Разбор кадров идёт в потоке событий порта, разбор и ответ на команду на линии - под блокировкой объекта очереди
+    private final UartFrameDecoder    decoder    = new UartFrameDecoder(this::onFrame); // Разбор принятых байт на кадры
+    private final byte[]              readBuffer = new byte[MAX_LEN];                   // Буфер чтения из порта
+    private SerialPort                listeningPort;                                    // Порт, на события которого подписана очередь
+    private boolean                   portLost;                                         // Сообщил ли порт об отключении
+    private PendingCommand            current;                                          // Команда, ответ на которую сейчас ждёт порт
+    private List<byte[]>              responseFrames;                                   // Параметры принятых кадров ответа по кадрам
+    private long                      lastFrameAt;                                      // Момент System.nanoTime() приёма последнего кадра
+
+    /* Команда в очереди порта */
+    private static class PendingCommand {
+        private final long                                   sequence; // Порядковый номер команды
+        private final byte                                   code;     // Код команды
+        private final byte[]                                 request;  // Запрос целиком
+        private final long                                   deadline; // Момент System.nanoTime(), после которого ответ уже не ждут
+        private final CompletableFuture<CoordinatorResponse> future;   // Результат: код команды и параметры кадров ответа
+
+        private PendingCommand(long sequence, byte code, byte[] request, long deadline, CompletableFuture<CoordinatorResponse> future) {
+            this.sequence = sequence;
+            this.code     = code;
+            this.request  = request;
+            this.deadline = deadline;
+            this.future   = future;
+        }
+    }
+
+    private SerialPortChannel(String portName) {
+        this.portName = portName;
+        this.queue      = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+        this.background = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+        this.pending    = new Semaphore(0);
+        this.running    = true;
+        this.worker     = Thread.ofPlatform().name("uart-" + portName).daemon().start(this::run);
+    }
+
+    // Возвращает очередь команд com-порта с именем portName, при первом обращении создаёт её, после остановки сервера - null
+    public static SerialPortChannel forPort(String portName) {
+        if (stopped) {
+            return null;
+        }
+        return channels.computeIfAbsent(portName, SerialPortChannel::new);
+    }
+
+    // Останавливает очереди всех портов, ещё не отправленные команды завершаются ошибкой
+    public static void stopAll() {
+        stopped = true;
+        for (SerialPortChannel channel : channels.values()) {
+            channel.running = false;
+        }
+        for (SerialPortChannel channel : channels.values()) {
+            try {
+                channel.worker.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        channels.clear();
+        logger.info("Serial port channels stopped");
+    }
+
+    // Ставит в очередь команду с кодом commandCode и параметрами parameters, результат - код команды и параметры ответа.
+    // Если за timeoutMillis от постановки в очередь ответ не получен, результат завершается TimeoutException,
+    // отменённая до отправки команда в порт не отправляется
+    public CompletableFuture<CoordinatorResponse> submit(byte commandCode, byte[] parameters, long timeoutMillis) {
+        return enqueue(queue, commandCode, parameters, timeoutMillis);
+    }
+
+    // Ставит в фоновую очередь команду с кодом commandCode и параметрами parameters, она отправляется только тогда, когда
+    // команд пользователей в очереди нет, в остальном - как submit
+    public CompletableFuture<CoordinatorResponse> submitBackground(byte commandCode, byte[] parameters, long timeoutMillis) {
+        return enqueue(background, commandCode, parameters, timeoutMillis);
+    }
+
+    // Ставит команду с кодом commandCode и параметрами parameters в очередь target
+    private CompletableFuture<CoordinatorResponse> enqueue(BlockingQueue<PendingCommand> target, byte commandCode, byte[] parameters, long timeoutMillis) {
+        CompletableFuture<CoordinatorResponse> future  = new CompletableFuture<>();
+        PendingCommand                         command = new PendingCommand(sequence.incrementAndGet(), commandCode, CommandsUtil.createRequest(commandCode, parameters),
+                                                               System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis), future);
+        if (!running || !target.offer(command)) {
+            future.completeExceptionally(new RejectedExecutionException("Command queue of serial port " + portName + " is full"));
+            return future;
+        }
+        pending.release();
+        return future.orTimeout(timeoutMillis, TimeUnit.MILLISECONDS);
+    }
+
+    // Выполняет команды из очередей по одной, команды пользователей - раньше фоновых, после остановки отклоняет оставшиеся
+    private void run() {
+        while (running) {
+            try {
+                if (!pending.tryAcquire(POLL_TIMEOUT, TimeUnit.MILLISECONDS)) {
+                    continue;
+                }
+                PendingCommand command = queue.poll();
+                if (command == null) {
+                    command = background.poll();
+                }
+                if (command != null) {
+                    execute(command);
+                }
+            } catch (InterruptedException e) {
+                running = false;
+            }
+        }
+
+        PendingCommand command;
+        while ((command = queue.poll()) != null || (command = background.poll()) != null) {
+            command.future.completeExceptionally(new RejectedExecutionException("Serial port " + portName + " is shutting down"));
+        }
+    }
+
+    // Отправляет команду command в порт и ждёт ответ с тем же кодом команды, если порт отвалился - повторяет один раз на заново открытом порту
+    private void execute(PendingCommand command) {
+        // Команда отменена или просрочена, пока стояла в очереди
+        if (command.future.isDone()) {
+            return;
+        }
+        // Отмена и срок команды будят поток порта, не дожидаясь конца ожидания ответа
+        command.future.whenComplete((result, error) -> wakeUp());
+
+        for (int attempt = 0; attempt < 2; attempt++) {
+            SerialPort port = SerialPortManager.acquire(portName);
+            if (port == null) {
+                command.future.completeExceptionally(new IOException("Serial port " + portName + " could not be opened"));
+                return;
+            }
+            if (port != listeningPort && !listen(port)) {
+                SerialPortManager.invalidate(portName, port);
+                continue;
+            }
+
+            // Остатки ответов на прошлые команды и недоразобранный мусор не должны попасть в ответ на эту
+            port.flushIOBuffers();
+            synchronized (this) {
+                decoder.reset();
+                current        = command;
+                responseFrames = new ArrayList<>();
+            }
+            try {
+                if (port.writeBytes(command.request, command.request.length) != command.request.length) {
+                    throw new IOException("Write to serial port " + portName + " failed");
+                }
+                logger.debug("Command #{} written to {}: {}", command.sequence, portName, UartUtil.convertBytesToString(command.request));
+
+                awaitResponse(command);
+                return;
+            } catch (IOException e) {
+                logger.warn("Command #{} on {} failed: {}", command.sequence, portName, e.getMessage());
+                SerialPortManager.invalidate(portName, port);
+            } finally {
+                synchronized (this) {
+                    current        = null;
+                    responseFrames = null;
+                }
+            }
+        }
+        command.future.completeExceptionally(new IOException("Serial port " + portName + " failed twice, command not sent"));
+    }
+
+    // Подписывается на события приёма данных и отключения порта port, возвращает false, если подписаться не удалось
+    private boolean listen(SerialPort port) {
+        port.setComPortTimeouts(SerialPort.TIMEOUT_NONBLOCKING, 0, 0);
+        synchronized (this) {
+            decoder.reset();
+            portLost = false;
+        }
+        if (!port.addDataListener(new PortListener(port))) {
+            logger.error("Could not listen to serial port {}", portName);
+            return false;
+        }
+        listeningPort = port;
+        return true;
+    }
+
+    // Ждёт, пока кадры ответа на команду command не завершат её или не выйдет срок ожидания.
+    // Ответ из нескольких кадров считается полным, когда после последнего кадра линия молчит FRAME_GAP мс
+    private synchronized void awaitResponse(PendingCommand command) throws IOException {
+        boolean multiFrame = CoordinatorCommands.hasMultiFrameResponse(command.code);
+        long    readUntil  = Math.min(command.deadline, System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(READ_TIMEOUT));
+        try {
+            while (!command.future.isDone()) {
+                if (portLost) {
+                    throw new IOException("Serial port " + portName + " disconnected");
+                }
+
+                long now  = System.nanoTime();
+                long wait = readUntil - now;
+                if (!responseFrames.isEmpty()) {
+                    if (!multiFrame || now - lastFrameAt >= TimeUnit.MILLISECONDS.toNanos(FRAME_GAP)) {
+                        logger.debug("Command #{} answered on {} with {} frames", command.sequence, portName, responseFrames.size());
+                        command.future.complete(new CoordinatorResponse(command.code, responseFrames));
+                        return;
+                    }
+                    wait = lastFrameAt + TimeUnit.MILLISECONDS.toNanos(FRAME_GAP) - now;
+                } else
+                if (wait <= 0) {
+                    break;
+                }
+                wait(Math.max(1, TimeUnit.NANOSECONDS.toMillis(wait)));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            running = false;
+        }
+        command.future.completeExceptionally(new TimeoutException("No response from serial port " + portName + " to command #" + command.sequence));
+    }
+
+    // Будит поток порта, ждущий ответа
+    private synchronized void wakeUp() {
+        notifyAll();
+    }
+
+    // Принимает разобранный кадр с кодом команды commandCode и параметрами parameters: кадр с кодом команды на линии добавляется к её ответу отдельным кадром
+    private synchronized void onFrame(byte commandCode, ByteBuffer parameters) {
+        PendingCommand command = current;
+        if (command == null || commandCode != command.code) {
+            logger.warn("Dropped unexpected frame with command code {} on {}", String.format("%02X", commandCode & 0xFF), portName);
+            return;
+        }
+
+        byte[] frame = new byte[parameters.remaining()];
+        parameters.get(frame);
+        responseFrames.add(frame);
+        lastFrameAt = System.nanoTime();
+        notifyAll();
+    }
+
+    /* Приём данных порта в потоке событий jSerialComm: принятые байты сразу идут в разбор кадров */
+    private class PortListener implements SerialPortDataListener {
+        private final SerialPort port; // Порт, на события которого подписан приёмник
+
+        private PortListener(SerialPort port) {
+            this.port = port;
+        }
+
+        @Override
+        public int getListeningEvents() {
+            return SerialPort.LISTENING_EVENT_DATA_AVAILABLE | SerialPort.LISTENING_EVENT_PORT_DISCONNECTED;
+        }
+
+        @Override
+        public void serialEvent(SerialPortEvent event) {
+            if (event.getEventType() == SerialPort.LISTENING_EVENT_PORT_DISCONNECTED) {
+                synchronized (SerialPortChannel.this) {
+                    portLost = true;
+                    SerialPortChannel.this.notifyAll();
+                }
+                return;
+            }
+
+            int available;
+            while ((available = port.bytesAvailable()) > 0) {
+                int length = port.readBytes(readBuffer, Math.min(available, readBuffer.length));
+                if (length <= 0) {
+                    break;
+                }
+                synchronized (SerialPortChannel.this) {
+                    decoder.feed(readBuffer, 0, length);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package com.energy.monitoring.uart;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.energy.monitoring.config.Config;
+import com.energy.monitoring.config.ConfigKeys;
+import com.fazecast.jSerialComm.SerialPort;
+import com.fazecast.jSerialComm.SerialPortInvalidPortException;
+
+/* Открытые com-порты координаторов: порт открывается и настраивается при первой команде и остаётся открытым до остановки сервера,
+   после ошибки обмена порт закрывается и открывается заново при следующей команде */
+public class SerialPortManager {
+    private static final Logger logger = LoggerFactory.getLogger(SerialPortManager.class); // Объект Logger для текущего класса
+
+    private static final int BAUD_RATE = Config.getInt(ConfigKeys.Uart.BAUND_RATE);
+    private static final int DATA_BITS = Config.getInt(ConfigKeys.Uart.DATA_BITS);
+    private static final int STOP_BITS = Config.getInt(ConfigKeys.Uart.STOP_BITS);
+    private static final int PARITY    = Config.getInt(ConfigKeys.Uart.PARITY);
+
+    private static final Map<String, SerialPort> ports = new ConcurrentHashMap<>(); // Открытые порты по имени
+    private static volatile boolean              closed;                            // Закрыты ли порты при остановке сервера
+
+    // Возвращает открытый и настроенный com-порт с именем portName, при необходимости открывает его, если порт не открывается - null
+    public static SerialPort acquire(String portName) {
+        if (closed) {
+            return null;
+        }
+
+        SerialPort port = ports.get(portName);
+        if (port != null && port.isOpen()) {
+            return port;
+        }
+
+        // Открытие порта под блокировкой записи карты, чтобы два потока не открыли один порт одновременно
+        return ports.compute(portName, (name, current) -> {
+            if (current != null) {
+                if (current.isOpen()) {
+                    return current;
+                }
+                current.closePort();
+            }
+            return open(name);
+        });
+    }
+
+    // Закрывает com-порт port с именем portName после ошибки обмена, следующий вызов acquire откроет порт заново
+    public static void invalidate(String portName, SerialPort port) {
+        if (ports.remove(portName, port)) {
+            port.closePort();
+            logger.warn("Serial port {} closed after I/O error, it will be reopened on next command", portName);
+        }
+    }
+
+    // Закрывает все открытые com-порты, после этого порты больше не открываются
+    public static void closeAll() {
+        closed = true;
+        for (Map.Entry<String, SerialPort> entry : ports.entrySet()) {
+            if (ports.remove(entry.getKey(), entry.getValue())) {
+                entry.getValue().closePort();
+                logger.info("Serial port {} closed", entry.getKey());
+            }
+        }
+    }
+
+    // Открывает и настраивает com-порт с именем portName, если порт не открывается - null
+    private static SerialPort open(String portName) {
+        SerialPort port;
+        try {
+            port = SerialPort.getCommPort(portName);
+        } catch (SerialPortInvalidPortException e) {
+            logger.error("Serial port {} not found: {}", portName, e.getMessage());
+            return null;
+        }
+
+        port.setComPortParameters(BAUD_RATE, DATA_BITS, STOP_BITS, PARITY);
+        port.setComPortTimeouts(SerialPort.TIMEOUT_NONBLOCKING, 0, 0);
+        if (!port.openPort()) {
+            logger.error("Serial port {} could not be opened, error code {}", portName, port.getLastErrorCode());
+            return null;
+        }
+
+        logger.info("Serial port {} opened", portName);
+        return port;
+    }
+}
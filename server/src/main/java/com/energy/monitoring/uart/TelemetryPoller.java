@@ -0,0 +1,258 @@
+package com.energy.monitoring.uart;
+
+import java.sql.SQLException;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.energy.monitoring.components.CoordinatorCommands;
+import com.energy.monitoring.components.HttpConstructions.DeviseStatuses;
+import com.energy.monitoring.config.Config;
+import com.energy.monitoring.config.ConfigKeys;
+import com.energy.monitoring.database.dao.MeterDAO;
+import com.energy.monitoring.metrics.MetricsRegistry;
+import com.energy.monitoring.models.Meter;
+import com.energy.monitoring.utils.CommandsUtil;
+import com.energy.monitoring.utils.UartUtil;
+
+/* Фоновый опрос показаний приборов учёта: каждый online прибор опрашивается ПИРС-запросом через свой координатор со своим
+   интервалом координатора и случайным сдвигом. На каждом координаторе в работе не больше одного запроса, запросы стоят
+   в фоновой очереди порта и не задерживают команды пользователей. Интервал опроса молчащего прибора растёт вдвое после каждой
+   неудачи. Всё расписание ведёт один поток, показания записываются через очередь записи показаний */
+public class TelemetryPoller {
+    private static final Logger logger = LoggerFactory.getLogger(TelemetryPoller.class); // Объект Logger для текущего класса
+
+    private static final boolean ENABLED          = Config.getBoolean(ConfigKeys.Poller.ENABLED);                       // Включён ли фоновый опрос
+    private static final long    INTERVAL         = Math.max(1, Config.getLong(ConfigKeys.Poller.INTERVAL));            // Интервал опроса прибора по умолчанию, в мс
+    private static final long    JITTER           = Math.max(0, Config.getLong(ConfigKeys.Poller.JITTER));              // Наибольший случайный сдвиг опроса, в мс
+    private static final long    MAX_BACKOFF      = Config.getLong(ConfigKeys.Poller.MAX_BACKOFF);                      // Наибольший интервал опроса молчащего прибора, в мс
+    private static final long    COMMAND_TIMEOUT  = Config.getLong(ConfigKeys.Poller.COMMAND_TIMEOUT);                  // Сколько мс ждать ответа прибора
+    private static final long    REFRESH_INTERVAL = Math.max(1, Config.getLong(ConfigKeys.Poller.REFRESH_INTERVAL));    // Как часто перечитывается список приборов, в мс
+    private static final int     MAX_BACKOFF_STEP = 20;                                                                  // Больше скольких удвоений интервал не растёт
+
+    private static final Map<String, CoordinatorSchedule> coordinators = new HashMap<>(); // Расписания опроса по mac-адресу координатора, только для потока опроса
+    private static final MeterDAO                         meterDAO     = new MeterDAO();
+    private static final LongAdder                        polled       = new LongAdder(); // Количество полученных показаний
+    private static final LongAdder                        failed       = new LongAdder(); // Количество опросов без ответа или с неверным ответом
+    private static final LongAdder                        dropped      = new LongAdder(); // Количество показаний, не поместившихся в очередь записи
+    private static volatile int                           scheduled;                      // Количество опрашиваемых приборов
+    private static ScheduledExecutorService               scheduler;                      // Поток опроса
+
+    /* Расписание опроса одного прибора учёта */
+    private static class MeterSchedule {
+        private final int   meterId;     // id прибора учёта
+        private final short zbShortAddr; // Короткий адрес узла прибора в сети координатора
+        private long        nextPollAt;  // Момент System.nanoTime() следующего опроса
+        private int         failures;    // Количество неудачных опросов подряд
+
+        private MeterSchedule(int meterId, short zbShortAddr, long nextPollAt) {
+            this.meterId     = meterId;
+            this.zbShortAddr = zbShortAddr;
+            this.nextPollAt  = nextPollAt;
+        }
+    }
+
+    /* Расписание опроса приборов учёта одного координатора, приборы опрашиваются по одному в порядке наступления срока */
+    private static class CoordinatorSchedule {
+        private final String                       mac;      // mac-адрес координатора
+        private final long                         interval; // Интервал опроса прибора, в мс
+        private final Map<Integer, MeterSchedule>  meters   = new HashMap<>();                                                  // Расписания по id прибора
+        private final PriorityQueue<MeterSchedule> due      = new PriorityQueue<>(Comparator.comparingLong(m -> m.nextPollAt)); // Ожидающие опроса приборы
+        private MeterSchedule                      inFlight; // Прибор, ответ которого сейчас ждёт координатор
+        private ScheduledFuture<?>                 wakeUp;   // Запланированный опрос следующего прибора
+        private boolean                            removed;  // Убран ли координатор из опроса
+
+        private CoordinatorSchedule(String mac, long interval) {
+            this.mac      = mac;
+            this.interval = interval;
+        }
+
+        // Сверяет расписание со списком приборов list: новые приборы получают случайный срок в пределах интервала, чтобы
+        // опросы не шли пачкой, пропавшие из списка убираются
+        private void update(List<Meter> list) {
+            long         now   = System.nanoTime();
+            Set<Integer> known = new HashSet<>(list.size() * 2);
+            for (Meter meter : list) {
+                known.add(meter.getId());
+                if (!meters.containsKey(meter.getId())) {
+                    MeterSchedule schedule = new MeterSchedule(meter.getId(), meter.getZbShortAddr(), now + TimeUnit.MILLISECONDS.toNanos(ThreadLocalRandom.current().nextLong(interval)));
+                    meters.put(meter.getId(), schedule);
+                    due.add(schedule);
+                }
+            }
+            if (meters.keySet().retainAll(known)) {
+                due.removeIf(schedule -> !known.contains(schedule.meterId));
+            }
+            pollNext();
+        }
+
+        // Отправляет запрос прибору с наступившим сроком опроса, если срок ещё не наступил - планирует опрос на этот срок
+        private void pollNext() {
+            if (removed || inFlight != null) {
+                return;
+            }
+            if (wakeUp != null) {
+                wakeUp.cancel(false);
+                wakeUp = null;
+            }
+
+            MeterSchedule next = due.peek();
+            if (next == null) {
+                return;
+            }
+            long delay = next.nextPollAt - System.nanoTime();
+            if (delay > 0) {
+                wakeUp = scheduler.schedule(this::pollNext, delay, TimeUnit.NANOSECONDS);
+                return;
+            }
+
+            due.poll();
+            inFlight = next;
+            UartUtil.sendBackgroundCommandAsync(mac, CoordinatorCommands.Codes.SINK_COMMAND_MYRMIDON, CommandsUtil.createTelemetryRequest(next.zbShortAddr), COMMAND_TIMEOUT)
+                    .whenComplete((response, error) -> runOnPoller(() -> complete(next, error == null ? CommandsUtil.parseTelemetryResponse(next.zbShortAddr, response) : null)));
+        }
+
+        // Записывает показания values прибора schedule и назначает ему следующий опрос, если показаний нет - с увеличенным интервалом
+        private void complete(MeterSchedule schedule, double[] values) {
+            inFlight = null;
+            if (removed || meters.get(schedule.meterId) != schedule) {
+                pollNext();
+                return;
+            }
+
+            long delay;
+            if (values != null) {
+                polled.increment();
+                schedule.failures = 0;
+                delay = interval;
+                if (!meterDAO.updateMeterData(schedule.meterId, values[0], values[1], values[2], values[3], values[4], values[5], values[6], values[7])) {
+                    dropped.increment();
+                }
+            } else {
+                failed.increment();
+                schedule.failures++;
+                delay = Math.min(interval << Math.min(schedule.failures, MAX_BACKOFF_STEP), Math.max(interval, MAX_BACKOFF));
+                logger.debug("Meter {} on coordinator {} did not answer {} times, next poll in {} ms", schedule.meterId, mac, schedule.failures, delay);
+            }
+            if (JITTER > 0) {
+                delay = Math.max(0, delay + ThreadLocalRandom.current().nextLong(-JITTER, JITTER + 1));
+            }
+            schedule.nextPollAt = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(delay);
+            due.add(schedule);
+            pollNext();
+        }
+
+        // Убирает координатор из опроса, ответ на уже отправленный запрос будет проигнорирован
+        private void remove() {
+            removed = true;
+            if (wakeUp != null) {
+                wakeUp.cancel(false);
+            }
+        }
+    }
+
+    // Запускает фоновый опрос, если он включён в настройках
+    public static synchronized void start() {
+        if (!ENABLED || scheduler != null) {
+            return;
+        }
+
+        scheduler = Executors.newSingleThreadScheduledExecutor(task -> Thread.ofPlatform().name("telemetry-poller").daemon().unstarted(task));
+        scheduler.scheduleWithFixedDelay(TelemetryPoller::refresh, 0, REFRESH_INTERVAL, TimeUnit.MILLISECONDS);
+        registerMetrics();
+    }
+
+    // Останавливает фоновый опрос, ответы на уже отправленные запросы не записываются
+    public static synchronized void stop() {
+        if (scheduler == null) {
+            return;
+        }
+
+        scheduler.shutdownNow();
+        try {
+            scheduler.awaitTermination(5000, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        scheduler = null;
+        logger.info("Telemetry poller stopped");
+    }
+
+    // Перечитывает из базы online приборы учёта и сверяет с ними расписания координаторов, у которых известен com-порт
+    private static void refresh() {
+        Map<String, List<Meter>> meters;
+        try {
+            meters = meterDAO.getPolledMeters(DeviseStatuses.ONLINE);
+        } catch (SQLException | RuntimeException e) {
+            logger.error("Failed to load meters for polling: {}", e.getMessage());
+            return;
+        }
+
+        meters.keySet().removeIf(mac -> UartUtil.getCommPortByMacAddress(mac) == null);
+        coordinators.entrySet().removeIf(entry -> {
+            if (meters.containsKey(entry.getKey())) {
+                return false;
+            }
+            entry.getValue().remove();
+            return true;
+        });
+
+        int count = 0;
+        for (Map.Entry<String, List<Meter>> entry : meters.entrySet()) {
+            coordinators.computeIfAbsent(entry.getKey(), mac -> new CoordinatorSchedule(mac, getIntervalByMacAddress(mac))).update(entry.getValue());
+            count += entry.getValue().size();
+        }
+        scheduled = count;
+    }
+
+    // Выполняет task в потоке опроса, после остановки опроса задача отбрасывается
+    private static void runOnPoller(Runnable task) {
+        ScheduledExecutorService executor = scheduler;
+        if (executor == null) {
+            return;
+        }
+        try {
+            executor.execute(task);
+        } catch (RejectedExecutionException e) {
+            // Опрос остановлен
+        }
+    }
+
+    // Возвращает интервал опроса приборов координатора с mac-адресом macAddress, если свой интервал не задан - интервал по умолчанию
+    private static long getIntervalByMacAddress(String macAddress) {
+        String[] macAddresses = Config.getString(ConfigKeys.Uart.MAC_ARDRESSES).split(",");
+        String[] intervals    = Config.getString(ConfigKeys.Poller.INTERVALS).split(",", -1);
+        for (int i = 0; i < macAddresses.length && i < intervals.length; i++) {
+            if (macAddresses[i].equals(macAddress) && !intervals[i].isBlank()) {
+                try {
+                    return Math.max(1, Long.parseLong(intervals[i].trim()));
+                } catch (NumberFormatException e) {
+                    logger.warn("Invalid polling interval '{}' for coordinator {}, using {} ms", intervals[i], macAddress, INTERVAL);
+                }
+            }
+        }
+        return INTERVAL;
+    }
+
+    // Регистрирует показатели фонового опроса в реестре метрик
+    private static void registerMetrics() {
+        MetricsRegistry.registerGauge("poller_meters", "Meters scheduled for background telemetry polling", () -> scheduled);
+        MetricsRegistry.registerCounter("poller_readings_total", "Meter readings received by background polling", polled::sum);
+        MetricsRegistry.registerCounter("poller_failures_total", "Background polls that got no valid answer", failed::sum);
+        MetricsRegistry.registerCounter("poller_readings_dropped_total", "Polled meter readings dropped because the ingest queue was full", dropped::sum);
+    }
+}
@@ -1,9 +1,23 @@
 package com.energy.monitoring.utils;
 
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
+
+import com.energy.monitoring.components.CoordinatorCommands;
+import com.energy.monitoring.models.CoordinatorResponse;
 
 /* Инструменты для работы с сообщениями координатора*/
 public class CommandsUtil { 
+    // Границы правдоподобных показаний прибора учёта в порядке столбцов таблицы показаний: напряжение в В, ток в А, активная
+    // и реактивная мощность в Вт и вар, полная мощность в ВА, коэффициент мощности, частота в Гц и ток нейтрали в А
+    private static final double[] TELEMETRY_MIN = {    0,     0, -1_000_000, -1_000_000,         0, -1,  40,     0 };
+    private static final double[] TELEMETRY_MAX = { 1000, 10000,  1_000_000,  1_000_000, 1_000_000,  1,  70, 10000 };
+    private static final int      VOLTAGE       = 0; // Номер напряжения среди показаний
+    private static final int      FREQUENCY     = 6; // Номер частоты среди показаний
+
     // Формирует координатору запрос с кодом commandCode и параметрами parameters
     public static byte[] createRequest(byte commandCode, byte[] parameters) {
         int parametersLen = parameters != null ? parameters.length : 0;
@@ -22,28 +36,60 @@ public class CommandsUtil {
         return command;
     }
 
-    // Принимает ответ от координатора response и возвращает набор байт, где первый - код команды, на которую был ответ, а затем все параметры 
-    public static byte[] parseResponse(byte[] response) {
-        final int MIN_LENGTH_OF_CORRECT_MESSAGE = 5;
-        if (response.length >= MIN_LENGTH_OF_CORRECT_MESSAGE) {
-            byte[] message;
-            if (response[2] != 7) {
-                message = new byte[response.length - 4];
-                message[0] = response[2];
-                System.arraycopy(response, 4, message, 1, response.length - 5);
-            } else {
-                final int LEN_OF_ONE_UNSWER = 13;
-                int numberOfMeters = response.length / 18;
-                message = new byte[1 + LEN_OF_ONE_UNSWER * numberOfMeters];
-                message[0] = response[2];
-                for (int i = 0; i < numberOfMeters; i++) {
-                    System.arraycopy(response, 4 + (LEN_OF_ONE_UNSWER + MIN_LENGTH_OF_CORRECT_MESSAGE) * i, message, LEN_OF_ONE_UNSWER * i + 1, LEN_OF_ONE_UNSWER);
-                }
+    // Принимает ответ от координатора response и возвращает код команды, на которую был ответ, и параметры каждого кадра ответа
+    // с этим кодом. Мусор и повреждённые кадры пропускаются, если целых кадров нет - null
+    public static CoordinatorResponse parseResponse(byte[] response) {
+        List<byte[]> frames       = new ArrayList<>();
+        byte[]       responseCode = new byte[1];
+        new UartFrameDecoder((commandCode, parameters) -> {
+            if (frames.isEmpty()) {
+                responseCode[0] = commandCode;
+            } else
+            if (responseCode[0] != commandCode) {
+                return;
             }
+            byte[] frame = new byte[parameters.remaining()];
+            parameters.get(frame);
+            frames.add(frame);
+        }).feed(response, 0, response.length);
+
+        return frames.isEmpty() ? null : new CoordinatorResponse(responseCode[0], frames);
+    }
+
+    // Формирует параметры команды SINK_COMMAND_MYRMIDON с ПИРС-запросом показаний узла с коротким адресом zbShortAddr:
+    // короткий адрес в порядке little-endian и код ПИРС-запроса
+    public static byte[] createTelemetryRequest(short zbShortAddr) {
+        return new byte[] { (byte) zbShortAddr, (byte) (zbShortAddr >> 8), CoordinatorCommands.PirsRequests.READ_TELEMETRY };
+    }
 
-            return message;
+    // Принимает ответ response на ПИРС-запрос показаний узла с коротким адресом zbShortAddr и возвращает
+    // напряжение, ток, активную, реактивную и полную мощность, коэффициент мощности, частоту и ток нейтрали в порядке столбцов
+    // таблицы показаний. Ответ - один кадр: короткий адрес узла и 8 значений float в порядке little-endian. Если ответ другой или
+    // хотя бы одно значение физически невозможно, что значит, что кадр другого формата, - null
+    public static double[] parseTelemetryResponse(short zbShortAddr, CoordinatorResponse response) {
+        if (response == null || response.getFrames().size() != 1 || response.getFrames().get(0).length != CoordinatorCommands.PayloadSizes.PIRS_TELEMETRY) {
+            return null;
         }
 
-        return null;
+        ByteBuffer parameters = ByteBuffer.wrap(response.getFrames().get(0)).order(ByteOrder.LITTLE_ENDIAN);
+        if (parameters.getShort() != zbShortAddr) {
+            return null;
+        }
+        double[] values = new double[8];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = parameters.getFloat();
+        }
+        return isPlausibleTelemetry(values) ? values : null;
+    }
+
+    // Возвращает true, если все показания values лежат в правдоподобных границах, частота 0 допустима только у обесточенного прибора
+    private static boolean isPlausibleTelemetry(double[] values) {
+        for (int i = 0; i < values.length; i++) {
+            boolean deenergized = i == FREQUENCY && values[i] == 0 && values[VOLTAGE] == 0;
+            if (!deenergized && !(values[i] >= TELEMETRY_MIN[i] && values[i] <= TELEMETRY_MAX[i])) {
+                return false;
+            }
+        }
+        return true;
     }
 }
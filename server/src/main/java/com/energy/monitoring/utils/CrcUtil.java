@@ -38,18 +38,23 @@ public class CrcUtil {
         (byte)0xE6, (byte)0xE1, (byte)0xE8, (byte)0xEF, (byte)0xFA, (byte)0xFD, (byte)0xF4, (byte)0xF3
     };
 
-    // Возвращает контрольную сумму CRC-8/SMBUS для length байт из массива data
-    public static byte calculateCRC(byte[] data, int length) {
+    // Возвращает контрольную сумму CRC-8/SMBUS для length байт из массива data начиная с offset
+    public static byte calculateCRC(byte[] data, int offset, int length) {
         byte crc = 0x00;
-        int len  = length;
+        int end  = offset + length;
         
-        for (int i = 0; i < len; i++) {
+        for (int i = offset; i < end; i++) {
             crc = CRC_TABLE[(crc ^ data[i]) & 0xFF];
         }
         
         return crc;
     }
 
+    // Возвращает контрольную сумму CRC-8/SMBUS для length байт из массива data
+    public static byte calculateCRC(byte[] data, int length) {
+        return calculateCRC(data, 0, length);
+    }
+
     // Возвращает контрольную сумму CRC-8/SMBUS для массива data
     public static byte calculateCRC(byte[] data) {
         return calculateCRC(data, data.length);
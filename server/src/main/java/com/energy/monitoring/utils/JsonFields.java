@@ -0,0 +1,355 @@
+package com.energy.monitoring.utils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/* Поля верхнего уровня json-объекта, разобранного за один проход: хранятся границы в исходных байтах, строки декодируются только при обращении */
+public class JsonFields {
+    private static final int STRING         = 0; // Строка без escape-последовательностей
+    private static final int STRING_ESCAPED = 1; // Строка с escape-последовательностями
+    private static final int NUMBER         = 2;
+    private static final int LITERAL        = 3; // true или false
+    private static final int NULL           = 4;
+    private static final int NESTED         = 5; // Вложенный объект или массив
+
+    private static final int FIELD_SIZE = 5; // Количество чисел на поле: начало и конец имени, начало и конец значения, тип значения
+
+    private final byte[] data;     // Исходные байты json
+    private       int[]  bounds;   // Границы полей, у строк - без кавычек
+    private       int    count;    // Количество полей
+    private       int    position; // Текущая позиция разбора
+
+    /* Ошибка разбора json с позицией, на которой она обнаружена */
+    public static class ParseException extends Exception {
+        private static final long serialVersionUID = 1L;
+
+        public ParseException(String message, int position) {
+            super(message + " at position " + position);
+        }
+    }
+
+    private JsonFields(byte[] data) {
+        this.data   = data;
+        this.bounds = new int[FIELD_SIZE * 8];
+    }
+
+    // Разбирает json-объект из байт UTF-8 data
+    public static JsonFields parse(byte[] data) throws ParseException {
+        JsonFields fields = new JsonFields(data);
+        fields.parseObject();
+        return fields;
+    }
+
+    // Возвращает true, если у объекта есть поле key
+    public boolean has(String key) {
+        return indexOf(key) != -1;
+    }
+
+    public int size() {
+        return count;
+    }
+
+    // Возвращает значение поля key: у строки - её декодированное содержимое, у числа, true/false и вложенного объекта - исходный текст,
+    // если поля нет или оно равно null - null
+    public String getString(String key) {
+        int index = indexOf(key);
+        if (index == -1) {
+            return null;
+        }
+
+        int start = bounds[FIELD_SIZE * index + 2];
+        int end   = bounds[FIELD_SIZE * index + 3];
+        return switch (bounds[FIELD_SIZE * index + 4]) {
+            case NULL           -> null;
+            case STRING_ESCAPED -> unescape(start, end);
+            default             -> new String(data, start, end - start, StandardCharsets.UTF_8);
+        };
+    }
+
+    // Возвращает целое значение поля key, записанное числом или строкой, если поля нет, оно равно null или пустой строке - defaultValue
+    public int getInt(String key, int defaultValue) throws ParseException {
+        int index = indexOf(key);
+        if (index == -1 || bounds[FIELD_SIZE * index + 4] == NULL) {
+            return defaultValue;
+        }
+
+        int     start    = bounds[FIELD_SIZE * index + 2];
+        int     end      = bounds[FIELD_SIZE * index + 3];
+        int     type     = bounds[FIELD_SIZE * index + 4];
+        if (type == STRING && start == end) {
+            return defaultValue;
+        }
+        int     i        = start;
+        boolean negative = i < end && data[i] == '-';
+        if (negative) {
+            i++;
+        }
+        if (i == end || (type != NUMBER && type != STRING)) {
+            throw new ParseException("Field " + key + " is not an integer", start);
+        }
+
+        long value = 0;
+        for (; i < end; i++) {
+            byte digit = data[i];
+            if (digit < '0' || digit > '9') {
+                throw new ParseException("Field " + key + " is not an integer", start);
+            }
+            value = value * 10 + (digit - '0');
+            if (value > Integer.MAX_VALUE + 1L) {
+                throw new ParseException("Field " + key + " is out of range", start);
+            }
+        }
+
+        value = negative ? -value : value;
+        if (value > Integer.MAX_VALUE) {
+            throw new ParseException("Field " + key + " is out of range", start);
+        }
+        return (int) value;
+    }
+
+    // Возвращает порядковый номер последнего поля с именем key, если такого нет - -1
+    private int indexOf(String key) {
+        for (int i = count - 1; i >= 0; i--) {
+            if (keyEquals(i, key)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    // Возвращает true, если имя поля с номером index равно key
+    private boolean keyEquals(int index, String key) {
+        int start = bounds[FIELD_SIZE * index];
+        int end   = bounds[FIELD_SIZE * index + 1];
+        if (end - start == key.length()) {
+            boolean equal = true;
+            for (int i = 0; i < key.length() && equal; i++) {
+                char symbol = key.charAt(i);
+                equal = symbol < 0x80 && data[start + i] == symbol;
+            }
+            if (equal) {
+                return true;
+            }
+        }
+
+        // Имена с escape-последовательностями и не-ASCII символами сравниваются после декодирования
+        for (int i = start; i < end; i++) {
+            if (data[i] == '\\' || data[i] < 0) {
+                return unescape(start, end).equals(key);
+            }
+        }
+        return false;
+    }
+
+    // Разбирает объект верхнего уровня, запоминая границы его полей
+    private void parseObject() throws ParseException {
+        skipSpaces();
+        expect('{');
+        skipSpaces();
+        if (peek() == '}') {
+            position++;
+        } else {
+            while (true) {
+                skipSpaces();
+                expect('"');
+                int keyStart = position;
+                skipString();
+                int keyEnd   = position - 1;
+
+                skipSpaces();
+                expect(':');
+                skipSpaces();
+
+                int valueStart = position;
+                int type       = skipValue();
+                int valueEnd   = position;
+                if (type == STRING || type == STRING_ESCAPED) {
+                    valueStart++;
+                    valueEnd--;
+                }
+                addField(keyStart, keyEnd, valueStart, valueEnd, type);
+
+                skipSpaces();
+                byte next = next();
+                if (next == '}') {
+                    break;
+                }
+                if (next != ',') {
+                    throw new ParseException("Expected , or }", position - 1);
+                }
+            }
+        }
+
+        skipSpaces();
+        if (position != data.length) {
+            throw new ParseException("Unexpected data after object", position);
+        }
+    }
+
+    // Пропускает значение, начинающееся с текущей позиции, и возвращает его тип
+    private int skipValue() throws ParseException {
+        byte first = peek();
+        switch (first) {
+            case '"' -> {
+                position++;
+                return skipString() ? STRING_ESCAPED : STRING;
+            }
+            case '{', '[' -> {
+                skipNested();
+                return NESTED;
+            }
+            case 't' -> {
+                skipLiteral("true");
+                return LITERAL;
+            }
+            case 'f' -> {
+                skipLiteral("false");
+                return LITERAL;
+            }
+            case 'n' -> {
+                skipLiteral("null");
+                return NULL;
+            }
+            default -> {
+                skipNumber();
+                return NUMBER;
+            }
+        }
+    }
+
+    // Пропускает строку до закрывающей кавычки включительно, начиная после открывающей, возвращает true, если в ней есть escape-последовательности
+    private boolean skipString() throws ParseException {
+        boolean escaped = false;
+        while (true) {
+            byte symbol = next();
+            if (symbol == '"') {
+                return escaped;
+            }
+            if (symbol == '\\') {
+                escaped = true;
+                byte escape = next();
+                if (escape == 'u') {
+                    for (int i = 0; i < 4; i++) {
+                        if (Character.digit(next(), 16) == -1) {
+                            throw new ParseException("Invalid unicode escape", position - 1);
+                        }
+                    }
+                } else
+                if ("\"\\/bfnrt".indexOf(escape) == -1) {
+                    throw new ParseException("Invalid escape", position - 1);
+                }
+            } else
+            if (symbol >= 0 && symbol < 0x20) {
+                throw new ParseException("Control character in string", position - 1);
+            }
+        }
+    }
+
+    // Пропускает вложенный объект или массив целиком, не разбирая его поля
+    private void skipNested() throws ParseException {
+        int depth = 0;
+        do {
+            byte symbol = next();
+            if (symbol == '"') {
+                skipString();
+            } else
+            if (symbol == '{' || symbol == '[') {
+                depth++;
+            } else
+            if (symbol == '}' || symbol == ']') {
+                depth--;
+            }
+        } while (depth > 0);
+    }
+
+    // Пропускает литерал literal
+    private void skipLiteral(String literal) throws ParseException {
+        for (int i = 0; i < literal.length(); i++) {
+            if (next() != literal.charAt(i)) {
+                throw new ParseException("Invalid literal", position - 1);
+            }
+        }
+    }
+
+    // Пропускает число
+    private void skipNumber() throws ParseException {
+        int start = position;
+        while (position < data.length) {
+            byte symbol = data[position];
+            if ((symbol >= '0' && symbol <= '9') || symbol == '-' || symbol == '+' || symbol == '.' || symbol == 'e' || symbol == 'E') {
+                position++;
+            } else {
+                break;
+            }
+        }
+        if (position == start) {
+            throw new ParseException("Unexpected character", position);
+        }
+    }
+
+    // Возвращает декодированное содержимое строки в байтах [start, end)
+    private String unescape(int start, int end) {
+        StringBuilder result = new StringBuilder(end - start);
+        int run = start;
+        int i   = start;
+        while (i < end) {
+            if (data[i] != '\\') {
+                i++;
+                continue;
+            }
+
+            result.append(new String(data, run, i - run, StandardCharsets.UTF_8));
+            byte escape = data[i + 1];
+            switch (escape) {
+                case 'n' -> result.append('\n');
+                case 'r' -> result.append('\r');
+                case 't' -> result.append('\t');
+                case 'b' -> result.append('\b');
+                case 'f' -> result.append('\f');
+                case 'u' -> result.append((char) Integer.parseInt(new String(data, i + 2, 4, StandardCharsets.US_ASCII), 16));
+                default  -> result.append((char) escape);
+            }
+            i  += escape == 'u' ? 6 : 2;
+            run = i;
+        }
+        return result.append(new String(data, run, end - run, StandardCharsets.UTF_8)).toString();
+    }
+
+    // Запоминает границы очередного поля
+    private void addField(int keyStart, int keyEnd, int valueStart, int valueEnd, int type) {
+        if (FIELD_SIZE * (count + 1) > bounds.length) {
+            bounds = Arrays.copyOf(bounds, bounds.length * 2);
+        }
+        bounds[FIELD_SIZE * count]     = keyStart;
+        bounds[FIELD_SIZE * count + 1] = keyEnd;
+        bounds[FIELD_SIZE * count + 2] = valueStart;
+        bounds[FIELD_SIZE * count + 3] = valueEnd;
+        bounds[FIELD_SIZE * count + 4] = type;
+        count++;
+    }
+
+    private void skipSpaces() {
+        while (position < data.length && (data[position] == ' ' || data[position] == '\t' || data[position] == '\n' || data[position] == '\r')) {
+            position++;
+        }
+    }
+
+    private void expect(char symbol) throws ParseException {
+        if (next() != symbol) {
+            throw new ParseException("Expected " + symbol, position - 1);
+        }
+    }
+
+    private byte peek() throws ParseException {
+        if (position >= data.length) {
+            throw new ParseException("Unexpected end of data", position);
+        }
+        return data[position];
+    }
+
+    private byte next() throws ParseException {
+        byte symbol = peek();
+        position++;
+        return symbol;
+    }
+}
@@ -0,0 +1,315 @@
+package com.energy.monitoring.utils;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+
+/* Потоковая запись json сразу в байты UTF-8: в собственный растущий буфер или порциями в поток вывода */
+public class JsonWriter {
+    private static final int    DEFAULT_CAPACITY = 256;
+    private static final byte[] HEX              = { '0', '1', '2', '3', '4', '5', '6', '7', '8', '9', 'a', 'b', 'c', 'd', 'e', 'f' };
+    private static final byte[] NULL             = { 'n', 'u', 'l', 'l' };
+    private static final byte[] TRUE             = { 't', 'r', 'u', 'e' };
+    private static final byte[] FALSE            = { 'f', 'a', 'l', 's', 'e' };
+
+    private final OutputStream output;     // Поток, в который сбрасывается заполненный буфер, при записи в память - null
+    private       byte[]       buffer;     // Записанные, но ещё не сброшенные байты
+    private       int          position;   // Количество байт в буфере
+    private       boolean      needsComma; // Нужна ли запятая перед следующим элементом
+
+    // Писатель в память, результат забирается методом toByteArray
+    public JsonWriter() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    // Писатель в память с начальным размером буфера capacity
+    public JsonWriter(int capacity) {
+        this.output = null;
+        this.buffer = new byte[Math.max(capacity, 16)];
+    }
+
+    // Писатель в поток output, заполненный буфер сбрасывается в поток, остаток - методом flush
+    public JsonWriter(OutputStream output, int bufferSize) {
+        this.output = output;
+        this.buffer = new byte[Math.max(bufferSize, 16)];
+    }
+
+    // Открывает объект
+    public JsonWriter beginObject() {
+        separate();
+        writeByte('{');
+        needsComma = false;
+        return this;
+    }
+
+    // Закрывает объект
+    public JsonWriter endObject() {
+        writeByte('}');
+        needsComma = true;
+        return this;
+    }
+
+    // Открывает массив
+    public JsonWriter beginArray() {
+        separate();
+        writeByte('[');
+        needsComma = false;
+        return this;
+    }
+
+    // Закрывает массив
+    public JsonWriter endArray() {
+        writeByte(']');
+        needsComma = true;
+        return this;
+    }
+
+    // Записывает имя поля объекта, за ним должно следовать значение
+    public JsonWriter name(String name) {
+        separate();
+        writeString(name);
+        writeByte(':');
+        needsComma = false;
+        return this;
+    }
+
+    // Записывает строку value с экранированием, null записывается как null
+    public JsonWriter value(String value) {
+        separate();
+        if (value == null) {
+            writeBytes(NULL);
+        } else {
+            writeString(value);
+        }
+        needsComma = true;
+        return this;
+    }
+
+    // Записывает целое число value
+    public JsonWriter value(long value) {
+        separate();
+        writeLong(value);
+        needsComma = true;
+        return this;
+    }
+
+    // Записывает логическое значение value
+    public JsonWriter value(boolean value) {
+        separate();
+        writeBytes(value ? TRUE : FALSE);
+        needsComma = true;
+        return this;
+    }
+
+    // Записывает число value, null и значения, не представимые в json (NaN, бесконечности), записываются как null
+    public JsonWriter value(Double value) {
+        separate();
+        if (value == null || value.isNaN() || value.isInfinite()) {
+            writeBytes(NULL);
+        } else {
+            writeAscii(Double.toString(value));
+        }
+        needsComma = true;
+        return this;
+    }
+
+    // Записывает строковое представление объекта value, null записывается как null
+    public JsonWriter value(Object value) {
+        return value(value == null ? null : value.toString());
+    }
+
+    // Записывает null
+    public JsonWriter nullValue() {
+        separate();
+        writeBytes(NULL);
+        needsComma = true;
+        return this;
+    }
+
+    // Записывает поле name со строковым значением value
+    public JsonWriter field(String name, String value) {
+        return name(name).value(value);
+    }
+
+    // Записывает поле name с целым значением value
+    public JsonWriter field(String name, long value) {
+        return name(name).value(value);
+    }
+
+    // Записывает поле name с логическим значением value
+    public JsonWriter field(String name, boolean value) {
+        return name(name).value(value);
+    }
+
+    // Записывает поле name с числовым значением value
+    public JsonWriter field(String name, Double value) {
+        return name(name).value(value);
+    }
+
+    // Записывает поле name со строковым представлением объекта value
+    public JsonWriter field(String name, Object value) {
+        return name(name).value(value);
+    }
+
+    // Возвращает записанный json, только для писателя в память
+    public byte[] toByteArray() {
+        if (output != null) {
+            throw new IllegalStateException("JsonWriter writes to a stream");
+        }
+        return Arrays.copyOf(buffer, position);
+    }
+
+    // Возвращает количество байт в буфере
+    public int size() {
+        return position;
+    }
+
+    // Сбрасывает содержимое буфера в поток вывода
+    public void flush() {
+        if (output == null || position == 0) {
+            return;
+        }
+        try {
+            output.write(buffer, 0, position);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        position = 0;
+    }
+
+    // Пишет запятую, если перед текущим элементом уже есть соседний
+    private void separate() {
+        if (needsComma) {
+            writeByte(',');
+        }
+    }
+
+    // Пишет строку value в кавычках, экранируя спецсимволы и кодируя символы в UTF-8
+    private void writeString(String value) {
+        writeByte('"');
+        int length = value.length();
+        for (int i = 0; i < length; i++) {
+            char symbol = value.charAt(i);
+            if (symbol >= 0x20 && symbol < 0x80 && symbol != '"' && symbol != '\\') {
+                writeByte(symbol);
+            } else
+            if (symbol < 0x80) {
+                writeEscaped(symbol);
+            } else
+            if (symbol < 0x800) {
+                ensure(2);
+                buffer[position++] = (byte) (0xc0 | (symbol >> 6));
+                buffer[position++] = (byte) (0x80 | (symbol & 0x3f));
+            } else
+            if (Character.isHighSurrogate(symbol) && i + 1 < length && Character.isLowSurrogate(value.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(symbol, value.charAt(++i));
+                ensure(4);
+                buffer[position++] = (byte) (0xf0 | (codePoint >> 18));
+                buffer[position++] = (byte) (0x80 | ((codePoint >> 12) & 0x3f));
+                buffer[position++] = (byte) (0x80 | ((codePoint >> 6) & 0x3f));
+                buffer[position++] = (byte) (0x80 | (codePoint & 0x3f));
+            } else
+            if (Character.isSurrogate(symbol) || symbol == '\u2028' || symbol == '\u2029') {
+                writeUnicodeEscape(symbol);
+            } else {
+                ensure(3);
+                buffer[position++] = (byte) (0xe0 | (symbol >> 12));
+                buffer[position++] = (byte) (0x80 | ((symbol >> 6) & 0x3f));
+                buffer[position++] = (byte) (0x80 | (symbol & 0x3f));
+            }
+        }
+        writeByte('"');
+    }
+
+    // Пишет экранированный ASCII-символ symbol
+    private void writeEscaped(char symbol) {
+        char escape = switch (symbol) {
+            case '"', '\\' -> symbol;
+            case '\n'       -> 'n';
+            case '\r'       -> 'r';
+            case '\t'       -> 't';
+            case '\b'       -> 'b';
+            case '\f'       -> 'f';
+            default         -> 0;
+        };
+
+        if (escape == 0) {
+            writeUnicodeEscape(symbol);
+        } else {
+            ensure(2);
+            buffer[position++] = '\\';
+            buffer[position++] = (byte) escape;
+        }
+    }
+
+    // Пишет символ symbol в виде шестнадцатеричной escape-последовательности
+    private void writeUnicodeEscape(char symbol) {
+        ensure(6);
+        buffer[position++] = '\\';
+        buffer[position++] = 'u';
+        buffer[position++] = HEX[(symbol >> 12) & 0xf];
+        buffer[position++] = HEX[(symbol >> 8) & 0xf];
+        buffer[position++] = HEX[(symbol >> 4) & 0xf];
+        buffer[position++] = HEX[symbol & 0xf];
+    }
+
+    // Пишет десятичную запись целого value
+    private void writeLong(long value) {
+        if (value == Long.MIN_VALUE) {
+            writeAscii(Long.toString(value));
+            return;
+        }
+
+        ensure(20);
+        if (value < 0) {
+            buffer[position++] = '-';
+            value = -value;
+        }
+
+        int start = position;
+        do {
+            buffer[position++] = (byte) ('0' + value % 10);
+            value /= 10;
+        } while (value != 0);
+
+        for (int left = start, right = position - 1; left < right; left++, right--) {
+            byte digit    = buffer[left];
+            buffer[left]  = buffer[right];
+            buffer[right] = digit;
+        }
+    }
+
+    // Пишет строку value, состоящую только из ASCII-символов, без экранирования
+    private void writeAscii(String value) {
+        ensure(value.length());
+        for (int i = 0; i < value.length(); i++) {
+            buffer[position++] = (byte) value.charAt(i);
+        }
+    }
+
+    private void writeByte(int value) {
+        ensure(1);
+        buffer[position++] = (byte) value;
+    }
+
+    private void writeBytes(byte[] value) {
+        ensure(value.length);
+        System.arraycopy(value, 0, buffer, position, value.length);
+        position += value.length;
+    }
+
+    // Освобождает в буфере место под count байт: сбрасывает буфер в поток или расширяет его
+    private void ensure(int count) {
+        if (position + count <= buffer.length) {
+            return;
+        }
+        if (output != null) {
+            flush();
+            if (count <= buffer.length) {
+                return;
+            }
+        }
+        buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, position + count));
+    }
+}
@@ -0,0 +1,113 @@
+package com.energy.monitoring.utils;
+
+import java.nio.ByteBuffer;
+
+/* Пошаговый разбор потока байт uart на кадры координатора: 0xAA, адрес, код команды, длина параметров, параметры, CRC-8/SMBUS
+   всего кадра без стартового байта. Байты можно подавать любыми кусками: неполный кадр дожидается продолжения, несколько кадров
+   в одном куске разбираются по очереди, мусор и кадры с неверной контрольной суммой пропускаются до следующего стартового байта.
+   Разбор идёт в одном буфере без выделения памяти на кадр */
+public class UartFrameDecoder {
+    public static final byte START_BYTE = (byte) 0xAA; // Стартовый байт кадра
+
+    private static final int HEADER_LENGTH = 4;                        // Стартовый байт, адрес, код команды и длина параметров
+    private static final int MAX_FRAME     = HEADER_LENGTH + 0xFF + 1; // Наибольшая длина кадра: заголовок, 255 байт параметров и CRC
+
+    /* Получатель разобранных кадров */
+    @FunctionalInterface
+    public interface FrameListener {
+        // Принимает кадр с кодом команды commandCode, parameters - параметры кадра от position до limit,
+        // буфер только для чтения и действителен лишь во время вызова
+        void onFrame(byte commandCode, ByteBuffer parameters);
+    }
+
+    private final byte[]        buffer = new byte[MAX_FRAME];                        // Принятые, но ещё не разобранные байты
+    private final ByteBuffer    view   = ByteBuffer.wrap(buffer).asReadOnlyBuffer(); // Окно на параметры очередного кадра
+    private final FrameListener listener;                                            // Получатель кадров
+    private int                 count;                                               // Количество байт в buffer
+    private long                frames;                                              // Количество разобранных кадров
+    private long                droppedBytes;                                        // Количество пропущенных байт мусора
+    private long                crcErrors;                                           // Количество кадров с неверной контрольной суммой
+
+    public UartFrameDecoder(FrameListener listener) {
+        this.listener = listener;
+    }
+
+    // Разбирает length байт из data начиная с offset, готовые кадры передаёт получателю
+    public void feed(byte[] data, int offset, int length) {
+        while (length > 0) {
+            int chunk = Math.min(length, MAX_FRAME - count);
+            System.arraycopy(data, offset, buffer, count, chunk);
+            count  += chunk;
+            offset += chunk;
+            length -= chunk;
+            decode();
+        }
+    }
+
+    // Разбирает оставшиеся байты data, после вызова data прочитан до конца
+    public void feed(ByteBuffer data) {
+        while (data.hasRemaining()) {
+            int chunk = Math.min(data.remaining(), MAX_FRAME - count);
+            data.get(buffer, count, chunk);
+            count += chunk;
+            decode();
+        }
+    }
+
+    // Отбрасывает недоразобранный кадр, например после переоткрытия порта
+    public void reset() {
+        count = 0;
+    }
+
+    public long getFrames() {
+        return frames;
+    }
+
+    public long getDroppedBytes() {
+        return droppedBytes;
+    }
+
+    public long getCrcErrors() {
+        return crcErrors;
+    }
+
+    // Разбирает все полные кадры в buffer и сдвигает остаток в начало буфера
+    private void decode() {
+        int start = 0;
+        while (true) {
+            // Поиск стартового байта
+            while (start < count && buffer[start] != START_BYTE) {
+                start++;
+                droppedBytes++;
+            }
+
+            // Ожидание заголовка с длиной параметров, затем всего кадра
+            if (count - start < HEADER_LENGTH) {
+                break;
+            }
+            int length = HEADER_LENGTH + (buffer[start + 3] & 0xFF) + 1;
+            if (count - start < length) {
+                break;
+            }
+
+            // Проверка контрольной суммы, при ошибке поиск следующего кадра начинается сразу за отвергнутым стартовым байтом
+            int crcIndex = start + length - 1;
+            if (CrcUtil.calculateCRC(buffer, start + 1, length - 2) != buffer[crcIndex]) {
+                start++;
+                droppedBytes++;
+                crcErrors++;
+                continue;
+            }
+
+            frames++;
+            view.clear().limit(crcIndex).position(start + HEADER_LENGTH);
+            listener.onFrame(buffer[start + 2], view);
+            start += length;
+        }
+
+        if (start > 0) {
+            System.arraycopy(buffer, start, buffer, 0, count - start);
+            count -= start;
+        }
+    }
+}
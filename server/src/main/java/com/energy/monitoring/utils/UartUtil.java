@@ -1,17 +1,22 @@
 package com.energy.monitoring.utils;
 
-import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.energy.monitoring.config.Config;
 import com.energy.monitoring.config.ConfigKeys;
-import com.fazecast.jSerialComm.SerialPort;
+import com.energy.monitoring.models.CoordinatorResponse;
+import com.energy.monitoring.uart.SerialPortChannel;
 
 /* Инструменты для взаимодействия с координаторами по uart */
 public class UartUtil {
     private static final Logger logger = LoggerFactory.getLogger(UartUtil.class); // Объект Logger для текущего класса
+
+    private static final int COMMAND_TIMEOUT = Config.getInt(ConfigKeys.Uart.COMMAND_TIMEOUT); // Сколько мс ждать ответа координатора вместе с очередью порта
     
     // Возвращает строку string в виде набота байт
     public static byte[] convertStringToBytes(String string) {
@@ -59,53 +64,47 @@ public class UartUtil {
         return null;
     }
 
-    // Отправляет запрос c кодом commandCode и параметрами parameters на коорданатор с mac-адресом macAddress и возвращает ответ
-    public static String sendCommandToCoordinator(String macAddress, String commandCode, String parameters) {
-        logger.info("sendCommandToCoordinator");
+    // Ставит запрос c кодом commandCode и параметрами parameters в очередь com-порта коорданатора с mac-адресом macAddress,
+    // результат - код команды и параметры кадров ответа, если порт координатора неизвестен - завершается ошибкой сразу
+    public static CompletableFuture<CoordinatorResponse> sendCommandAsync(String macAddress, byte commandCode, byte[] parameters) {
+        return submitToCoordinator(macAddress, false, commandCode, parameters, COMMAND_TIMEOUT);
+    }
+
+    // Ставит фоновый запрос c кодом commandCode и параметрами parameters в очередь com-порта коорданатора с mac-адресом macAddress,
+    // запрос уступает очередь командам пользователей, если ответ не получен за timeoutMillis - завершается TimeoutException
+    public static CompletableFuture<CoordinatorResponse> sendBackgroundCommandAsync(String macAddress, byte commandCode, byte[] parameters, long timeoutMillis) {
+        return submitToCoordinator(macAddress, true, commandCode, parameters, timeoutMillis);
+    }
+
+    // Ставит запрос в обычную или фоновую (background) очередь com-порта коорданатора с mac-адресом macAddress
+    private static CompletableFuture<CoordinatorResponse> submitToCoordinator(String macAddress, boolean background, byte commandCode, byte[] parameters, long timeoutMillis) {
         String portNumber = getCommPortByMacAddress(macAddress);
-        logger.info("{}", portNumber);
         if (portNumber == null) {
-            logger.error("Port with devise {} not founded", macAddress);
-
-            return null;
+            return CompletableFuture.failedFuture(new IllegalArgumentException("Port with devise " + macAddress + " not founded"));
         }
 
-        SerialPort serialPort = SerialPort.getCommPort(portNumber);
-        serialPort.setComPortParameters(Config.getInt(ConfigKeys.Uart.BAUND_RATE), Config.getInt(ConfigKeys.Uart.DATA_BITS), 
-                                        Config.getInt(ConfigKeys.Uart.STOP_BITS), Config.getInt(ConfigKeys.Uart.PARITY));
-        serialPort.setComPortTimeouts(SerialPort.TIMEOUT_READ_BLOCKING, Config.getInt(ConfigKeys.Uart.RESPONSE_TIMEOUT), 0);
-
-        if (serialPort.openPort()) {
-            logger.info("Serial port {} with {} opened successfully", portNumber, macAddress);
-
-            byte   commandCodeInByte    = convertStringToBytes(commandCode)[0];
-            byte[] commandParamsInBytes = convertStringToBytes(parameters);
-            byte[] request = CommandsUtil.createRequest(commandCodeInByte, commandParamsInBytes);
-            serialPort.writeBytes(request, request.length);
-            logger.info("Write request to {}: {}", macAddress, convertBytesToString(request));
-
-            byte[] response = new byte[Config.getInt(ConfigKeys.Uart.MAX_LEN)];
-            int responseLen = serialPort.readBytes(response, response.length);
-            response = Arrays.copyOfRange(response, 0, responseLen);
-            String responseInString = convertBytesToString(response);
-            logger.info("Read respons from {}: {}", macAddress, responseInString);
-
-            serialPort.closePort();
-            logger.info("Port {} with {} closed successfully", portNumber, macAddress);
-
-            if (responseLen > 0) {
-                // logger.info("Parsed response: {}", CommandsUtil.parseResponse(response));
+        SerialPortChannel channel = SerialPortChannel.forPort(portNumber);
+        if (channel == null) {
+            return CompletableFuture.failedFuture(new RejectedExecutionException("Serial ports are closed"));
+        }
+        return background ? channel.submitBackground(commandCode, parameters, timeoutMillis) : channel.submit(commandCode, parameters, timeoutMillis);
+    }
 
-                return convertBytesToString(CommandsUtil.parseResponse(response));
-            } else {
-                logger.warn("Not be reading data in UART");
+    // Отправляет запрос c кодом commandCode и параметрами parameters на коорданатор с mac-адресом macAddress и возвращает ответ,
+    // если ответа нет - null
+    public static CoordinatorResponse sendCommandToCoordinator(String macAddress, String commandCode, String parameters) {
+        CompletableFuture<CoordinatorResponse> response = sendCommandAsync(macAddress, convertStringToBytes(commandCode)[0], convertStringToBytes(parameters));
+        try {
+            return response.get();
+        } catch (ExecutionException e) {
+            logger.warn("Command {} to {} failed: {}", commandCode, macAddress, e.getCause().getMessage());
 
-                return null;
-            }
-        } else {
-            logger.error("Port not be opened");
+            return null;
+        } catch (InterruptedException e) {
+            response.cancel(false);
+            Thread.currentThread().interrupt();
 
             return null;
         }
     }
-}
\ No newline at end of file
+}
@@ -63,6 +63,24 @@ CREATE TABLE IF NOT EXISTS meters (
 -- Создание индекса для таблицы meters
 CREATE INDEX IF NOT EXISTS meters_coordinator_id_idx ON meters(coordinator_id);
 
+-- -----------------------------------------------------
+-- Table meter_readings
+-- -----------------------------------------------------
+-- Показания приборов учёта только дописываются, последние значения дублируются в таблице meters
+CREATE TABLE IF NOT EXISTS meter_readings (
+  meter_id INT NOT NULL REFERENCES meters(id) ON DELETE CASCADE ON UPDATE CASCADE,
+  recorded_at TIMESTAMP NOT NULL,
+  voltage DECIMAL(10,2) NULL,
+  current DECIMAL(10,2) NULL,
+  active_power DECIMAL(10,2) NULL,
+  reactive_power DECIMAL(10,2) NULL,
+  apparent_power DECIMAL(10,2) NULL,
+  power_factor DECIMAL(10,2) NULL,
+  frequency DECIMAL(10,2) NULL,
+  neutral_current DECIMAL(10,2) NULL,
+  PRIMARY KEY (meter_id, recorded_at)
+);
+
 -- -----------------------------------------------------
 -- Table logs
 -- -----------------------------------------------------
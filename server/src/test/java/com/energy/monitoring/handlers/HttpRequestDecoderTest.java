@@ -0,0 +1,135 @@
+package com.energy.monitoring.handlers;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import com.energy.monitoring.components.HttpStatusCodes;
+import com.energy.monitoring.models.HttpRequest;
+
+/* Проверки разбора http-запросов, приходящих произвольными кусками и по несколько в одном чтении */
+class HttpRequestDecoderTest {
+    private final HttpRequestDecoder decoder = new HttpRequestDecoder();
+
+    @AfterEach
+    void release() {
+        decoder.release();
+    }
+
+    // Запрос, пришедший по одному байту, собирается только после последнего байта тела
+    @Test
+    void decodesRequestSplitIntoSingleBytes() throws Exception {
+        byte[] data = bytes("POST /api/auth/login HTTP/1.1\r\nHost: localhost\r\nContent-Length: 5\r\n\r\nhello");
+
+        for (int i = 0; i < data.length - 1; i++) {
+            feed(Arrays.copyOfRange(data, i, i + 1));
+            assertNull(decoder.next());
+        }
+        feed(Arrays.copyOfRange(data, data.length - 1, data.length));
+
+        HttpRequest request = decoder.next();
+        assertNotNull(request);
+        assertEquals("POST", request.getMethod());
+        assertEquals("/api/auth/login", request.getPath());
+        assertEquals("HTTP/1.1", request.getVersion());
+        assertEquals("localhost", request.getHeaders().get("Host"));
+        assertEquals("hello", request.getBody());
+        assertFalse(decoder.hasBufferedData());
+    }
+
+    // Несколько запросов, принятых одним чтением, отдаются по очереди, а начало следующего запроса остаётся в буфере
+    @Test
+    void decodesPipelinedRequestsInOrder() throws Exception {
+        feed(bytes("GET /api/health HTTP/1.1\r\nHost: localhost\r\n\r\n"
+                 + "POST /api/meters HTTP/1.1\r\nContent-Length: 2\r\n\r\n{}"
+                 + "GET /index.html HTTP/1.0\r\n\r\n"
+                 + "GET /api/coord"));
+
+        assertEquals("/api/health", decoder.next().getPath());
+        HttpRequest post = decoder.next();
+        assertEquals("/api/meters", post.getPath());
+        assertEquals("{}", post.getBody());
+        HttpRequest old = decoder.next();
+        assertEquals("/index.html", old.getPath());
+        assertEquals("HTTP/1.0", old.getVersion());
+        assertNull(decoder.next());
+
+        feed(bytes("inators HTTP/1.1\r\n\r\n"));
+        assertEquals("/api/coordinators", decoder.next().getPath());
+        assertFalse(decoder.hasBufferedData());
+    }
+
+    // Тело больше буфера из пула принимается целиком за несколько чтений
+    @Test
+    void decodesBodyLargerThanPooledBuffer() throws Exception {
+        byte[] body = new byte[20000];
+        Arrays.fill(body, (byte) 'x');
+        feed(bytes("PUT /api/meters/1 HTTP/1.1\r\nContent-Length: " + body.length + "\r\n\r\n"));
+        for (int offset = 0; offset < body.length; offset += 3000) {
+            assertNull(decoder.next());
+            feed(Arrays.copyOfRange(body, offset, Math.min(body.length, offset + 3000)));
+        }
+
+        HttpRequest request = decoder.next();
+        assertNotNull(request);
+        assertEquals(body.length, request.getBodyBytes().length);
+    }
+
+    // Неверная длина тела отвергается с кодом 400
+    @Test
+    void rejectsInvalidContentLength() throws Exception {
+        feed(bytes("POST /api/meters HTTP/1.1\r\nContent-Length: 12a\r\n\r\n"));
+
+        HttpRequestDecoder.DecodeException e = assertThrows(HttpRequestDecoder.DecodeException.class, decoder::next);
+        assertEquals(HttpStatusCodes.BAD_REQUEST, e.getStatusCode());
+    }
+
+    // Запрос с Transfer-Encoding отвергается с кодом 501, а не разбирается как запрос без тела
+    @Test
+    void rejectsTransferEncoding() throws Exception {
+        feed(bytes("POST /api/meters HTTP/1.1\r\nTransfer-Encoding: chunked\r\n\r\n5\r\nhello\r\n0\r\n\r\n"));
+
+        HttpRequestDecoder.DecodeException e = assertThrows(HttpRequestDecoder.DecodeException.class, decoder::next);
+        assertEquals(HttpStatusCodes.NOT_IMPLEMENTED, e.getStatusCode());
+    }
+
+    // Несколько Content-Length с разными значениями отвергаются с кодом 400, повтор того же значения допустим
+    @Test
+    void rejectsConflictingContentLength() throws Exception {
+        feed(bytes("POST /api/meters HTTP/1.1\r\nContent-Length: 2\r\nContent-Length: 40\r\n\r\n{}GET /api/health HTTP/1.1\r\n\r\n"));
+
+        HttpRequestDecoder.DecodeException e = assertThrows(HttpRequestDecoder.DecodeException.class, decoder::next);
+        assertEquals(HttpStatusCodes.BAD_REQUEST, e.getStatusCode());
+
+        HttpRequestDecoder same = new HttpRequestDecoder();
+        try {
+            byte[] data = bytes("POST /api/meters HTTP/1.1\r\nContent-Length: 2\r\ncontent-length: 2\r\n\r\n{}");
+            same.readFrom(new ByteArrayInputStream(data));
+            assertEquals("{}", same.next().getBody());
+        } finally {
+            same.release();
+        }
+    }
+
+    // Передаёт разборщику байты data так, будто они пришли одним чтением из сокета
+    private void feed(byte[] data) throws IOException {
+        int offset = 0;
+        while (offset < data.length) {
+            offset += decoder.readFrom(new ByteArrayInputStream(data, offset, data.length - offset));
+        }
+    }
+
+    private static byte[] bytes(String text) {
+        return text.getBytes(StandardCharsets.US_ASCII);
+    }
+}
@@ -0,0 +1,77 @@
+package com.energy.monitoring.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+
+import org.junit.jupiter.api.Test;
+
+/* Проверки разбора полей json-тел запросов: escape-последовательности, пустые и отсутствующие значения, ошибки формата */
+class JsonFieldsTest {
+    // Строки с escape-последовательностями декодируются, включая коды символов юникода и суррогатные пары, экранированная кавычка не закрывает строку
+    @Test
+    void decodesEscapedStrings() throws Exception {
+        JsonFields fields = parse("{\"login\":\"a\\\"b\\\\c\\/d\",\"name\":\"\\u0423\\u0437\\u0435\\u043b 1\\n\",\"emoji\":\"\\ud83d\\ude00\",\"plain\":\"Счётчик\"}");
+
+        assertEquals("a\"b\\c/d", fields.getString("login"));
+        assertEquals("Узел 1\n", fields.getString("name"));
+        assertEquals("\ud83d\ude00", fields.getString("emoji"));
+        assertEquals("Счётчик", fields.getString("plain"));
+    }
+
+    // Имя поля с escape-последовательностью находится по декодированному имени
+    @Test
+    void findsEscapedKey() throws Exception {
+        JsonFields fields = parse("{\"\\u0069p\":\"10.0.0.1\"}");
+
+        assertTrue(fields.has("ip"));
+        assertEquals("10.0.0.1", fields.getString("ip"));
+    }
+
+    // Пустая строка остаётся пустой строкой, а у getInt пустая строка, null и отсутствующее поле дают значение по умолчанию
+    @Test
+    void treatsEmptyAndNullValuesAsMissing() throws Exception {
+        JsonFields fields = parse("{\"ip\":\"\",\"port\":\"\",\"interval\":null,\"count\":\"42\",\"id\":-7}");
+
+        assertEquals("", fields.getString("ip"));
+        assertNull(fields.getString("interval"));
+        assertNull(fields.getString("missing"));
+        assertFalse(fields.has("missing"));
+        assertEquals(8080, fields.getInt("port", 8080));
+        assertEquals(5, fields.getInt("interval", 5));
+        assertEquals(1, fields.getInt("missing", 1));
+        assertEquals(42, fields.getInt("count", 0));
+        assertEquals(-7, fields.getInt("id", 0));
+    }
+
+    // Вложенные объекты и массивы пропускаются целиком и отдаются исходным текстом, при повторе имени берётся последнее поле
+    @Test
+    void keepsNestedValuesAsTextAndLastDuplicate() throws Exception {
+        JsonFields fields = parse("{ \"meta\" : {\"a\":[1,\"}\"]}, \"id\":1, \"id\":2 }");
+
+        assertEquals("{\"a\":[1,\"}\"]}", fields.getString("meta"));
+        assertEquals(2, fields.getInt("id", 0));
+        assertEquals(3, fields.size());
+    }
+
+    // Испорченный json и нечисловое значение числового поля отвергаются
+    @Test
+    void rejectsMalformedInput() throws Exception {
+        assertThrows(JsonFields.ParseException.class, () -> parse("{\"id\":1} x"));
+        assertThrows(JsonFields.ParseException.class, () -> parse("{\"id\":\"\\q\"}"));
+        assertThrows(JsonFields.ParseException.class, () -> parse("{\"id\":\"open"));
+        assertThrows(JsonFields.ParseException.class, () -> parse("{\"id\":1,}"));
+
+        JsonFields fields = parse("{\"port\":\"80a\",\"big\":3000000000}");
+        assertThrows(JsonFields.ParseException.class, () -> fields.getInt("port", 0));
+        assertThrows(JsonFields.ParseException.class, () -> fields.getInt("big", 0));
+    }
+
+    private static JsonFields parse(String json) throws JsonFields.ParseException {
+        return JsonFields.parse(json.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,142 @@
+package com.energy.monitoring.utils;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+/* Проверки разбора потока uart на кадры координатора: мусор, неверная контрольная сумма, кадры, пришедшие кусками и пачкой */
+class UartFrameDecoderTest {
+    private final List<Byte>       codes   = new ArrayList<>(); // Коды команд принятых кадров
+    private final List<byte[]>     params  = new ArrayList<>(); // Параметры принятых кадров
+    private final UartFrameDecoder decoder = new UartFrameDecoder((code, parameters) -> {
+        byte[] copy = new byte[parameters.remaining()];
+        parameters.get(copy);
+        codes.add(code);
+        params.add(copy);
+    });
+
+    // Кадр, пришедший по одному байту, передаётся получателю один раз после последнего байта
+    @Test
+    void decodesFrameSplitIntoSingleBytes() {
+        byte[] frame = frame(0x09, 1, 2, 3, 4);
+
+        for (int i = 0; i < frame.length; i++) {
+            assertEquals(0, params.size());
+            decoder.feed(frame, i, 1);
+        }
+
+        assertEquals(1, params.size());
+        assertEquals((byte) 0x09, codes.get(0));
+        assertArrayEquals(new byte[] { 1, 2, 3, 4 }, params.get(0));
+    }
+
+    // Несколько кадров в одном куске разбираются по очереди, включая кадр без параметров
+    @Test
+    void decodesSeveralFramesInOneChunk() {
+        decoder.feed(ByteBuffer.wrap(concat(frame(0x01, 7), frame(0x02), frame(0x03, 8, 9))));
+
+        assertEquals(List.of((byte) 0x01, (byte) 0x02, (byte) 0x03), codes);
+        assertArrayEquals(new byte[] { 7 }, params.get(0));
+        assertArrayEquals(new byte[0], params.get(1));
+        assertArrayEquals(new byte[] { 8, 9 }, params.get(2));
+        assertEquals(3, decoder.getFrames());
+    }
+
+    // Мусор перед кадром и между кадрами пропускается и учитывается в счётчике
+    @Test
+    void skipsGarbageBetweenFrames() {
+        decoder.feed(ByteBuffer.wrap(concat(new byte[] { 0x00, 0x13, 0x37 }, frame(0x05, 1), new byte[] { 0x55 }, frame(0x06, 2))));
+
+        assertEquals(List.of((byte) 0x05, (byte) 0x06), codes);
+        assertEquals(4, decoder.getDroppedBytes());
+        assertEquals(0, decoder.getCrcErrors());
+    }
+
+    // Кадр с неверной контрольной суммой отбрасывается, а следующий за ним целый кадр принимается
+    @Test
+    void dropsFrameWithBadCrc() {
+        byte[] broken = frame(0x07, 1, 2);
+        broken[broken.length - 1] ^= 0x5A;
+
+        decoder.feed(ByteBuffer.wrap(concat(broken, frame(0x08, 3))));
+
+        assertEquals(List.of((byte) 0x08), codes);
+        assertArrayEquals(new byte[] { 3 }, params.get(0));
+        assertEquals(1, decoder.getCrcErrors());
+    }
+
+    // Стартовый байт внутри мусора с неправдоподобной длиной не съедает настоящий кадр, который начинается внутри него
+    @Test
+    void resynchronizesInsideFalseHeader() {
+        byte[] frame = frame(0x09, 4, 5);
+        byte[] data  = concat(new byte[] { UartFrameDecoder.START_BYTE, 0x01, 0x09, 0x04 }, frame);
+
+        decoder.feed(data, 0, data.length);
+
+        assertEquals(List.of((byte) 0x09), codes);
+        assertArrayEquals(new byte[] { 4, 5 }, params.get(0));
+    }
+
+    // Кадр с наибольшей длиной параметров, разбитый на неровные куски, принимается целиком
+    @Test
+    void decodesLongestFrameInUnevenChunks() {
+        byte[] payload = new byte[255];
+        for (int i = 0; i < payload.length; i++) {
+            payload[i] = (byte) i;
+        }
+        byte[] frame = frame(0x0C, payload);
+
+        for (int offset = 0; offset < frame.length; offset += 37) {
+            decoder.feed(frame, offset, Math.min(37, frame.length - offset));
+        }
+
+        assertEquals(1, params.size());
+        assertArrayEquals(payload, params.get(0));
+    }
+
+    // После сброса недоразобранный кадр забывается, и его хвост не склеивается со следующим кадром
+    @Test
+    void resetDropsPartialFrame() {
+        byte[] first = frame(0x01, 1, 2, 3);
+        decoder.feed(first, 0, 5);
+        decoder.reset();
+        decoder.feed(ByteBuffer.wrap(frame(0x02, 4)));
+
+        assertEquals(List.of((byte) 0x02), codes);
+        assertArrayEquals(new byte[] { 4 }, params.get(0));
+    }
+
+    // Возвращает кадр координатора с кодом команды code и параметрами parameters
+    private static byte[] frame(int code, byte... parameters) {
+        byte[] frame = new byte[parameters.length + 5];
+        frame[0] = UartFrameDecoder.START_BYTE;
+        frame[1] = 0x01;
+        frame[2] = (byte) code;
+        frame[3] = (byte) parameters.length;
+        System.arraycopy(parameters, 0, frame, 4, parameters.length);
+        frame[frame.length - 1] = CrcUtil.calculateCRC(frame, 1, frame.length - 2);
+        return frame;
+    }
+
+    private static byte[] frame(int code, int... parameters) {
+        byte[] bytes = new byte[parameters.length];
+        for (int i = 0; i < parameters.length; i++) {
+            bytes[i] = (byte) parameters[i];
+        }
+        return frame(code, bytes);
+    }
+
+    private static byte[] concat(byte[]... parts) {
+        ByteArrayOutputStream result = new ByteArrayOutputStream();
+        for (byte[] part : parts) {
+            result.writeBytes(part);
+        }
+        return result.toByteArray();
+    }
+}